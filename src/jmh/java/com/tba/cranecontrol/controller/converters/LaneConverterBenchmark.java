@@ -0,0 +1,78 @@
+package com.tba.cranecontrol.controller.converters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tba.cranecontrol.controller.dto.LaneDTO;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+
+/**
+ * Conversion of a lane to its DTO, and JSON serialization of DTO lists as GET /lane writes them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LaneConverterBenchmark {
+
+    private static final Lane LANE = Lane.builder()
+            .withId("5f0c6c2a9b1e8a3d4c2b1a00")
+            .withPositions(100)
+            .withCranes(List.of(new Crane(10, LaneOrder.FIRST), new Crane(90, LaneOrder.SECOND)))
+            .withVersion(1L)
+            .build();
+
+    private final LaneConverter laneConverter = new LaneConverter();
+
+    @State(Scope.Benchmark)
+    public static class LaneList {
+
+        @Param({"1", "100", "10000"})
+        private int lanes;
+
+        private ObjectWriter writer;
+        private List<LaneDTO> laneDTOs;
+
+        @Setup
+        public void setup() {
+            final LaneConverter laneConverter = new LaneConverter();
+            writer = new ObjectMapper().writerFor(new TypeReference<List<LaneDTO>>() {
+            });
+            laneDTOs = new ArrayList<>(lanes);
+            for (int index = 0; index < lanes; index++) {
+                laneDTOs.add(laneConverter.convert(LANE));
+            }
+        }
+    }
+
+    @Benchmark
+    public LaneDTO convert() {
+        return laneConverter.convert(LANE);
+    }
+
+    @Benchmark
+    public byte[] serializeLanes(final LaneList laneList) throws JsonProcessingException {
+        return laneList.writer.writeValueAsBytes(laneList.laneDTOs);
+    }
+}
@@ -0,0 +1,122 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.LaneWindow;
+
+/**
+ * Map backed {@link LaneStore} with no persistence behind it, so benchmarks measure the service alone.
+ * Lanes are kept and mutated as {@link LaneState}s, like {@link InMemoryLaneStore} does, in a map sorted
+ * by id that pages are read from.
+ */
+public class MapLaneStore implements LaneStore {
+
+    private final NavigableMap<String, LaneState> lanes = new ConcurrentSkipListMap<>();
+    private final LaneIndex index = new LaneIndex();
+    private final AtomicLong ids = new AtomicLong();
+
+    @Override
+    public Optional<Lane> findById(final String laneId) {
+        return Optional.ofNullable(lanes.get(laneId)).map(MapLaneStore::snapshot);
+    }
+
+    @Override
+    public List<Lane> findAll() {
+        final List<Lane> all = new ArrayList<>(lanes.size());
+        lanes.values().forEach(lane -> all.add(snapshot(lane)));
+        return all;
+    }
+
+    @Override
+    public List<Lane> findPage(final String afterId, final int limit) {
+        final List<Lane> page = new ArrayList<>(limit);
+        final NavigableMap<String, LaneState> lanesAfter = afterId == null ? lanes : lanes.tailMap(afterId, false);
+        final Iterator<LaneState> iterator = lanesAfter.values().iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(snapshot(iterator.next()));
+        }
+        return page;
+    }
+
+    @Override
+    public void streamAll(final Consumer<Lane> action) {
+        lanes.values().forEach(lane -> action.accept(snapshot(lane)));
+    }
+
+    @Override
+    public List<Lane> findParked(final String afterId, final int limit) {
+        return snapshots(index.findParked(afterId, limit));
+    }
+
+    @Override
+    public List<Lane> findByWorkingWindow(final int minWindow, final LaneWindow after, final int limit) {
+        return snapshots(index.findByWorkingWindow(minWindow, after, limit));
+    }
+
+    @Override
+    public List<Lane> insertAll(final List<Lane> newLanes) {
+        final List<Lane> inserted = new ArrayList<>(newLanes.size());
+        for (final Lane lane : newLanes) {
+            final Lane withId = lane.toBuilder().withId(Long.toString(ids.incrementAndGet())).build();
+            final LaneState state = LaneState.of(withId);
+            lanes.put(withId.getId(), state);
+            index.put(state);
+            inserted.add(withId);
+        }
+        return inserted;
+    }
+
+    @Override
+    public Lane update(final String laneId, final Consumer<LaneState> mutation) {
+        final LaneState lane = lanes.get(laneId);
+        if (lane == null) {
+            throw new NotFoundException("Lane not found for id: " + laneId);
+        }
+        synchronized (lane) {
+            mutation.accept(lane);
+            lane.incrementVersion();
+            index.put(lane);
+            return lane.toLane();
+        }
+    }
+
+    @Override
+    public Map<String, Lane> updateAll(final Map<String, Consumer<LaneState>> mutations) {
+        final Map<String, Lane> updated = new HashMap<>(mutations.size());
+        mutations.forEach((laneId, mutation) -> {
+            if (lanes.containsKey(laneId)) {
+                updated.put(laneId, update(laneId, mutation));
+            }
+        });
+        return updated;
+    }
+
+    private List<Lane> snapshots(final List<String> laneIds) {
+        final List<Lane> snapshots = new ArrayList<>(laneIds.size());
+        for (final String laneId : laneIds) {
+            final LaneState lane = lanes.get(laneId);
+            if (lane != null) {
+                snapshots.add(snapshot(lane));
+            }
+        }
+        return snapshots;
+    }
+
+    private static Lane snapshot(final LaneState lane) {
+        synchronized (lane) {
+            return lane.toLane();
+        }
+    }
+}
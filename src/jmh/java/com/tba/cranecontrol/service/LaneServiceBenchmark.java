@@ -0,0 +1,92 @@
+package com.tba.cranecontrol.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.repository.MapLaneStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Crane moves through {@link LaneService}, including the hop to the lane's executor stripe, and the
+ * bare {@link LaneRules} on a {@link LaneState} for each case. Service moves alternate between two
+ * positions so every call is a real move; the push case only exists as a rules benchmark, which puts
+ * the cranes back in place before each push.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LaneServiceBenchmark {
+
+    private static final int POSITIONS = 100;
+
+    private LaneExecutor laneExecutor;
+    private LaneService laneService;
+    private String laneId;
+    private LaneState lane;
+    private int move;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final MapLaneStore laneStore = new MapLaneStore();
+        laneExecutor = new LaneExecutor(1, 1000);
+        laneService = new LaneService(
+                laneStore, laneExecutor, new LaneMetrics(new SimpleMeterRegistry(), laneExecutor),
+                new LaneUpdates(Runnable::run, 100_000, 5_000),
+                new YardStatistics(laneStore, false, 60, 10, 100), Runnable::run, 1000, 1
+        );
+        laneId = laneStore.insertAll(List.of(LaneRules.newLane(POSITIONS, 2))).get(0).getId();
+        lane = LaneState.of(LaneRules.newLane(POSITIONS, 2));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        laneExecutor.shutdown();
+    }
+
+    @Benchmark
+    public Lane moveFirstCrane() {
+        return laneService.moveCrane(laneId, LaneOrder.FIRST, 10 + (move++ & 1));
+    }
+
+    @Benchmark
+    public Lane moveSecondCrane() {
+        return laneService.moveCrane(laneId, LaneOrder.SECOND, 90 + (move++ & 1));
+    }
+
+    @Benchmark
+    public boolean rulesMoveFirstCrane() {
+        return LaneRules.move(lane, LaneOrder.FIRST, 10 + (move++ & 1));
+    }
+
+    @Benchmark
+    public boolean rulesMoveSecondCrane() {
+        return LaneRules.move(lane, LaneOrder.SECOND, 90 + (move++ & 1));
+    }
+
+    @Benchmark
+    public boolean rulesMoveFirstCranePushingSecond() {
+        lane.setCranePosition(LaneOrder.FIRST, 0);
+        lane.setCranePosition(LaneOrder.SECOND, 50);
+        return LaneRules.move(lane, LaneOrder.FIRST, 60);
+    }
+}
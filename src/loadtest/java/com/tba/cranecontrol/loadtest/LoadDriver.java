@@ -0,0 +1,258 @@
+package com.tba.cranecontrol.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tba.cranecontrol.loadtest.OperationStats.Outcome;
+import com.tba.cranecontrol.model.LaneOrder;
+
+/**
+ * Provisions the lanes, drives the endpoints from {@code concurrency} workers for the warm-up and then
+ * for the measured duration, and finally reads every lane back to find lost updates.
+ * <p>
+ * Every applied move increments the lane's version by one, and the version is the ETag of
+ * {@code GET /lane/{laneId}}. So once the workers are done, a lane whose version is below the number
+ * of moves acknowledged on it lost updates. Moves that got no answer or a 5xx may or may not have been
+ * applied, a version above the acknowledged moves plus those is reported too.
+ */
+final class LoadDriver {
+
+    private static final String CONFLICT_MESSAGE = "being changed concurrently";
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final LaneOrder[] LANE_ORDERS = LaneOrder.values();
+
+    private final LoadSettings settings;
+    private final String baseUri;
+    private final HttpClient client;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final int[] cumulativeWeights = new int[OPERATIONS.length];
+    private String[] laneIds;
+    private AtomicLongArray acknowledgedMoves;
+    private AtomicLongArray uncertainMoves;
+
+    LoadDriver(final LoadSettings settings, final URI baseUri) {
+        this.settings = settings;
+        this.baseUri = baseUri.toString();
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(settings.getRequestTimeoutMs()))
+                .build();
+        int total = 0;
+        for (final Operation operation : OPERATIONS) {
+            total += settings.getWeight(operation);
+            cumulativeWeights[operation.ordinal()] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one operation needs a weight above 0.");
+        }
+    }
+
+    LoadReport run() throws IOException, InterruptedException {
+        laneIds = provision();
+        acknowledgedMoves = new AtomicLongArray(laneIds.length);
+        uncertainMoves = new AtomicLongArray(laneIds.length);
+        drive(settings.getWarmupSeconds(), 0);
+        final long start = System.nanoTime();
+        final Map<Operation, OperationStats> stats = drive(settings.getDurationSeconds(), 1);
+        final long elapsedNanos = System.nanoTime() - start;
+        return new LoadReport(settings, stats, elapsedNanos, verify());
+    }
+
+    private String[] provision() throws IOException, InterruptedException {
+        final HttpResponse<String> response = client.send(
+                json("/lane/provision", "POST", lanesRequest(settings.getLanes())),
+                HttpResponse.BodyHandlers.ofString()
+        );
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Provisioning the lanes failed with " + response.statusCode() + ": " + response.body());
+        }
+        return response.body().lines().map(id -> id.replace("\"", "")).toArray(String[]::new);
+    }
+
+    private Map<Operation, OperationStats> drive(final int seconds, final int phase) throws InterruptedException {
+        final long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        final List<Worker> workers = new ArrayList<>(settings.getConcurrency());
+        final List<Thread> threads = new ArrayList<>(settings.getConcurrency());
+        for (int index = 0; index < settings.getConcurrency(); index++) {
+            final Worker worker = new Worker(new Random(settings.getSeed() + 1_000_003L * phase + index), deadline);
+            workers.add(worker);
+            threads.add(new Thread(worker, "Load Worker " + index));
+        }
+        threads.forEach(Thread::start);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final Map<Operation, OperationStats> merged = new EnumMap<>(Operation.class);
+        for (final Operation operation : OPERATIONS) {
+            final OperationStats stats = new OperationStats();
+            workers.forEach(worker -> stats.merge(worker.stats.get(operation)));
+            merged.put(operation, stats);
+        }
+        return merged;
+    }
+
+    private LoadReport.Consistency verify() throws IOException, InterruptedException {
+        long lostUpdates = 0;
+        long unexpectedUpdates = 0;
+        long uncertain = 0;
+        int lanesWithLostUpdates = 0;
+        for (int lane = 0; lane < laneIds.length; lane++) {
+            final HttpResponse<Void> response = client.send(get("/lane/" + laneIds[lane]), HttpResponse.BodyHandlers.discarding());
+            final Long version = response.headers().firstValue("ETag").map(LoadDriver::parseVersion).orElse(null);
+            if (version == null) {
+                return LoadReport.Consistency.unchecked();
+            }
+            final long acknowledged = acknowledgedMoves.get(lane);
+            uncertain += uncertainMoves.get(lane);
+            if (version < acknowledged) {
+                lostUpdates += acknowledged - version;
+                lanesWithLostUpdates++;
+            }
+            unexpectedUpdates += Math.max(0L, version - acknowledged - uncertainMoves.get(lane));
+        }
+        return new LoadReport.Consistency(laneIds.length, lostUpdates, lanesWithLostUpdates, unexpectedUpdates, uncertain);
+    }
+
+    private final class Worker implements Runnable {
+
+        private final Random random;
+        private final long deadline;
+        private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+        private Worker(final Random random, final long deadline) {
+            this.random = random;
+            this.deadline = deadline;
+            for (final Operation operation : OPERATIONS) {
+                stats.put(operation, new OperationStats());
+            }
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                final Operation operation = nextOperation();
+                final int lane = nextLane();
+                final HttpRequest request = request(operation, lane);
+                final long start = System.nanoTime();
+                Outcome outcome;
+                try {
+                    final HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    outcome = outcome(response);
+                } catch (IOException e) {
+                    outcome = Outcome.FAILED;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                stats.get(operation).record(outcome, System.nanoTime() - start);
+                if (operation == Operation.MOVE_CRANE) {
+                    countMove(lane, outcome);
+                }
+            }
+        }
+
+        private Operation nextOperation() {
+            final int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (final Operation operation : OPERATIONS) {
+                if (draw < cumulativeWeights[operation.ordinal()]) {
+                    return operation;
+                }
+            }
+            throw new IllegalStateException("Unreachable");
+        }
+
+        private int nextLane() {
+            if (settings.getHotLanes() > 0 && random.nextDouble() < settings.getHotShare()) {
+                return random.nextInt(settings.getHotLanes());
+            }
+            return random.nextInt(laneIds.length);
+        }
+
+        private HttpRequest request(final Operation operation, final int lane) {
+            switch (operation) {
+                case CREATE:
+                    return json("/lane", "POST", lanesRequest(1));
+                case FIND_ALL:
+                    return get("/lane");
+                case FIND_BY_ID:
+                    return get("/lane/" + laneIds[lane]);
+                default:
+                    return json("/lane", "PATCH", moveRequest(
+                            laneIds[lane],
+                            LANE_ORDERS[random.nextInt(settings.getCranes())],
+                            random.nextInt(settings.getPositions() + 1)
+                    ));
+            }
+        }
+    }
+
+    private void countMove(final int lane, final Outcome outcome) {
+        if (outcome == Outcome.OK) {
+            acknowledgedMoves.incrementAndGet(lane);
+        } else if (outcome == Outcome.FAILED || outcome == Outcome.ERROR) {
+            uncertainMoves.incrementAndGet(lane);
+        }
+    }
+
+    private static Outcome outcome(final HttpResponse<String> response) {
+        final int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            return Outcome.OK;
+        }
+        switch (status) {
+            case 304:
+                return Outcome.NOT_MODIFIED;
+            case 404:
+                return Outcome.NOT_FOUND;
+            case 409:
+                return response.body().contains(CONFLICT_MESSAGE) ? Outcome.CONFLICT : Outcome.REJECTED;
+            case 503:
+                return Outcome.UNAVAILABLE;
+            default:
+                return Outcome.ERROR;
+        }
+    }
+
+    private static Long parseVersion(final String eTag) {
+        return Long.valueOf(eTag.replace("W/", "").replace("\"", ""));
+    }
+
+    private HttpRequest get(final String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path))
+                .timeout(Duration.ofMillis(settings.getRequestTimeoutMs()))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest json(final String path, final String method, final Map<String, Object> body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUri + path))
+                    .timeout(Duration.ofMillis(settings.getRequestTimeoutMs()))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, Object> lanesRequest(final int lanes) {
+        return Map.of("lanes", lanes, "positions", settings.getPositions(), "cranes", settings.getCranes());
+    }
+
+    private static Map<String, Object> moveRequest(final String laneId, final LaneOrder laneOrder, final int desiredPosition) {
+        return Map.of("laneId", laneId, "laneOrder", laneOrder.name(), "desiredPosition", desiredPosition);
+    }
+}
@@ -0,0 +1,168 @@
+package com.tba.cranecontrol.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Throughput, latency percentiles and outcomes per operation of the measured part of a run, and the
+ * lost updates found once it's over. Written as {@code report.json} and {@code report.txt}.
+ */
+final class LoadReport {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 1.0};
+    private static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p999", "max"};
+
+    private final LoadSettings settings;
+    private final Map<Operation, OperationStats> stats;
+    private final long elapsedNanos;
+    private final Consistency consistency;
+
+    LoadReport(
+            final LoadSettings settings, final Map<Operation, OperationStats> stats,
+            final long elapsedNanos, final Consistency consistency
+    ) {
+        this.settings = settings;
+        this.stats = stats;
+        this.elapsedNanos = elapsedNanos;
+        this.consistency = consistency;
+    }
+
+    /**
+     * Moves acknowledged but missing from the lanes' versions. Only checked when the application
+     * answers {@code GET /lane/{laneId}} with the lane's version as ETag, which the reactive one doesn't.
+     */
+    static final class Consistency {
+
+        private final boolean checked;
+        private final int lanes;
+        private final long lostUpdates;
+        private final int lanesWithLostUpdates;
+        private final long unexpectedUpdates;
+        private final long uncertainMoves;
+
+        Consistency(
+                final int lanes, final long lostUpdates, final int lanesWithLostUpdates,
+                final long unexpectedUpdates, final long uncertainMoves
+        ) {
+            this(true, lanes, lostUpdates, lanesWithLostUpdates, unexpectedUpdates, uncertainMoves);
+        }
+
+        private Consistency(
+                final boolean checked, final int lanes, final long lostUpdates, final int lanesWithLostUpdates,
+                final long unexpectedUpdates, final long uncertainMoves
+        ) {
+            this.checked = checked;
+            this.lanes = lanes;
+            this.lostUpdates = lostUpdates;
+            this.lanesWithLostUpdates = lanesWithLostUpdates;
+            this.unexpectedUpdates = unexpectedUpdates;
+            this.uncertainMoves = uncertainMoves;
+        }
+
+        static Consistency unchecked() {
+            return new Consistency(false, 0, 0L, 0, 0L, 0L);
+        }
+
+        Map<String, Object> toMap() {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("checked", checked);
+            map.put("lanes", lanes);
+            map.put("lostUpdates", lostUpdates);
+            map.put("lanesWithLostUpdates", lanesWithLostUpdates);
+            map.put("unexpectedUpdates", unexpectedUpdates);
+            map.put("uncertainMoves", uncertainMoves);
+            return map;
+        }
+    }
+
+    /**
+     * @return whether no error and no lost update was seen
+     */
+    boolean isClean() {
+        return stats.values().stream().allMatch(operation -> operation.getErrors() == 0)
+                && consistency.lostUpdates == 0 && consistency.unexpectedUpdates == 0;
+    }
+
+    void write(final Path directory) throws IOException {
+        Files.createDirectories(directory);
+        final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(directory.resolve("report.json").toFile(), toMap());
+        Files.writeString(directory.resolve("report.txt"), toText(), StandardCharsets.UTF_8);
+    }
+
+    Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("settings", settings.toMap());
+        map.put("elapsedSeconds", elapsedNanos / 1e9);
+        final Map<String, Object> operations = new LinkedHashMap<>();
+        stats.forEach((operation, operationStats) -> {
+            final Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("requests", operationStats.getCount());
+            entry.put("throughputPerSecond", throughput(operationStats));
+            entry.put("errorRate", errorRate(operationStats));
+            final Map<String, Object> outcomes = new LinkedHashMap<>();
+            operationStats.getOutcomes().forEach((outcome, count) -> outcomes.put(outcome.name().toLowerCase(Locale.ROOT), count));
+            entry.put("outcomes", outcomes);
+            final Map<String, Object> latencies = new LinkedHashMap<>();
+            for (int index = 0; index < QUANTILES.length; index++) {
+                latencies.put(QUANTILE_NAMES[index], millis(operationStats.getLatencyNanos(QUANTILES[index])));
+            }
+            entry.put("latencyMs", latencies);
+            operations.put(operation.getName(), entry);
+        });
+        map.put("operations", operations);
+        map.put("consistency", consistency.toMap());
+        return map;
+    }
+
+    String toText() {
+        final StringWriter text = new StringWriter();
+        final PrintWriter out = new PrintWriter(text);
+        out.printf(Locale.ROOT, "%d workers for %.1f s on %d lanes (%d hot with %.0f%% of the traffic), seed %d%n",
+                settings.getConcurrency(), elapsedNanos / 1e9, settings.getLanes(), settings.getHotLanes(),
+                settings.getHotShare() * 100, settings.getSeed());
+        out.printf(Locale.ROOT, "%-10s %10s %10s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+        stats.forEach((operation, operationStats) -> out.printf(Locale.ROOT,
+                "%-10s %10d %10.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                operation.getName(), operationStats.getCount(), throughput(operationStats),
+                errorRate(operationStats) * 100,
+                millis(operationStats.getLatencyNanos(0.5)), millis(operationStats.getLatencyNanos(0.9)),
+                millis(operationStats.getLatencyNanos(0.99)), millis(operationStats.getLatencyNanos(0.999)),
+                millis(operationStats.getLatencyNanos(1.0))));
+        final OperationStats moves = stats.get(Operation.MOVE_CRANE);
+        out.printf(Locale.ROOT, "moves rejected by the lane rules: %d, given up on conflicts: %d%n",
+                moves.getCount(OperationStats.Outcome.REJECTED), moves.getCount(OperationStats.Outcome.CONFLICT));
+        if (consistency.checked) {
+            out.printf(Locale.ROOT, "lost updates: %d on %d of %d lanes, unexpected updates: %d, moves with an unknown outcome: %d%n",
+                    consistency.lostUpdates, consistency.lanesWithLostUpdates, consistency.lanes,
+                    consistency.unexpectedUpdates, consistency.uncertainMoves);
+        } else {
+            out.println("lost updates: not checked, the lanes have no ETag");
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    private double throughput(final OperationStats operationStats) {
+        return elapsedNanos == 0 ? 0.0 : operationStats.getCount() / (elapsedNanos / 1e9);
+    }
+
+    private static double errorRate(final OperationStats operationStats) {
+        return operationStats.getCount() == 0 ? 0.0 : (double) operationStats.getErrors() / operationStats.getCount();
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,146 @@
+package com.tba.cranecontrol.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Everything a load test run depends on, read from {@code loadtest.*} system properties. The same
+ * settings and seed give the same sequence of requests per worker.
+ */
+public final class LoadSettings {
+
+    private final int concurrency;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final int lanes;
+    private final int positions;
+    private final int cranes;
+    private final int hotLanes;
+    private final double hotShare;
+    private final int createWeight;
+    private final int findAllWeight;
+    private final int findByIdWeight;
+    private final int moveWeight;
+    private final long seed;
+    private final int requestTimeoutMs;
+    private final String profiles;
+    private final String reportDirectory;
+
+    private LoadSettings() {
+        concurrency = Integer.getInteger("loadtest.concurrency", 32);
+        warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 5);
+        durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+        lanes = Integer.getInteger("loadtest.lanes", 1000);
+        positions = Integer.getInteger("loadtest.positions", 100);
+        cranes = Integer.getInteger("loadtest.cranes", 2);
+        hotLanes = Integer.getInteger("loadtest.hot-lanes", 4);
+        hotShare = Double.parseDouble(System.getProperty("loadtest.hot-share", "0.2"));
+        createWeight = Integer.getInteger("loadtest.weight.create", 1);
+        findAllWeight = Integer.getInteger("loadtest.weight.find-all", 2);
+        findByIdWeight = Integer.getInteger("loadtest.weight.find-by-id", 32);
+        moveWeight = Integer.getInteger("loadtest.weight.move", 65);
+        seed = Long.getLong("loadtest.seed", 42L);
+        requestTimeoutMs = Integer.getInteger("loadtest.request-timeout-ms", 5000);
+        profiles = System.getProperty("loadtest.profiles", "");
+        reportDirectory = System.getProperty("loadtest.report-directory", "target/loadtest");
+        if (hotLanes > lanes || concurrency < 1 || lanes < 1) {
+            throw new IllegalArgumentException("Needs at least one worker and one lane, and no more hot lanes than lanes.");
+        }
+    }
+
+    public static LoadSettings fromSystemProperties() {
+        return new LoadSettings();
+    }
+
+    /**
+     * Workers sending requests at the same time, each waits for its response before sending the next.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getLanes() {
+        return lanes;
+    }
+
+    public int getPositions() {
+        return positions;
+    }
+
+    public int getCranes() {
+        return cranes;
+    }
+
+    /**
+     * The first {@code hotLanes} lanes get {@code hotShare} of the moves and reads, so the workers
+     * contend on them, the rest are spread over every lane.
+     */
+    public int getHotLanes() {
+        return hotLanes;
+    }
+
+    public double getHotShare() {
+        return hotShare;
+    }
+
+    public int getWeight(final Operation operation) {
+        switch (operation) {
+            case CREATE:
+                return createWeight;
+            case FIND_ALL:
+                return findAllWeight;
+            case FIND_BY_ID:
+                return findByIdWeight;
+            default:
+                return moveWeight;
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    /**
+     * Spring profiles the application is started with, comma separated, like {@code memory}.
+     */
+    public String[] getProfiles() {
+        return profiles.isBlank() ? new String[0] : profiles.split(",");
+    }
+
+    public String getReportDirectory() {
+        return reportDirectory;
+    }
+
+    public Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("concurrency", concurrency);
+        map.put("warmupSeconds", warmupSeconds);
+        map.put("durationSeconds", durationSeconds);
+        map.put("lanes", lanes);
+        map.put("positions", positions);
+        map.put("cranes", cranes);
+        map.put("hotLanes", hotLanes);
+        map.put("hotShare", hotShare);
+        final Map<String, Object> weights = new LinkedHashMap<>();
+        for (final Operation operation : Operation.values()) {
+            weights.put(operation.getName(), getWeight(operation));
+        }
+        map.put("weights", weights);
+        map.put("seed", seed);
+        map.put("requestTimeoutMs", requestTimeoutMs);
+        map.put("profiles", profiles);
+        return map;
+    }
+}
@@ -0,0 +1,63 @@
+package com.tba.cranecontrol.loadtest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.tba.cranecontrol.CraneControlApplication;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * Starts the application on a random port against an in-process, in-memory Mongo server, runs a
+ * {@link LoadDriver} against it and writes the report to {@code loadtest.report-directory}. Exits with
+ * 1 when any request failed or any update was lost, so it can gate a build.
+ * <p>
+ * The Mongo stand-in speaks the wire protocol but keeps everything on the heap of this JVM, so the
+ * numbers compare builds and store modes with each other, not with a real cluster.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        final LoadSettings settings = LoadSettings.fromSystemProperties();
+        final Path reportDirectory = Paths.get(settings.getReportDirectory());
+        final MongoServer mongo = new MongoServer(new MemoryBackend());
+        final InetSocketAddress mongoAddress = mongo.bind();
+        final LoadReport report;
+        try (ConfigurableApplicationContext application = start(settings, mongoAddress, reportDirectory)) {
+            final int port = application.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            report = new LoadDriver(settings, URI.create("http://localhost:" + port)).run();
+        } finally {
+            mongo.shutdownNow();
+        }
+        report.write(reportDirectory);
+        System.out.print(report.toText());
+        System.exit(report.isClean() ? 0 : 1);
+    }
+
+    private static ConfigurableApplicationContext start(
+            final LoadSettings settings, final InetSocketAddress mongoAddress, final Path reportDirectory
+    ) throws IOException {
+        final Path laneFile = reportDirectory.resolve("lanes.dat");
+        Files.createDirectories(reportDirectory);
+        Files.deleteIfExists(laneFile);
+        return new SpringApplicationBuilder(CraneControlApplication.class)
+                .profiles(settings.getProfiles())
+                .properties(
+                        "server.port=0",
+                        "spring.data.mongodb.uri=mongodb://" + mongoAddress.getHostString() + ":" + mongoAddress.getPort() + "/cranecontrol",
+                        "cranecontrol.store.mapped.path=" + laneFile
+                )
+                .run();
+    }
+}
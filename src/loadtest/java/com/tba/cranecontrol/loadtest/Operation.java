@@ -0,0 +1,19 @@
+package com.tba.cranecontrol.loadtest;
+
+/**
+ * The endpoints a load test drives.
+ */
+public enum Operation {
+
+    CREATE("create"), FIND_ALL("findAll"), FIND_BY_ID("findById"), MOVE_CRANE("moveCrane");
+
+    private final String name;
+
+    Operation(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,80 @@
+package com.tba.cranecontrol.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Latencies and outcomes of one operation. Every worker records into its own instance, they're merged
+ * once the run is over, so recording never contends. Latencies are kept exactly, a run of a few million
+ * requests takes a few megabytes.
+ */
+final class OperationStats {
+
+    /**
+     * {@code REJECTED} is a move refused by the lane rules, an expected answer. {@code CONFLICT} is a move
+     * given up after too many concurrent changes of its lane, and {@code FAILED} a request with no response.
+     */
+    enum Outcome {
+        OK, NOT_MODIFIED, REJECTED, CONFLICT, NOT_FOUND, UNAVAILABLE, ERROR, FAILED;
+
+        boolean isError() {
+            return this == CONFLICT || this == NOT_FOUND || this == UNAVAILABLE || this == ERROR || this == FAILED;
+        }
+    }
+
+    private final Map<Outcome, Long> outcomes = new EnumMap<>(Outcome.class);
+    private long[] latencies = new long[1024];
+    private int count;
+    private boolean sorted;
+
+    void record(final Outcome outcome, final long latencyNanos) {
+        outcomes.merge(outcome, 1L, Long::sum);
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        sorted = false;
+    }
+
+    void merge(final OperationStats other) {
+        other.outcomes.forEach((outcome, times) -> outcomes.merge(outcome, times, Long::sum));
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        sorted = false;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getCount(final Outcome outcome) {
+        return outcomes.getOrDefault(outcome, 0L);
+    }
+
+    long getErrors() {
+        return outcomes.entrySet().stream().filter(entry -> entry.getKey().isError()).mapToLong(Map.Entry::getValue).sum();
+    }
+
+    Map<Outcome, Long> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * @param quantile between 0 and 1, the nearest-rank latency
+     */
+    long getLatencyNanos(final double quantile) {
+        if (count == 0) {
+            return 0L;
+        }
+        if (!sorted) {
+            Arrays.sort(latencies, 0, count);
+            sorted = true;
+        }
+        final int rank = (int) Math.ceil(quantile * count);
+        return latencies[Math.max(0, Math.min(count, rank) - 1)];
+    }
+}
@@ -2,9 +2,10 @@ package com.tba.cranecontrol.configuration;
 
 import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import springfox.documentation.builders.PathSelectors;
@@ -13,16 +14,30 @@ import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 
 @Configuration
-@EnableAsync
 public class ApplicationConfiguration {
 
     @Bean
-    public Executor asyncExecutor() {
+    @ConditionalOnProperty(prefix = "cranecontrol.threads", name = "mode", havingValue = "platform", matchIfMissing = true)
+    public Executor laneProvisioningExecutor(@Value("${cranecontrol.provisioning.threads:4}") final int threads) {
         final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(4);
-        executor.setMaxPoolSize(4);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("Async Thread-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("Lane Provisioning-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Sends the {@code LaneUpdates} batches, a subscriber slow to read holds one of these threads until
+     * it's dropped and its write fails.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "cranecontrol.threads", name = "mode", havingValue = "platform", matchIfMissing = true)
+    public Executor laneUpdateExecutor(@Value("${cranecontrol.updates.threads:4}") final int threads) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("Lane Updates-");
         executor.initialize();
         return executor;
     }
@@ -0,0 +1,66 @@
+package com.tba.cranecontrol.configuration;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.tba.cranecontrol.repository.LaneRepository;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@Configuration
+public class MetricsConfiguration {
+
+    public static final String REPOSITORY_TIMER = "cranecontrol.lane.repository";
+
+    /**
+     * Times the methods annotated with {@link io.micrometer.core.annotation.Timed}.
+     */
+    @Bean
+    public TimedAspect timedAspect(final MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Times every call to the {@link LaneRepository}, tagged by method, by adding an interceptor to
+     * the proxy Spring Data creates for it. The registry is looked up lazily since post processors
+     * are created before the metrics auto configuration.
+     */
+    @Bean
+    public static BeanPostProcessor laneRepositoryTimer(final ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+                if (bean instanceof LaneRepository && bean instanceof Advised) {
+                    ((Advised) bean).addAdvice(0, repositoryTimer(meterRegistry));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static MethodInterceptor repositoryTimer(final ObjectProvider<MeterRegistry> meterRegistry) {
+        return invocation -> {
+            final MeterRegistry registry = meterRegistry.getObject();
+            final Timer.Sample sample = Timer.start(registry);
+            String exception = "none";
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                exception = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                sample.stop(Timer.builder(REPOSITORY_TIMER)
+                        .tag("method", invocation.getMethod().getName())
+                        .tag("exception", exception)
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.tba.cranecontrol.configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs Tomcat requests, lane provisioning and lane update batches on a virtual thread each instead of
+ * on fixed pools.
+ * Virtual threads need Java 21 or later, while the project builds for Java 11, so the executor is
+ * looked up by reflection and the application refuses to start on an older runtime.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cranecontrol.threads", name = "mode", havingValue = "virtual")
+public class VirtualThreadConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService laneProvisioningExecutor() {
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService laneUpdateExecutor() {
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * A bean of its own so it is shut down with the context, like the other executors.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService tomcatRequestExecutor() {
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+            @Qualifier("tomcatRequestExecutor") final ExecutorService executor
+    ) {
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("cranecontrol.threads.mode=virtual needs Java 21 or later.", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads couldn't be started.", e);
+        }
+    }
+}
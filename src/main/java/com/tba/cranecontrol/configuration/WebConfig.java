@@ -1,11 +1,13 @@
 package com.tba.cranecontrol.configuration;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableWebMvc
 public class WebConfig implements WebMvcConfigurer {
 
@@ -15,6 +17,6 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
                 .allowedOrigins("*")
                 .allowedHeaders("*")
-                .exposedHeaders("Location", "Access-Control-Allow-Origin");
+                .exposedHeaders("Location", "Access-Control-Allow-Origin", "ETag");
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.tba.cranecontrol.controller;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How many requests may be handled at once, following their latency after the gradient algorithm of
+ * Netflix's concurrency-limits. A slow average of the latency stands for the latency without load and a
+ * fast one for the current latency; while the limit is in use it shrinks by their ratio once the current
+ * latency goes past {@code tolerance} times the slow one, and otherwise grows by its square root. The
+ * slow average is pulled down when it's far above the fast one, so it recovers after a slow period.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double FAST_WEIGHT = 0.1;
+    private static final double SLOW_WEIGHT = 0.002;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private double estimate;
+    private double fastLatency;
+    private double slowLatency;
+
+    AdaptiveConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit, final double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimate = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.limit = (int) estimate;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param latencyNanos how long the request took, or a negative value when it says nothing about
+     *                     the load, like a request answered asynchronously
+     */
+    void release(final long latencyNanos) {
+        final int concurrency = inFlight.getAndDecrement();
+        if (latencyNanos >= 0) {
+            sample(latencyNanos, concurrency);
+        }
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(final long latencyNanos, final int concurrency) {
+        if (slowLatency == 0) {
+            fastLatency = latencyNanos;
+            slowLatency = latencyNanos;
+            return;
+        }
+        fastLatency += (latencyNanos - fastLatency) * FAST_WEIGHT;
+        slowLatency += (latencyNanos - slowLatency) * SLOW_WEIGHT;
+        if (slowLatency > fastLatency * 2) {
+            slowLatency *= 0.95;
+        }
+        if (concurrency < estimate / 2) {
+            return;
+        }
+        final double gradient = Math.max(0.5, Math.min(1.0, tolerance * slowLatency / fastLatency));
+        final double target = estimate * gradient + Math.sqrt(estimate);
+        estimate = Math.max(minLimit, Math.min(maxLimit, estimate * (1 - SMOOTHING) + target * SMOOTHING));
+        limit = (int) estimate;
+    }
+}
@@ -0,0 +1,192 @@
+package com.tba.cranecontrol.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Turns away the lane requests the instance can't handle in time with a 429 and a {@code Retry-After},
+ * instead of letting them queue in Tomcat, the lane executor and the MongoDB connection pool. At most
+ * {@link AdaptiveConcurrencyLimit} requests are handled at once, a limit that shrinks as their latency
+ * grows, and each lane is moved at most {@code moves-per-second} times a second on average, in bursts of
+ * {@code burst}, a bulk move taking one token per move of each lane.
+ * <p>
+ * It runs right after the {@link IdempotencyFilter}, so a replayed response takes no permit and no
+ * token, and before the {@link LaneRoutingFilter}, so a rejected request costs no more than reading its
+ * body. A move forwarded by another instance already took its lanes' tokens there and takes none here.
+ * Requests answered asynchronously, streams and server-sent events, hold a permit only until they're
+ * started and don't count in the latency.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "cranecontrol.admission", name = "enabled", havingValue = "true")
+@Order(Ordered.LOWEST_PRECEDENCE - 5)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    public static final String REQUESTS = "cranecontrol.admission.requests";
+    public static final String LIMIT = "cranecontrol.admission.limit";
+    public static final String IN_FLIGHT = "cranecontrol.admission.in.flight";
+    private static final String BULK_PATH = LaneController.PATH + "/bulk";
+
+    private final ObjectMapper mapper;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final LaneRateLimiter laneRateLimiter;
+    private final long retryAfterSeconds;
+    private final Counter admitted;
+    private final Counter overloaded;
+    private final Counter laneLimited;
+
+    public AdmissionFilter(
+            final ObjectMapper mapper,
+            final MeterRegistry meterRegistry,
+            @Value("${cranecontrol.admission.initial-limit:100}") final int initialLimit,
+            @Value("${cranecontrol.admission.min-limit:10}") final int minLimit,
+            @Value("${cranecontrol.admission.max-limit:1000}") final int maxLimit,
+            @Value("${cranecontrol.admission.latency-tolerance:2.0}") final double latencyTolerance,
+            @Value("${cranecontrol.admission.retry-after-seconds:1}") final long retryAfterSeconds,
+            @Value("${cranecontrol.admission.lane.moves-per-second:20}") final double movesPerSecond,
+            @Value("${cranecontrol.admission.lane.burst:40}") final int burst,
+            @Value("${cranecontrol.admission.lane.max-lanes:100000}") final int maxLanes
+    ) {
+        this(
+                mapper, meterRegistry,
+                new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, latencyTolerance),
+                new LaneRateLimiter(movesPerSecond, burst, maxLanes),
+                retryAfterSeconds
+        );
+    }
+
+    AdmissionFilter(
+            final ObjectMapper mapper,
+            final MeterRegistry meterRegistry,
+            final AdaptiveConcurrencyLimit concurrencyLimit,
+            final LaneRateLimiter laneRateLimiter,
+            final long retryAfterSeconds
+    ) {
+        this.mapper = mapper;
+        this.concurrencyLimit = concurrencyLimit;
+        this.laneRateLimiter = laneRateLimiter;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.admitted = requests(meterRegistry, "admitted");
+        this.overloaded = requests(meterRegistry, "overloaded");
+        this.laneLimited = requests(meterRegistry, "lane_limited");
+        Gauge.builder(LIMIT, concurrencyLimit, AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+        Gauge.builder(IN_FLIGHT, concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(LaneController.PATH.equals(path) || path.startsWith(LaneController.PATH + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain
+    ) throws ServletException, IOException {
+        if (!concurrencyLimit.tryAcquire()) {
+            overloaded.increment();
+            reject(response, retryAfterSeconds, "Too many requests in progress, please retry later.");
+            return;
+        }
+        long latency = -1;
+        try {
+            HttpServletRequest admittedRequest = request;
+            if ("PATCH".equals(request.getMethod()) && request.getHeader(LaneRoutingFilter.FORWARDED_HEADER) == null) {
+                final byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+                final long waitNanos = takeLaneTokens(request, body);
+                if (waitNanos > 0) {
+                    laneLimited.increment();
+                    reject(response, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1,
+                            "Too many moves on this lane, please retry later.");
+                    return;
+                }
+                admittedRequest = new BufferedRequest(request, body);
+            }
+            admitted.increment();
+            final long start = System.nanoTime();
+            chain.doFilter(admittedRequest, response);
+            if (!admittedRequest.isAsyncStarted()) {
+                latency = System.nanoTime() - start;
+            }
+        } finally {
+            concurrencyLimit.release(latency);
+        }
+    }
+
+    /**
+     * @return 0 when every lane moved had tokens for its moves, otherwise how long until the first lane
+     * that didn't will have them, the tokens already taken given back
+     */
+    private long takeLaneTokens(final HttpServletRequest request, final byte[] body) {
+        final Map<String, Integer> movesByLane = new LinkedHashMap<>();
+        try {
+            final JsonNode json = mapper.readTree(body);
+            if (request.getRequestURI().endsWith(BULK_PATH)) {
+                json.path("moves").forEach(move -> count(movesByLane, move));
+            } else {
+                count(movesByLane, json);
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        final Map<String, Integer> taken = new LinkedHashMap<>();
+        for (final Map.Entry<String, Integer> lane : movesByLane.entrySet()) {
+            final long waitNanos = laneRateLimiter.tryAcquire(lane.getKey(), lane.getValue());
+            if (waitNanos > 0) {
+                taken.forEach(laneRateLimiter::refund);
+                return waitNanos;
+            }
+            taken.put(lane.getKey(), lane.getValue());
+        }
+        return 0;
+    }
+
+    private static void count(final Map<String, Integer> movesByLane, final JsonNode move) {
+        final String laneId = move.path("laneId").asText(null);
+        if (laneId != null) {
+            movesByLane.merge(laneId, 1, Integer::sum);
+        }
+    }
+
+    private static void reject(final HttpServletResponse response, final long retryAfterSeconds, final String message)
+            throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getOutputStream().write(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Counter requests(final MeterRegistry meterRegistry, final String result) {
+        return Counter.builder(REQUESTS)
+                .description("Lane requests by admission result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
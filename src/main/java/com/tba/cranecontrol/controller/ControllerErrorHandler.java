@@ -2,8 +2,11 @@ package com.tba.cranecontrol.controller;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,11 +21,13 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import com.tba.cranecontrol.controller.request.ErrorResponse;
+import com.tba.cranecontrol.exception.LaneConflictException;
 import com.tba.cranecontrol.exception.LaneCreationException;
 import com.tba.cranecontrol.exception.MovementNotAllowedException;
 import com.tba.cranecontrol.exception.NotFoundException;
 
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ControllerErrorHandler extends ResponseEntityExceptionHandler {
 
     @ExceptionHandler(Exception.class)
@@ -43,12 +48,39 @@ public class ControllerErrorHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), new HttpHeaders(), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(LaneConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<Object> handleLaneConflictException(final LaneConflictException ex, final WebRequest webRequest) {
+        return new ResponseEntity<>(ex.getMessage(), new HttpHeaders(), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(NotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ResponseEntity<Object> handleNotFoundException(final NotFoundException ex, final WebRequest webRequest) {
         return new ResponseEntity<>(ex.getMessage(), new HttpHeaders(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Object> handleIllegalArgumentException(final IllegalArgumentException ex, final WebRequest webRequest) {
+        return new ResponseEntity<>(ex.getMessage(), new HttpHeaders(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<Object> handleRejectedExecutionException(final RejectedExecutionException ex, final WebRequest webRequest) {
+        return new ResponseEntity<>("Too many pending moves, please retry later.", retryLater(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * MongoDB couldn't be reached, or no connection of the pool freed up within {@code waitQueueTimeoutMS}.
+     */
+    @ExceptionHandler(DataAccessResourceFailureException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<Object> handleDataAccessResourceFailureException(final DataAccessResourceFailureException ex, final WebRequest webRequest) {
+        return new ResponseEntity<>("The database is not available, please retry later.", retryLater(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             final MethodArgumentNotValidException ex,
@@ -59,6 +91,12 @@ public class ControllerErrorHandler extends ResponseEntityExceptionHandler {
         return handleBadRequestException(headers, ex.getBindingResult());
     }
 
+    private static HttpHeaders retryLater() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return headers;
+    }
+
     private static ResponseEntity<Object> handleBadRequestException(
             final HttpHeaders headers,
             final BindingResult bindingResult
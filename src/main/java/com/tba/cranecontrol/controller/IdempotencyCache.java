@@ -0,0 +1,132 @@
+package com.tba.cranecontrol.controller;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The responses to the requests carrying an idempotency key, kept for {@code ttl-ms} after the request
+ * came in. Every entry lives the same time, so they expire in insertion order and expired entries are
+ * dropped from the oldest on each new key. Past {@code max-entries} the oldest entries are dropped even
+ * before they expire. An entry whose request is still handled is never dropped, or a retry arriving
+ * meanwhile would be handled a second time.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IdempotencyCache {
+
+    public static final String SIZE = "cranecontrol.idempotency.cache.size";
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public IdempotencyCache(
+            final MeterRegistry meterRegistry,
+            @Value("${cranecontrol.idempotency.ttl-ms:86400000}") final long ttlMs,
+            @Value("${cranecontrol.idempotency.max-entries:100000}") final int maxEntries
+    ) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxEntries = maxEntries;
+        Gauge.builder(SIZE, this, IdempotencyCache::size).register(meterRegistry);
+    }
+
+    /**
+     * @return the live entry already kept for the key, or null when the given one was put and its
+     * response must be {@link #complete completed} or the entry {@link #release released}
+     */
+    synchronized Entry putIfAbsent(final String key, final Entry entry) {
+        final long now = System.nanoTime();
+        final Iterator<Entry> oldest = entries.values().iterator();
+        while (oldest.hasNext()) {
+            final Entry candidate = oldest.next();
+            if (now - candidate.expiresAtNanos < 0 && entries.size() < maxEntries) {
+                break;
+            }
+            if (candidate.response.isDone()) {
+                oldest.remove();
+            }
+        }
+        final Entry existing = entries.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        entry.expiresAtNanos = now + ttlNanos;
+        entries.put(key, entry);
+        return null;
+    }
+
+    void complete(final Entry entry, final StoredResponse response) {
+        entry.response.complete(response);
+    }
+
+    /**
+     * Forgets an entry whose request shouldn't be replayed, the requests waiting on it try again.
+     */
+    void release(final String key, final Entry entry) {
+        synchronized (this) {
+            entries.remove(key, entry);
+        }
+        entry.response.complete(null);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    static final class Entry {
+
+        private final byte[] fingerprint;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+        private long expiresAtNanos;
+
+        Entry(final byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        byte[] getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * Completed with the response once the request is handled, or with null when it's released.
+         */
+        CompletableFuture<StoredResponse> getResponse() {
+            return response;
+        }
+    }
+
+    static final class StoredResponse {
+
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        StoredResponse(final int status, final String contentType, final byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.tba.cranecontrol.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Answers a retried move or create carrying the same {@value #KEY_HEADER} with the response of the first
+ * attempt, without handling it again. A retry arriving while the first attempt is still handled waits
+ * for it, up to {@code in-progress-wait-ms}, and is answered 409 after that. Reusing a key with another
+ * body is answered 422.
+ * <p>
+ * Only final outcomes are kept in the {@link IdempotencyCache}: 2xx, and 4xx but 409 and 429. A 409 lane
+ * conflict, a 429, a server error or a response whose request was given the {@link #NOT_KEPT_ATTRIBUTE}
+ * is worth retrying for real. It runs before the {@link LaneRoutingFilter}, which passes the key along to
+ * the owner of the lane, so a retry is recognized whichever node it lands on.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final String REQUESTS = "cranecontrol.idempotency.requests";
+    public static final String NOT_KEPT_ATTRIBUTE = IdempotencyFilter.class.getName() + ".NOT_KEPT";
+    private static final String BULK_PATH = LaneController.PATH + "/bulk";
+
+    private final IdempotencyCache idempotencyCache;
+    private final long inProgressWaitMs;
+    private final Counter handled;
+    private final Counter replayed;
+    private final Counter inProgress;
+    private final Counter mismatched;
+
+    public IdempotencyFilter(
+            final IdempotencyCache idempotencyCache,
+            final MeterRegistry meterRegistry,
+            @Value("${cranecontrol.idempotency.in-progress-wait-ms:5000}") final long inProgressWaitMs
+    ) {
+        this.idempotencyCache = idempotencyCache;
+        this.inProgressWaitMs = inProgressWaitMs;
+        this.handled = requests(meterRegistry, "handled");
+        this.replayed = requests(meterRegistry, "replayed");
+        this.inProgress = requests(meterRegistry, "in_progress");
+        this.mismatched = requests(meterRegistry, "mismatched");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        final boolean move = "PATCH".equals(request.getMethod())
+                && (LaneController.PATH.equals(path) || BULK_PATH.equals(path));
+        final boolean create = "POST".equals(request.getMethod()) && LaneController.PATH.equals(path);
+        return request.getHeader(KEY_HEADER) == null || !(move || create);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain
+    ) throws ServletException, IOException {
+        filter(request, response, chain, request.getHeader(KEY_HEADER));
+    }
+
+    /**
+     * Handles the request under {@code idempotencyKey} instead of its own {@value #KEY_HEADER}, for the
+     * {@link LaneRoutingFilter} handling this node's share of a bulk move.
+     */
+    void filter(
+            final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain,
+            final String idempotencyKey
+    ) throws ServletException, IOException {
+        final byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        final byte[] fingerprint = fingerprint(body);
+        final String key = request.getMethod() + " " + request.getRequestURI() + " " + idempotencyKey;
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(inProgressWaitMs);
+        while (true) {
+            final IdempotencyCache.Entry entry = new IdempotencyCache.Entry(fingerprint);
+            final IdempotencyCache.Entry existing = idempotencyCache.putIfAbsent(key, entry);
+            if (existing == null) {
+                handle(request, response, chain, body, key, entry);
+                return;
+            }
+            if (!Arrays.equals(existing.getFingerprint(), fingerprint)) {
+                mismatched.increment();
+                reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "The " + KEY_HEADER + " was already used for another request.");
+                return;
+            }
+            final IdempotencyCache.StoredResponse stored;
+            try {
+                stored = existing.getResponse().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                inProgress.increment();
+                reject(response, HttpStatus.CONFLICT,
+                        "A request with this " + KEY_HEADER + " is still in progress, please retry.");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a request with the same " + KEY_HEADER, e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+            if (stored != null) {
+                replayed.increment();
+                replay(response, stored);
+                return;
+            }
+        }
+    }
+
+    private void handle(
+            final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain,
+            final byte[] body, final String key, final IdempotencyCache.Entry entry
+    ) throws ServletException, IOException {
+        handled.increment();
+        final ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean kept = false;
+        try {
+            chain.doFilter(new BufferedRequest(request, body), wrapper);
+            final int status = wrapper.getStatus();
+            if (isFinal(status) && request.getAttribute(NOT_KEPT_ATTRIBUTE) == null) {
+                idempotencyCache.complete(entry, new IdempotencyCache.StoredResponse(
+                        status, wrapper.getContentType(), wrapper.getContentAsByteArray()
+                ));
+                kept = true;
+            }
+        } finally {
+            if (!kept) {
+                idempotencyCache.release(key, entry);
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static boolean isFinal(final int status) {
+        final HttpStatus.Series series = HttpStatus.Series.resolve(status);
+        return series == HttpStatus.Series.SUCCESSFUL
+                || series == HttpStatus.Series.CLIENT_ERROR
+                && status != HttpStatus.CONFLICT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static void replay(final HttpServletResponse response, final IdempotencyCache.StoredResponse stored)
+            throws IOException {
+        response.setStatus(stored.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    private static void reject(final HttpServletResponse response, final HttpStatus status, final String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getOutputStream().write(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] fingerprint(final byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter requests(final MeterRegistry meterRegistry, final String result) {
+        return Counter.builder(REQUESTS)
+                .description("Requests carrying an idempotency key by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,67 +1,208 @@
 package com.tba.cranecontrol.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tba.cranecontrol.controller.converters.CraneMoveResultConverter;
 import com.tba.cranecontrol.controller.converters.LaneConverter;
+import com.tba.cranecontrol.controller.dto.CraneMoveResultDTO;
 import com.tba.cranecontrol.controller.dto.LaneDTO;
+import com.tba.cranecontrol.controller.dto.LanePageDTO;
+import com.tba.cranecontrol.controller.request.BulkCraneMoveRequest;
 import com.tba.cranecontrol.controller.request.CraneMoveRequest;
 import com.tba.cranecontrol.controller.request.CreateLaneRequest;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneWindow;
 import com.tba.cranecontrol.service.LaneService;
 
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping(path = LaneController.PATH)
 public class LaneController {
 
     public static final String PATH = "/lane";
+    public static final String NDJSON = "application/x-ndjson";
+    public static final int MAX_PAGE_SIZE = 1000;
     private final ObjectMapper mapper;
     private final LaneService laneService;
     private final LaneConverter laneConverter;
+    private final CraneMoveResultConverter craneMoveResultConverter;
+    private final LaneJsonCache laneJsonCache;
 
     public LaneController(
             final ObjectMapper mapper, final LaneService laneService,
-            final LaneConverter laneConverter
+            final LaneConverter laneConverter, final CraneMoveResultConverter craneMoveResultConverter,
+            final LaneJsonCache laneJsonCache
     ) {
         this.mapper = mapper;
         this.laneService = laneService;
         this.laneConverter = laneConverter;
+        this.craneMoveResultConverter = craneMoveResultConverter;
+        this.laneJsonCache = laneJsonCache;
         this.mapper.enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT);
     }
 
+    /**
+     * Answers 304 without reading the lanes when the {@code If-None-Match} tag is the aggregate version
+     * the store keeps in memory, and the cached body while it's still that version. Otherwise the tag
+     * is a hash of every lane id and version, and the body is joined from the cached JSON of each lane.
+     */
     @GetMapping
-    public List<LaneDTO> findAll() {
-        return laneService.findAll()
+    public ResponseEntity<byte[]> findAll(final WebRequest request) {
+        final Optional<String> aggregateVersion = laneService.findAggregateVersion();
+        if (aggregateVersion.isPresent()) {
+            if (request.checkNotModified(aggregateVersion.get())) {
+                return null;
+            }
+            final Optional<byte[]> cached = laneJsonCache.findList(aggregateVersion.get());
+            if (cached.isPresent()) {
+                return json(cached.get());
+            }
+        }
+        final List<Lane> lanes = laneService.findAll();
+        if (aggregateVersion.isEmpty() && request.checkNotModified(versionHash(lanes))) {
+            return null;
+        }
+        return json(laneJsonCache.serializeList(lanes, aggregateVersion.orElse(null)));
+    }
+
+    /**
+     * Keyset pagination: pass the {@code next} value of a page as {@code after} to get the following one.
+     */
+    @GetMapping(params = "limit")
+    public LanePageDTO findPage(
+            @RequestParam(name = "after", required = false) final String after,
+            @RequestParam(name = "limit") final int limit
+    ) {
+        final int pageSize = pageSize(limit);
+        final List<LaneDTO> lanes = laneService.findPage(after, pageSize)
+                .stream()
+                .map(laneConverter::convert)
+                .collect(Collectors.toList());
+        final String next = lanes.size() == pageSize ? lanes.get(lanes.size() - 1).getId() : null;
+        return new LanePageDTO(lanes, next);
+    }
+
+    /**
+     * Lanes whose cranes are all at home, by id, paged like {@link #findPage(String, int)}.
+     */
+    @GetMapping(path = "/parked")
+    public LanePageDTO findParked(
+            @RequestParam(name = "after", required = false) final String after,
+            @RequestParam(name = "limit", defaultValue = "100") final int limit
+    ) {
+        final int pageSize = pageSize(limit);
+        final List<LaneDTO> lanes = laneService.findParked(after, pageSize)
                 .stream()
                 .map(laneConverter::convert)
                 .collect(Collectors.toList());
+        final String next = lanes.size() == pageSize ? lanes.get(lanes.size() - 1).getId() : null;
+        return new LanePageDTO(lanes, next);
     }
 
+    /**
+     * Lanes with at least {@code minWindow} free positions between two of their cranes, largest window
+     * first. The {@code next} value of a page, passed as {@code after}, gets the following one.
+     */
+    @GetMapping(path = "/available")
+    public LanePageDTO findByWorkingWindow(
+            @RequestParam(name = "minWindow") final int minWindow,
+            @RequestParam(name = "after", required = false) final String after,
+            @RequestParam(name = "limit", defaultValue = "100") final int limit
+    ) {
+        final int pageSize = pageSize(limit);
+        final List<Lane> lanes = laneService.findByWorkingWindow(
+                minWindow, after == null ? null : LaneWindow.parse(after), pageSize
+        );
+        final String next = lanes.size() == pageSize ? LaneWindow.of(lanes.get(lanes.size() - 1)).toString() : null;
+        return new LanePageDTO(lanes.stream().map(laneConverter::convert).collect(Collectors.toList()), next);
+    }
+
+    /**
+     * Writes every lane as one JSON document per line while reading them, so memory use doesn't
+     * depend on the number of lanes.
+     */
+    @GetMapping(path = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        final ObjectWriter writer = mapper.writerFor(LaneDTO.class);
+        final StreamingResponseBody body = outputStream -> laneService.streamAll(
+                lane -> writeLane(writer, laneConverter.convert(lane), outputStream)
+        );
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * The lane's version is its ETag, a matching {@code If-None-Match} is answered with 304 without
+     * reading the lane when the store keeps versions in memory, and so is the cached JSON of the lane.
+     */
     @GetMapping(path = "/{laneId}")
-    public LaneDTO findById(@PathVariable("laneId") final String laneId) {
-        return laneConverter.convert(laneService.findById(laneId));
+    public ResponseEntity<byte[]> findById(@PathVariable("laneId") final String laneId, final WebRequest request) {
+        final Optional<Long> version = laneService.findVersion(laneId);
+        if (version.isPresent()) {
+            if (request.checkNotModified(version.get().toString())) {
+                return null;
+            }
+            final Optional<byte[]> cached = laneJsonCache.find(laneId, version.get());
+            if (cached.isPresent()) {
+                return json(cached.get());
+            }
+        }
+        final Lane lane = laneService.findById(laneId);
+        if (request.checkNotModified(String.valueOf(lane.getVersion()))) {
+            return null;
+        }
+        return json(laneJsonCache.serialize(lane));
     }
 
     @PostMapping
     public List<LaneDTO> createLanes(@RequestBody @Valid final CreateLaneRequest request) {
-        return laneService.create(request.getLanes(), request.getPositions())
+        return laneService.create(request.getLanes(), request.getPositions(), request.getCranes())
                 .stream()
                 .map(laneConverter::convert)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Creates any number of lanes and streams back the id of each one, one JSON string per line,
+     * as soon as the chunk it belongs to is written.
+     */
+    @PostMapping(path = "/provision", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> provisionLanes(@RequestBody @Valid final CreateLaneRequest request) {
+        final StreamingResponseBody body = outputStream -> laneService.provision(
+                request.getLanes(),
+                request.getPositions(),
+                request.getCranes(),
+                lanes -> writeIds(lanes, outputStream)
+        );
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     @PatchMapping
     public LaneDTO moveCrane(@RequestBody @Valid final CraneMoveRequest craneMoveRequest) {
         return laneConverter.convert(
@@ -72,4 +213,53 @@ public class LaneController {
                 )
         );
     }
+
+    @PatchMapping(path = "/bulk")
+    public List<CraneMoveResultDTO> moveCranes(@RequestBody @Valid final BulkCraneMoveRequest bulkCraneMoveRequest) {
+        final List<CraneMove> moves = bulkCraneMoveRequest.getMoves()
+                .stream()
+                .map(move -> new CraneMove(move.getLaneId(), move.getLaneOrder(), move.getDesiredPosition()))
+                .collect(Collectors.toList());
+        return laneService.moveCranes(moves)
+                .stream()
+                .map(craneMoveResultConverter::convert)
+                .collect(Collectors.toList());
+    }
+
+    private static int pageSize(final int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    private static ResponseEntity<byte[]> json(final byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static String versionHash(final List<Lane> lanes) {
+        long hash = lanes.size();
+        for (final Lane lane : lanes) {
+            hash = 31 * hash + lane.getId().hashCode();
+            hash = 31 * hash + (lane.getVersion() == null ? 0L : lane.getVersion());
+        }
+        return Long.toHexString(hash);
+    }
+
+    private static void writeIds(final List<Lane> lanes, final OutputStream outputStream) {
+        final StringBuilder ids = new StringBuilder(lanes.size() * 28);
+        lanes.forEach(lane -> ids.append('"').append(lane.getId()).append("\"\n"));
+        try {
+            outputStream.write(ids.toString().getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeLane(final ObjectWriter writer, final LaneDTO lane, final OutputStream outputStream) {
+        try {
+            outputStream.write(writer.writeValueAsBytes(lane));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,214 @@
+package com.tba.cranecontrol.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tba.cranecontrol.controller.converters.LaneConverter;
+import com.tba.cranecontrol.controller.dto.LaneDTO;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.service.LaneUpdates;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The JSON of every lane recently read, tagged with the lane's version, and the JSON of the whole list
+ * tagged with the aggregate version. A lane whose version doesn't match is serialized again, and the
+ * entries of the lanes changed by moves and creates are dropped as the changes are published, so reads
+ * of unchanged lanes only copy bytes. The least recently used lanes are evicted once the entries take
+ * more than {@code max-bytes}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class LaneJsonCache {
+
+    public static final String REQUESTS = "cranecontrol.lane.json.cache.requests";
+    public static final String SIZE = "cranecontrol.lane.json.cache.size";
+    public static final String EVICTIONS = "cranecontrol.lane.json.cache.evictions";
+
+    private final ObjectWriter writer;
+    private final LaneConverter laneConverter;
+    private final LaneUpdates laneUpdates;
+    private final long maxBytes;
+    private final Map<String, Entry> lanes = new LinkedHashMap<>(1024, 0.75f, true);
+    private volatile ListEntry list;
+    private long bytes;
+    private final Counter laneHits;
+    private final Counter laneMisses;
+    private final Counter listHits;
+    private final Counter listMisses;
+    private final Counter evictions;
+
+    public LaneJsonCache(
+            final ObjectMapper mapper,
+            final LaneConverter laneConverter,
+            final LaneUpdates laneUpdates,
+            final MeterRegistry meterRegistry,
+            @Value("${cranecontrol.json-cache.max-bytes:67108864}") final long maxBytes
+    ) {
+        this.writer = mapper.writerFor(LaneDTO.class);
+        this.laneConverter = laneConverter;
+        this.laneUpdates = laneUpdates;
+        this.maxBytes = maxBytes;
+        this.laneHits = requests(meterRegistry, "lane", "hit");
+        this.laneMisses = requests(meterRegistry, "lane", "miss");
+        this.listHits = requests(meterRegistry, "list", "hit");
+        this.listMisses = requests(meterRegistry, "list", "miss");
+        this.evictions = Counter.builder(EVICTIONS).register(meterRegistry);
+        Gauge.builder(SIZE, this, LaneJsonCache::getBytes).baseUnit("bytes").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        laneUpdates.listen(changed -> {
+            list = null;
+            changed.forEach(lane -> remove(lane.getId()));
+        });
+    }
+
+    /**
+     * @return the JSON of the lane when it's cached for this version
+     */
+    public Optional<byte[]> find(final String laneId, final long version) {
+        final byte[] json = lookUp(laneId, version);
+        if (json != null) {
+            laneHits.increment();
+        }
+        return Optional.ofNullable(json);
+    }
+
+    /**
+     * @return the JSON of the lane, serialized only when it isn't cached for the lane's version
+     */
+    public byte[] serialize(final Lane lane) {
+        final long version = version(lane);
+        final byte[] cached = lookUp(lane.getId(), version);
+        if (cached != null) {
+            laneHits.increment();
+            return cached;
+        }
+        laneMisses.increment();
+        final byte[] json = write(lane);
+        put(lane.getId(), new Entry(version, json));
+        return json;
+    }
+
+    /**
+     * @return the JSON array of every lane when it's cached for this aggregate version
+     */
+    public Optional<byte[]> findList(final String aggregateVersion) {
+        final ListEntry cached = list;
+        if (cached == null || !cached.aggregateVersion.equals(aggregateVersion)) {
+            return Optional.empty();
+        }
+        listHits.increment();
+        return Optional.of(cached.json);
+    }
+
+    /**
+     * Joins the JSON of every lane into an array, kept for the aggregate version when there is one
+     * and it fits in {@code max-bytes}.
+     */
+    public byte[] serializeList(final List<Lane> lanes, final String aggregateVersion) {
+        listMisses.increment();
+        final ByteArrayOutputStream json = new ByteArrayOutputStream(lanes.size() * 128 + 2);
+        json.write('[');
+        for (int lane = 0; lane < lanes.size(); lane++) {
+            if (lane > 0) {
+                json.write(',');
+            }
+            final byte[] laneJson = serialize(lanes.get(lane));
+            json.write(laneJson, 0, laneJson.length);
+        }
+        json.write(']');
+        final byte[] bytes = json.toByteArray();
+        if (aggregateVersion != null && bytes.length <= maxBytes) {
+            list = new ListEntry(aggregateVersion, bytes);
+        }
+        return bytes;
+    }
+
+    public synchronized long getBytes() {
+        final ListEntry cached = list;
+        return bytes + (cached == null ? 0 : cached.json.length);
+    }
+
+    private synchronized byte[] lookUp(final String laneId, final long version) {
+        final Entry cached = lanes.get(laneId);
+        return cached != null && cached.version == version ? cached.json : null;
+    }
+
+    private synchronized void put(final String laneId, final Entry entry) {
+        final Entry replaced = lanes.put(laneId, entry);
+        bytes += entry.json.length - (replaced == null ? 0 : replaced.json.length);
+        final Iterator<Entry> eldest = lanes.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().json.length;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private synchronized void remove(final String laneId) {
+        final Entry removed = lanes.remove(laneId);
+        if (removed != null) {
+            bytes -= removed.json.length;
+        }
+    }
+
+    private byte[] write(final Lane lane) {
+        try {
+            return writer.writeValueAsBytes(laneConverter.convert(lane));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long version(final Lane lane) {
+        return lane.getVersion() == null ? 0L : lane.getVersion();
+    }
+
+    private static Counter requests(final MeterRegistry meterRegistry, final String cache, final String result) {
+        return Counter.builder(REQUESTS)
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class Entry {
+
+        private final long version;
+        private final byte[] json;
+
+        private Entry(final long version, final byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+
+    private static final class ListEntry {
+
+        private final String aggregateVersion;
+        private final byte[] json;
+
+        private ListEntry(final String aggregateVersion, final byte[] json) {
+            this.aggregateVersion = aggregateVersion;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.tba.cranecontrol.controller;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket per lane, refilled with {@code movesPerSecond} tokens up to {@code burst}. A lane whose
+ * bucket is full is the same as a lane without one, so once more than {@code maxLanes} buckets are kept
+ * the full ones are dropped, and only the lanes moved recently take memory. Dropping them takes a pass
+ * over every bucket, so it's done at most once per time a drained bucket takes to fill up again: under
+ * load with more lanes moving than {@code maxLanes} a request doesn't pay for a pass, only one every
+ * interval does.
+ */
+final class LaneRateLimiter {
+
+    private static final long MIN_SWEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final int maxLanes;
+    private final LongSupplier clock;
+    private final long sweepIntervalNanos;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep;
+    private final AtomicLong sweeps = new AtomicLong();
+
+    LaneRateLimiter(final double movesPerSecond, final int burst, final int maxLanes) {
+        this(movesPerSecond, burst, maxLanes, System::nanoTime);
+    }
+
+    LaneRateLimiter(final double movesPerSecond, final int burst, final int maxLanes, final LongSupplier clock) {
+        this.tokensPerNano = movesPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.maxLanes = maxLanes;
+        this.clock = clock;
+        this.sweepIntervalNanos = Math.max(MIN_SWEEP_INTERVAL_NANOS, (long) Math.ceil(burst / tokensPerNano));
+        this.nextSweep = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Takes a token per move, or none at all. More moves than the burst take the whole bucket.
+     *
+     * @return 0 when the tokens were taken, otherwise the nanoseconds until there are enough
+     */
+    long tryAcquire(final String laneId, final int moves) {
+        final long now = clock.getAsLong();
+        if (buckets.size() > maxLanes) {
+            sweep(now);
+        }
+        return buckets.computeIfAbsent(laneId, id -> new Bucket(now)).tryAcquire(now, Math.min(moves, burst));
+    }
+
+    /**
+     * Gives back tokens taken for moves that weren't let through after all.
+     */
+    void refund(final String laneId, final int moves) {
+        final Bucket bucket = buckets.get(laneId);
+        if (bucket != null) {
+            bucket.refund(Math.min(moves, burst));
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    long getSweeps() {
+        return sweeps.get();
+    }
+
+    private void sweep(final long now) {
+        final long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + sweepIntervalNanos)) {
+            return;
+        }
+        sweeps.incrementAndGet();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private final class Bucket {
+
+        private double tokens = burst;
+        private long refilledAt;
+
+        private Bucket(final long now) {
+            this.refilledAt = now;
+        }
+
+        private synchronized long tryAcquire(final long now, final double needed) {
+            refill(now);
+            if (tokens >= needed) {
+                tokens -= needed;
+                return 0;
+            }
+            return (long) Math.ceil((needed - tokens) / tokensPerNano);
+        }
+
+        private synchronized void refund(final double returned) {
+            tokens = Math.min(burst, tokens + returned);
+        }
+
+        private synchronized boolean isFull(final long now) {
+            refill(now);
+            return tokens >= burst;
+        }
+
+        private void refill(final long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+                refilledAt = now;
+            }
+        }
+    }
+}
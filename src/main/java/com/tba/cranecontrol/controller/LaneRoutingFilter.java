@@ -0,0 +1,310 @@
+package com.tba.cranecontrol.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tba.cranecontrol.controller.dto.CraneMoveResultDTO;
+import com.tba.cranecontrol.model.MoveStatus;
+import com.tba.cranecontrol.service.LaneOwnership;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends every move to the node owning its lane. A single move owned by another node is forwarded to it
+ * and its answer relayed, or answered with a 307 to the owner when {@code routing} is {@code redirect}.
+ * A bulk move is split by owner, even with {@code redirect}: each node gets its own moves, and the
+ * results are put back in the order of the request. Reads are served by any node.
+ * <p>
+ * Some groups of a bulk move may already be applied when another fails, so a bulk move is always
+ * answered 200, the moves of a group answered with anything but 200 being reported as
+ * {@link MoveStatus#FAILED}. That answer isn't kept by the {@link IdempotencyFilter}: a retry with the
+ * same key sends every group again, and each owner recognizes its own group by the key derived for it.
+ * This node's group goes through the {@link IdempotencyFilter} with its own key too, without leaving the
+ * request's thread.
+ * <p>
+ * Forwarded requests carry {@value #FORWARDED_HEADER} and are always handled where they land, so two
+ * nodes briefly disagreeing on an owner can't bounce a request between them. When the owner can't be
+ * reached its moves are handled locally, the lane's version check keeps that safe.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "cranecontrol.cluster", name = "enabled", havingValue = "true")
+public class LaneRoutingFilter extends OncePerRequestFilter {
+
+    public static final String FORWARDED_HEADER = "X-Cranecontrol-Forwarded-By";
+    public static final String ROUTING = "cranecontrol.lane.routing";
+    private static final String BULK_PATH = LaneController.PATH + "/bulk";
+
+    private final LaneOwnership laneOwnership;
+    private final IdempotencyFilter idempotencyFilter;
+    private final ObjectMapper mapper;
+    private final boolean redirect;
+    private final Duration forwardTimeout;
+    private final HttpClient client;
+    private final Counter local;
+    private final Counter forwarded;
+    private final Counter redirected;
+    private final Counter fallback;
+
+    public LaneRoutingFilter(
+            final LaneOwnership laneOwnership,
+            final IdempotencyFilter idempotencyFilter,
+            final ObjectMapper mapper,
+            final MeterRegistry meterRegistry,
+            @Value("${cranecontrol.cluster.routing:forward}") final String routing,
+            @Value("${cranecontrol.cluster.forward-timeout-ms:2000}") final long forwardTimeoutMs
+    ) {
+        this.laneOwnership = laneOwnership;
+        this.idempotencyFilter = idempotencyFilter;
+        this.mapper = mapper;
+        this.redirect = "redirect".equals(routing.toLowerCase(Locale.ROOT));
+        this.forwardTimeout = Duration.ofMillis(forwardTimeoutMs);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(forwardTimeout)
+                .build();
+        this.local = routed(meterRegistry, "local");
+        this.forwarded = routed(meterRegistry, "forwarded");
+        this.redirected = routed(meterRegistry, "redirected");
+        this.fallback = routed(meterRegistry, "fallback");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !"PATCH".equals(request.getMethod())
+                || request.getHeader(FORWARDED_HEADER) != null
+                || !(LaneController.PATH.equals(path) || BULK_PATH.equals(path));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain
+    ) throws ServletException, IOException {
+        final byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        final JsonNode json;
+        try {
+            json = mapper.readTree(body);
+        } catch (IOException e) {
+            chain.doFilter(new BufferedRequest(request, body), response);
+            return;
+        }
+        if (request.getRequestURI().endsWith(BULK_PATH)) {
+            routeBulk(request, response, chain, body, json);
+        } else {
+            route(request, response, chain, body, json.path("laneId").asText(null));
+        }
+    }
+
+    private void route(
+            final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain,
+            final byte[] body, final String laneId
+    ) throws ServletException, IOException {
+        if (laneId == null || laneOwnership.isLocal(laneId)) {
+            local.increment();
+            chain.doFilter(new BufferedRequest(request, body), response);
+            return;
+        }
+        final String owner = laneOwnership.ownerOf(laneId);
+        if (redirect) {
+            redirected.increment();
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION, owner + request.getRequestURI());
+            return;
+        }
+        final HttpResponse<byte[]> answer = forward(
+                owner + request.getRequestURI(), body, request.getHeader(IdempotencyFilter.KEY_HEADER)
+        );
+        if (answer == null) {
+            fallback.increment();
+            chain.doFilter(new BufferedRequest(request, body), response);
+            return;
+        }
+        forwarded.increment();
+        response.setStatus(answer.statusCode());
+        answer.headers().firstValue(HttpHeaders.CONTENT_TYPE).ifPresent(response::setContentType);
+        response.getOutputStream().write(answer.body());
+    }
+
+    /**
+     * Groups the moves by owner, keeping each group in request order so the moves of a lane still apply
+     * in order. Each owner gets the {@value IdempotencyFilter#KEY_HEADER} suffixed with its own URL, as
+     * its group is a different body than the request. The groups handled here, this node's own and those
+     * of the owners that couldn't be reached, are handled one by one under the key derived for their
+     * owner, or all at once without a key.
+     */
+    private void routeBulk(
+            final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain,
+            final byte[] body, final JsonNode json
+    ) throws ServletException, IOException {
+        final JsonNode moves = json.path("moves");
+        final Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int index = 0; index < moves.size(); index++) {
+            final String laneId = moves.get(index).path("laneId").asText(null);
+            final String owner = laneId == null ? laneOwnership.getSelf() : laneOwnership.ownerOf(laneId);
+            groups.computeIfAbsent(owner, key -> new ArrayList<>()).add(index);
+        }
+        if (groups.size() == 1 && groups.containsKey(laneOwnership.getSelf())) {
+            local.increment();
+            chain.doFilter(new BufferedRequest(request, body), response);
+            return;
+        }
+        final String idempotencyKey = request.getHeader(IdempotencyFilter.KEY_HEADER);
+        final Map<String, List<Integer>> localGroups = new LinkedHashMap<>();
+        final JsonNode[] results = new JsonNode[moves.size()];
+        boolean failed = false;
+        for (final Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            final String owner = group.getKey();
+            if (owner.equals(laneOwnership.getSelf())) {
+                local.increment();
+                localGroups.put(owner, group.getValue());
+                continue;
+            }
+            final HttpResponse<byte[]> answer = forward(
+                    owner + request.getRequestURI(),
+                    subset(moves, group.getValue()),
+                    idempotencyKey == null ? null : idempotencyKey + "@" + owner
+            );
+            if (answer == null) {
+                fallback.increment();
+                localGroups.put(owner, group.getValue());
+                continue;
+            }
+            forwarded.increment();
+            failed |= collect(results, moves, group.getValue(), answer.statusCode(), answer.body());
+        }
+        if (idempotencyKey == null && localGroups.size() > 1) {
+            final List<Integer> localMoves = new ArrayList<>();
+            localGroups.values().forEach(localMoves::addAll);
+            localMoves.sort(null);
+            localGroups.clear();
+            localGroups.put(laneOwnership.getSelf(), localMoves);
+        }
+        for (final Map.Entry<String, List<Integer>> group : localGroups.entrySet()) {
+            final ContentCachingResponseWrapper localResponse = new ContentCachingResponseWrapper(response);
+            final BufferedRequest localRequest = new BufferedRequest(request, subset(moves, group.getValue()));
+            if (idempotencyKey == null) {
+                chain.doFilter(localRequest, localResponse);
+            } else {
+                idempotencyFilter.filter(localRequest, localResponse, chain, idempotencyKey + "@" + group.getKey());
+            }
+            failed |= collect(
+                    results, moves, group.getValue(), localResponse.getStatus(), localResponse.getContentAsByteArray()
+            );
+            localResponse.resetBuffer();
+        }
+        if (failed) {
+            request.setAttribute(IdempotencyFilter.NOT_KEPT_ATTRIBUTE, Boolean.TRUE);
+        }
+        final ArrayNode merged = mapper.createArrayNode();
+        for (final JsonNode result : results) {
+            merged.add(result);
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(mapper.writeValueAsBytes(merged));
+    }
+
+    private byte[] subset(final JsonNode moves, final List<Integer> indexes) throws IOException {
+        final ArrayNode subset = mapper.createArrayNode();
+        indexes.forEach(index -> subset.add(moves.get(index)));
+        return mapper.writeValueAsBytes(mapper.createObjectNode().set("moves", subset));
+    }
+
+    /**
+     * Puts the results of a group answered 200 in their place, or reports the group's moves as
+     * {@link MoveStatus#FAILED} otherwise.
+     *
+     * @return whether the group failed
+     */
+    private boolean collect(
+            final JsonNode[] results, final JsonNode moves, final List<Integer> indexes, final int status,
+            final byte[] answer
+    ) throws IOException {
+        if (status == HttpStatus.OK.value()) {
+            place(results, mapper.readTree(answer), indexes);
+            return false;
+        }
+        final String message = "The node owning the lane answered these moves with " + status + ", please retry.";
+        for (final Integer index : indexes) {
+            final JsonNode move = moves.get(index);
+            final ObjectNode result = mapper.valueToTree(
+                    new CraneMoveResultDTO(null, null, null, MoveStatus.FAILED, message, null)
+            );
+            result.set("laneId", move.get("laneId"));
+            result.set("laneOrder", move.get("laneOrder"));
+            result.set("desiredPosition", move.get("desiredPosition"));
+            results[index] = result;
+        }
+        return true;
+    }
+
+    private static void place(final JsonNode[] results, final JsonNode answer, final List<Integer> indexes) {
+        for (int position = 0; position < indexes.size(); position++) {
+            results[indexes.get(position)] = answer.get(position);
+        }
+    }
+
+    /**
+     * The {@value IdempotencyFilter#KEY_HEADER} goes along, so the owner recognizes a retry landing on
+     * any node.
+     *
+     * @return the owner's answer, or null when it couldn't be reached
+     */
+    private HttpResponse<byte[]> forward(final String uri, final byte[] body, final String idempotencyKey)
+            throws IOException {
+        final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(forwardTimeout)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(FORWARDED_HEADER, laneOwnership.getSelf())
+                .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(body));
+        if (idempotencyKey != null) {
+            request.header(IdempotencyFilter.KEY_HEADER, idempotencyKey);
+        }
+        try {
+            return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while forwarding to " + uri, e);
+        }
+    }
+
+    private static Counter routed(final MeterRegistry meterRegistry, final String result) {
+        return Counter.builder(ROUTING)
+                .description("Crane moves by where they were handled")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,87 @@
+package com.tba.cranecontrol.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.tba.cranecontrol.controller.converters.LaneUpdateConverter;
+import com.tba.cranecontrol.controller.dto.LaneUpdateDTO;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.service.LaneService;
+import com.tba.cranecontrol.service.LaneUpdates;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping(path = LaneUpdateController.PATH)
+public class LaneUpdateController {
+
+    public static final String PATH = LaneController.PATH + "/updates";
+    public static final String EVENT = "lanes";
+    private final LaneService laneService;
+    private final LaneUpdates laneUpdates;
+    private final LaneUpdateConverter laneUpdateConverter;
+    private final long timeoutMs;
+
+    public LaneUpdateController(
+            final LaneService laneService,
+            final LaneUpdates laneUpdates,
+            final LaneUpdateConverter laneUpdateConverter,
+            @Value("${cranecontrol.updates.timeout-ms:1800000}") final long timeoutMs
+    ) {
+        this.laneService = laneService;
+        this.laneUpdates = laneUpdates;
+        this.laneUpdateConverter = laneUpdateConverter;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Server-sent events with the lanes changed by moves and newly created lanes, a {@value #EVENT}
+     * event holding a JSON array per batch. Subscribing to given lanes sends their current state
+     * first, an unknown lane id is answered with 404. A client that reads slower than the lanes
+     * change gets only their latest state, and is disconnected once it falls too far behind.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(name = "laneId", required = false) final List<String> laneIds) {
+        final SseEmitter emitter = new SseEmitter(timeoutMs);
+        final LaneUpdates.Subscription subscription = laneUpdates.subscribe(
+                laneIds == null ? List.of() : laneIds,
+                lanes -> send(emitter, lanes),
+                () -> emitter.completeWithError(new IOException("The client doesn't keep up with the lane updates."))
+        );
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        try {
+            if (laneIds != null) {
+                laneIds.forEach(laneId -> subscription.offer(laneService.findById(laneId)));
+            }
+        } catch (NotFoundException e) {
+            subscription.cancel();
+            throw e;
+        }
+        return emitter;
+    }
+
+    private void send(final SseEmitter emitter, final List<Lane> lanes) {
+        final List<LaneUpdateDTO> updates = lanes.stream()
+                .map(laneUpdateConverter::convert)
+                .collect(Collectors.toList());
+        try {
+            emitter.send(SseEmitter.event().name(EVENT).data(updates, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+}
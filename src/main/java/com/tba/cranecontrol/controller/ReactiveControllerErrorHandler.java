@@ -0,0 +1,58 @@
+package com.tba.cranecontrol.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import com.tba.cranecontrol.controller.request.ErrorResponse;
+import com.tba.cranecontrol.exception.LaneConflictException;
+import com.tba.cranecontrol.exception.LaneCreationException;
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+import com.tba.cranecontrol.exception.NotFoundException;
+
+/**
+ * WebFlux counterpart of {@link ControllerErrorHandler}, answering with the same statuses and bodies.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveControllerErrorHandler {
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Object> handleGeneralException(final Exception ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @ExceptionHandler(LaneCreationException.class)
+    public ResponseEntity<Object> handleLaneCreationException(final LaneCreationException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @ExceptionHandler(MovementNotAllowedException.class)
+    public ResponseEntity<Object> handleMovementNotAllowedException(final MovementNotAllowedException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(LaneConflictException.class)
+    public ResponseEntity<Object> handleLaneConflictException(final LaneConflictException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<Object> handleNotFoundException(final NotFoundException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Object> handleWebExchangeBindException(final WebExchangeBindException ex) {
+        final List<String> errors = new ArrayList<>(ex.getErrorCount());
+        ex.getFieldErrors().forEach(error -> errors.add(error.getField() + ": " + error.getDefaultMessage()));
+        ex.getGlobalErrors().forEach(error -> errors.add(error.getObjectName() + ": " + error.getDefaultMessage()));
+        return new ResponseEntity<>(ErrorResponse.with(errors), HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,131 @@
+package com.tba.cranecontrol.controller;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.validation.Valid;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tba.cranecontrol.controller.converters.CraneMoveResultConverter;
+import com.tba.cranecontrol.controller.converters.LaneConverter;
+import com.tba.cranecontrol.controller.dto.CraneMoveResultDTO;
+import com.tba.cranecontrol.controller.dto.LaneDTO;
+import com.tba.cranecontrol.controller.dto.LanePageDTO;
+import com.tba.cranecontrol.controller.request.BulkCraneMoveRequest;
+import com.tba.cranecontrol.controller.request.CraneMoveRequest;
+import com.tba.cranecontrol.controller.request.CreateLaneRequest;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.service.ReactiveLaneService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same API as {@link LaneController}, served by WebFlux when running with the reactive profile.
+ */
+@RestController
+@RequestMapping(path = LaneController.PATH)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLaneController {
+
+    private final ObjectMapper mapper;
+    private final ReactiveLaneService laneService;
+    private final LaneConverter laneConverter;
+    private final CraneMoveResultConverter craneMoveResultConverter;
+
+    public ReactiveLaneController(
+            final ObjectMapper mapper, final ReactiveLaneService laneService,
+            final LaneConverter laneConverter, final CraneMoveResultConverter craneMoveResultConverter
+    ) {
+        this.mapper = mapper;
+        this.laneService = laneService;
+        this.laneConverter = laneConverter;
+        this.craneMoveResultConverter = craneMoveResultConverter;
+        this.mapper.enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT);
+    }
+
+    @GetMapping
+    public Flux<LaneDTO> findAll() {
+        return laneService.findAll().map(laneConverter::convert);
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<LanePageDTO> findPage(
+            @RequestParam(name = "after", required = false) final String after,
+            @RequestParam(name = "limit") final int limit
+    ) {
+        final int pageSize = Math.max(1, Math.min(limit, LaneController.MAX_PAGE_SIZE));
+        return laneService.findPage(after, pageSize)
+                .map(laneConverter::convert)
+                .collectList()
+                .map(lanes -> new LanePageDTO(
+                        lanes,
+                        lanes.size() == pageSize ? lanes.get(lanes.size() - 1).getId() : null
+                ));
+    }
+
+    @GetMapping(path = "/stream", produces = LaneController.NDJSON)
+    public Flux<String> streamAll() {
+        final ObjectWriter writer = mapper.writerFor(LaneDTO.class);
+        return laneService.findAll().map(lane -> writeLane(writer, laneConverter.convert(lane)));
+    }
+
+    @GetMapping(path = "/{laneId}")
+    public Mono<LaneDTO> findById(@PathVariable("laneId") final String laneId) {
+        return laneService.findById(laneId).map(laneConverter::convert);
+    }
+
+    @PostMapping
+    public Flux<LaneDTO> createLanes(@RequestBody @Valid final CreateLaneRequest request) {
+        return laneService.create(request.getLanes(), request.getPositions(), request.getCranes())
+                .map(laneConverter::convert);
+    }
+
+    @PostMapping(path = "/provision", produces = LaneController.NDJSON)
+    public Flux<String> provisionLanes(@RequestBody @Valid final CreateLaneRequest request) {
+        return laneService.create(request.getLanes(), request.getPositions(), request.getCranes())
+                .map(lane -> '"' + lane.getId() + "\"\n");
+    }
+
+    @PatchMapping
+    public Mono<LaneDTO> moveCrane(@RequestBody @Valid final CraneMoveRequest craneMoveRequest) {
+        return laneService.moveCrane(
+                craneMoveRequest.getLaneId(),
+                craneMoveRequest.getLaneOrder(),
+                craneMoveRequest.getDesiredPosition()
+        ).map(laneConverter::convert);
+    }
+
+    @PatchMapping(path = "/bulk")
+    public Mono<List<CraneMoveResultDTO>> moveCranes(@RequestBody @Valid final BulkCraneMoveRequest bulkCraneMoveRequest) {
+        final List<CraneMove> moves = bulkCraneMoveRequest.getMoves()
+                .stream()
+                .map(move -> new CraneMove(move.getLaneId(), move.getLaneOrder(), move.getDesiredPosition()))
+                .collect(Collectors.toList());
+        return laneService.moveCranes(moves)
+                .map(results -> results.stream()
+                        .map(craneMoveResultConverter::convert)
+                        .collect(Collectors.toList()));
+    }
+
+    private static String writeLane(final ObjectWriter writer, final LaneDTO lane) {
+        try {
+            return writer.writeValueAsString(lane) + '\n';
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.tba.cranecontrol.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tba.cranecontrol.controller.converters.YardStatsConverter;
+import com.tba.cranecontrol.controller.dto.YardStatsDTO;
+import com.tba.cranecontrol.service.YardStatistics;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping(path = YardStatsController.PATH)
+public class YardStatsController {
+
+    public static final String PATH = "/yard/stats";
+    private final YardStatistics yardStatistics;
+    private final YardStatsConverter yardStatsConverter;
+
+    public YardStatsController(final YardStatistics yardStatistics, final YardStatsConverter yardStatsConverter) {
+        this.yardStatistics = yardStatistics;
+        this.yardStatsConverter = yardStatsConverter;
+    }
+
+    /**
+     * Read from the totals kept by {@link YardStatistics}, without reading any lane.
+     */
+    @GetMapping
+    public YardStatsDTO getStats() {
+        return yardStatsConverter.convert(yardStatistics.getStats());
+    }
+}
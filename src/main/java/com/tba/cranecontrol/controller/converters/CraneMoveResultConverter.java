@@ -0,0 +1,32 @@
+package com.tba.cranecontrol.controller.converters;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import com.tba.cranecontrol.controller.dto.CraneMoveResultDTO;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.CraneMoveResult;
+
+@Component
+public class CraneMoveResultConverter implements Converter<CraneMoveResult, CraneMoveResultDTO> {
+
+    private final LaneConverter laneConverter;
+
+    public CraneMoveResultConverter(final LaneConverter laneConverter) {
+        this.laneConverter = laneConverter;
+    }
+
+    @Override
+    public CraneMoveResultDTO convert(final CraneMoveResult result) {
+        final CraneMove move = result.getMove();
+        return new CraneMoveResultDTO(
+                move.getLaneId(),
+                move.getLaneOrder(),
+                move.getDesiredPosition(),
+                result.getStatus(),
+                result.getMessage(),
+                result.getLane() == null ? null : laneConverter.convert(result.getLane())
+        );
+    }
+
+}
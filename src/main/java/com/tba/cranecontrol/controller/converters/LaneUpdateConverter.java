@@ -0,0 +1,29 @@
+package com.tba.cranecontrol.controller.converters;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import com.tba.cranecontrol.controller.dto.LaneUpdateDTO;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+
+@Component
+public class LaneUpdateConverter implements Converter<Lane, LaneUpdateDTO> {
+
+    @Override
+    public LaneUpdateDTO convert(final Lane lane) {
+        Integer firstCranePosition = null;
+        Integer secondCranePosition = null;
+        for (final Crane crane : lane.getCranes()) {
+            if (crane.getLaneOrder() == LaneOrder.FIRST) {
+                firstCranePosition = crane.getCurrentPosition();
+            } else {
+                secondCranePosition = crane.getCurrentPosition();
+            }
+        }
+        return new LaneUpdateDTO(
+                lane.getId(), lane.getVersion(), lane.getPositions(), firstCranePosition, secondCranePosition
+        );
+    }
+}
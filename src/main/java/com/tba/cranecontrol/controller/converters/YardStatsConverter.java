@@ -0,0 +1,29 @@
+package com.tba.cranecontrol.controller.converters;
+
+import java.util.stream.Collectors;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import com.tba.cranecontrol.controller.dto.LaneActivityDTO;
+import com.tba.cranecontrol.controller.dto.YardStatsDTO;
+import com.tba.cranecontrol.model.YardStats;
+
+@Component
+public class YardStatsConverter implements Converter<YardStats, YardStatsDTO> {
+
+    @Override
+    public YardStatsDTO convert(final YardStats stats) {
+        return new YardStatsDTO(
+                stats.getLanes(),
+                stats.getAverageGap(),
+                stats.getMovesPerMinute(),
+                stats.getRejectionRate(),
+                stats.getBusiestLanes()
+                        .stream()
+                        .map(activity -> new LaneActivityDTO(activity.getLaneId(), activity.getMoves()))
+                        .collect(Collectors.toList())
+        );
+    }
+
+}
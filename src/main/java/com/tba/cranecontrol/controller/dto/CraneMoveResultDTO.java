@@ -0,0 +1,50 @@
+package com.tba.cranecontrol.controller.dto;
+
+import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.model.MoveStatus;
+
+public class CraneMoveResultDTO {
+
+    private final String laneId;
+    private final LaneOrder laneOrder;
+    private final Integer desiredPosition;
+    private final MoveStatus status;
+    private final String message;
+    private final LaneDTO lane;
+
+    public CraneMoveResultDTO(
+            String laneId, LaneOrder laneOrder, Integer desiredPosition, MoveStatus status, String message,
+            LaneDTO lane
+    ) {
+        this.laneId = laneId;
+        this.laneOrder = laneOrder;
+        this.desiredPosition = desiredPosition;
+        this.status = status;
+        this.message = message;
+        this.lane = lane;
+    }
+
+    public String getLaneId() {
+        return laneId;
+    }
+
+    public LaneOrder getLaneOrder() {
+        return laneOrder;
+    }
+
+    public Integer getDesiredPosition() {
+        return desiredPosition;
+    }
+
+    public MoveStatus getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public LaneDTO getLane() {
+        return lane;
+    }
+}
@@ -0,0 +1,20 @@
+package com.tba.cranecontrol.controller.dto;
+
+public class LaneActivityDTO {
+
+    private final String laneId;
+    private final long moves;
+
+    public LaneActivityDTO(String laneId, long moves) {
+        this.laneId = laneId;
+        this.moves = moves;
+    }
+
+    public String getLaneId() {
+        return laneId;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+}
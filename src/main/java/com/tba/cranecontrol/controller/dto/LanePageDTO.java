@@ -0,0 +1,25 @@
+package com.tba.cranecontrol.controller.dto;
+
+import java.util.List;
+
+public class LanePageDTO {
+
+    private final List<LaneDTO> lanes;
+    private final String next;
+
+    public LanePageDTO(List<LaneDTO> lanes, String next) {
+        this.lanes = lanes;
+        this.next = next;
+    }
+
+    public List<LaneDTO> getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Value of the {@code after} parameter for the next page, {@code null} on the last page.
+     */
+    public String getNext() {
+        return next;
+    }
+}
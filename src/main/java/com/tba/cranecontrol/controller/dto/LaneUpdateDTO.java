@@ -0,0 +1,43 @@
+package com.tba.cranecontrol.controller.dto;
+
+/**
+ * State of a changed lane pushed to the update subscribers, the crane positions flattened.
+ */
+public class LaneUpdateDTO {
+
+    private final String id;
+    private final Long version;
+    private final Integer positions;
+    private final Integer firstCranePosition;
+    private final Integer secondCranePosition;
+
+    public LaneUpdateDTO(
+            String id, Long version, Integer positions, Integer firstCranePosition, Integer secondCranePosition
+    ) {
+        this.id = id;
+        this.version = version;
+        this.positions = positions;
+        this.firstCranePosition = firstCranePosition;
+        this.secondCranePosition = secondCranePosition;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Integer getPositions() {
+        return positions;
+    }
+
+    public Integer getFirstCranePosition() {
+        return firstCranePosition;
+    }
+
+    public Integer getSecondCranePosition() {
+        return secondCranePosition;
+    }
+}
@@ -0,0 +1,43 @@
+package com.tba.cranecontrol.controller.dto;
+
+import java.util.List;
+
+public class YardStatsDTO {
+
+    private final long lanes;
+    private final double averageGap;
+    private final double movesPerMinute;
+    private final double rejectionRate;
+    private final List<LaneActivityDTO> busiestLanes;
+
+    public YardStatsDTO(
+            long lanes, double averageGap, double movesPerMinute, double rejectionRate,
+            List<LaneActivityDTO> busiestLanes
+    ) {
+        this.lanes = lanes;
+        this.averageGap = averageGap;
+        this.movesPerMinute = movesPerMinute;
+        this.rejectionRate = rejectionRate;
+        this.busiestLanes = busiestLanes;
+    }
+
+    public long getLanes() {
+        return lanes;
+    }
+
+    public double getAverageGap() {
+        return averageGap;
+    }
+
+    public double getMovesPerMinute() {
+        return movesPerMinute;
+    }
+
+    public double getRejectionRate() {
+        return rejectionRate;
+    }
+
+    public List<LaneActivityDTO> getBusiestLanes() {
+        return busiestLanes;
+    }
+}
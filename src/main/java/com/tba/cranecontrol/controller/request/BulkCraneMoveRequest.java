@@ -0,0 +1,25 @@
+package com.tba.cranecontrol.controller.request;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+
+public final class BulkCraneMoveRequest {
+
+    @NotEmpty(message = "Moves can't be empty.")
+    @Size(max = 10000, message = "You can't send more than 10000 moves at once.")
+    private List<@Valid CraneMoveRequest> moves;
+
+    public BulkCraneMoveRequest() {
+    }
+
+    public BulkCraneMoveRequest(final List<CraneMoveRequest> moves) {
+        this.moves = moves;
+    }
+
+    public List<CraneMoveRequest> getMoves() {
+        return moves;
+    }
+}
@@ -1,6 +1,7 @@
 package com.tba.cranecontrol.controller.request;
 
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 
@@ -11,10 +12,11 @@ public final class CraneMoveRequest {
     @NotEmpty(message = "Lane id can't be null.")
     private String laneId;
 
-    @NotNull(message = "Lane order can't be null. It must have one of the following values: FIRST or SECOND")
+    @NotNull(message = "Lane order can't be null. It must have one of the following values: FIRST to EIGHTH")
     private LaneOrder laneOrder;
 
     @NotNull(message = "Desired position can't be null.")
+    @Min(value = 0, message = "Minimum value is 0")
     private Integer desiredPosition;
 
     public CraneMoveRequest(){}
@@ -1,27 +1,40 @@
 package com.tba.cranecontrol.controller.request;
 
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import com.tba.cranecontrol.model.LaneOrder;
+
 public final class CreateLaneRequest {
 
+    public static final int DEFAULT_CRANES = 2;
+
     public CreateLaneRequest(){
 
     }
 
     @NotNull
     @Min(value = 1, message = "Minimum value is 1")
-    @Max(value = 100, message = "You can't create more than 100 lanes.")
     private Integer lanes;
 
     @NotNull
     @Min(value = 1, message = "Minimum value is 1")
     private Integer positions;
 
+    @Min(value = 1, message = "Minimum value is 1")
+    @Max(value = 8, message = "Maximum value is 8")
+    private Integer cranes;
+
     public CreateLaneRequest(final Integer lanes, final Integer positions) {
+        this(lanes, positions, null);
+    }
+
+    public CreateLaneRequest(final Integer lanes, final Integer positions, final Integer cranes) {
         this.lanes = lanes;
         this.positions = positions;
+        this.cranes = cranes;
     }
 
     public Integer getLanes() {
@@ -31,4 +44,19 @@ public final class CreateLaneRequest {
     public Integer getPositions() {
         return positions;
     }
+
+    /**
+     * Cranes of every lane, two when not given.
+     */
+    public Integer getCranes() {
+        return cranes == null ? DEFAULT_CRANES : cranes;
+    }
+
+    /**
+     * All the cranes but the first are parked at the end of the lane, so they have to fit in it.
+     */
+    @AssertTrue(message = "The lane doesn't have enough positions for this number of cranes.")
+    public boolean isCraneLayoutValid() {
+        return positions == null || getCranes() > LaneOrder.values().length || positions >= getCranes() - 2;
+    }
 }
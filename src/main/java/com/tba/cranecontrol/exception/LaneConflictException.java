@@ -0,0 +1,9 @@
+package com.tba.cranecontrol.exception;
+
+public class LaneConflictException extends RuntimeException {
+
+    public LaneConflictException(final String message) {
+        super(message);
+    }
+
+}
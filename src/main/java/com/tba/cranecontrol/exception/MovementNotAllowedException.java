@@ -2,8 +2,19 @@ package com.tba.cranecontrol.exception;
 
 public class MovementNotAllowedException extends RuntimeException{
 
-    public MovementNotAllowedException(final String message) {
+    public enum Reason {
+        OUT_OF_BOUNDS,
+        BLOCKED_BY_PREVIOUS_CRANE
+    }
+
+    private final Reason reason;
+
+    public MovementNotAllowedException(final String message, final Reason reason) {
         super(message);
+        this.reason = reason;
     }
 
+    public Reason getReason() {
+        return reason;
+    }
 }
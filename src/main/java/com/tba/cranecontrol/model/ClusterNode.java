@@ -0,0 +1,28 @@
+package com.tba.cranecontrol.model;
+
+import java.time.Instant;
+
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A running instance, identified by the base URL the others reach it on, and when it last said it's alive.
+ */
+@Document
+public final class ClusterNode {
+
+    private final String id;
+    private final Instant lastSeen;
+
+    public ClusterNode(final String id, final Instant lastSeen) {
+        this.id = id;
+        this.lastSeen = lastSeen;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Instant getLastSeen() {
+        return lastSeen;
+    }
+}
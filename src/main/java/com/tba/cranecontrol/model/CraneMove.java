@@ -0,0 +1,26 @@
+package com.tba.cranecontrol.model;
+
+public class CraneMove {
+
+    private final String laneId;
+    private final LaneOrder laneOrder;
+    private final Integer desiredPosition;
+
+    public CraneMove(final String laneId, final LaneOrder laneOrder, final Integer desiredPosition) {
+        this.laneId = laneId;
+        this.laneOrder = laneOrder;
+        this.desiredPosition = desiredPosition;
+    }
+
+    public String getLaneId() {
+        return laneId;
+    }
+
+    public LaneOrder getLaneOrder() {
+        return laneOrder;
+    }
+
+    public Integer getDesiredPosition() {
+        return desiredPosition;
+    }
+}
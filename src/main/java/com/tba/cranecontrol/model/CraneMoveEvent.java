@@ -0,0 +1,65 @@
+package com.tba.cranecontrol.model;
+
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A crane move accepted on a lane, as recorded in the move journal. Events are never changed once
+ * written; their ObjectIds, generated in the order the moves were applied, give the journal order.
+ */
+@Document
+public final class CraneMoveEvent {
+
+    private final String id;
+    private final String laneId;
+    private final Long version;
+    private final LaneOrder laneOrder;
+    private final Integer fromPosition;
+    private final Integer toPosition;
+    private final Integer pushedCranes;
+
+    /**
+     * @param version version of the lane once the move is applied. Moves applied in one update share it.
+     * @param pushedCranes number of cranes after the moved one it pushed away, to the positions right
+     * after {@code toPosition}
+     */
+    public CraneMoveEvent(
+            final String id, final String laneId, final Long version, final LaneOrder laneOrder,
+            final Integer fromPosition, final Integer toPosition, final Integer pushedCranes
+    ) {
+        this.id = id;
+        this.laneId = laneId;
+        this.version = version;
+        this.laneOrder = laneOrder;
+        this.fromPosition = fromPosition;
+        this.toPosition = toPosition;
+        this.pushedCranes = pushedCranes;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getLaneId() {
+        return laneId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public LaneOrder getLaneOrder() {
+        return laneOrder;
+    }
+
+    public Integer getFromPosition() {
+        return fromPosition;
+    }
+
+    public Integer getToPosition() {
+        return toPosition;
+    }
+
+    public Integer getPushedCranes() {
+        return pushedCranes;
+    }
+}
@@ -0,0 +1,43 @@
+package com.tba.cranecontrol.model;
+
+public final class CraneMoveResult {
+
+    private final CraneMove move;
+    private final MoveStatus status;
+    private final String message;
+    private final Lane lane;
+
+    private CraneMoveResult(final CraneMove move, final MoveStatus status, final String message, final Lane lane) {
+        this.move = move;
+        this.status = status;
+        this.message = message;
+        this.lane = lane;
+    }
+
+    public static CraneMoveResult applied(final CraneMove move, final Lane lane) {
+        return new CraneMoveResult(move, MoveStatus.APPLIED, null, lane);
+    }
+
+    public static CraneMoveResult rejected(final CraneMove move, final MoveStatus status, final String message) {
+        return new CraneMoveResult(move, status, message, null);
+    }
+
+    public CraneMove getMove() {
+        return move;
+    }
+
+    public MoveStatus getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * State of the lane right after this move, only present for applied moves.
+     */
+    public Lane getLane() {
+        return lane;
+    }
+}
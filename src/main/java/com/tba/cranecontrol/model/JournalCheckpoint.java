@@ -0,0 +1,28 @@
+package com.tba.cranecontrol.model;
+
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Id of the last journal event already reflected in the lane snapshots, so replay can start after it.
+ */
+@Document
+public final class JournalCheckpoint {
+
+    public static final String LANES = "lanes";
+
+    private final String id;
+    private final String lastEventId;
+
+    public JournalCheckpoint(final String id, final String lastEventId) {
+        this.id = id;
+        this.lastEventId = lastEventId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getLastEventId() {
+        return lastEventId;
+    }
+}
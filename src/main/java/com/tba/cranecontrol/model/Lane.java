@@ -10,17 +10,27 @@ public final class Lane {
     private final String id;
     private final Integer positions;
     private final List<Crane> cranes;
+    private final Long version;
 
-    private Lane(final String id, final Integer positions, final List<Crane> cranes) {
+    private Lane(final String id, final Integer positions, final List<Crane> cranes, final Long version) {
         this.id = id;
         this.positions = positions;
         this.cranes = cranes;
+        this.version = version;
     }
 
     public static LaneBuilder builder() {
         return new LaneBuilder();
     }
 
+    public LaneBuilder toBuilder() {
+        return new LaneBuilder()
+                .withId(id)
+                .withPositions(positions)
+                .withCranes(cranes)
+                .withVersion(version);
+    }
+
     public String getId() {
         return id;
     }
@@ -33,10 +43,19 @@ public final class Lane {
         return cranes;
     }
 
+    /**
+     * Incremented on every change of the lane, used to detect concurrent updates.
+     * Lanes stored before the field existed have no version.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
     public static final class LaneBuilder {
         private String id;
         private Integer positions;
         private List<Crane> cranes;
+        private Long version;
 
         public LaneBuilder withId(final String id) {
             this.id = id;
@@ -53,8 +72,13 @@ public final class Lane {
             return this;
         }
 
+        public LaneBuilder withVersion(final Long version) {
+            this.version = version;
+            return this;
+        }
+
         public Lane build() {
-            return new Lane(id, positions, cranes);
+            return new Lane(id, positions, cranes, version);
         }
     }
 }
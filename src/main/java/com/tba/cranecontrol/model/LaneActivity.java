@@ -0,0 +1,20 @@
+package com.tba.cranecontrol.model;
+
+public final class LaneActivity {
+
+    private final String laneId;
+    private final long moves;
+
+    public LaneActivity(final String laneId, final long moves) {
+        this.laneId = laneId;
+        this.moves = moves;
+    }
+
+    public String getLaneId() {
+        return laneId;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+}
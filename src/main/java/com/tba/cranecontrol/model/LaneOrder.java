@@ -1,7 +1,11 @@
 package com.tba.cranecontrol.model;
 
+/**
+ * Cranes of a lane in their order along it, a lane with n cranes has the first n of them. A crane is
+ * always at a lower position than the ones after it.
+ */
 public enum LaneOrder {
 
-    FIRST, SECOND
+    FIRST, SECOND, THIRD, FOURTH, FIFTH, SIXTH, SEVENTH, EIGHTH
 
 }
@@ -0,0 +1,183 @@
+package com.tba.cranecontrol.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mutable, compact form of a {@link Lane} used on the move path: crane positions are kept in an
+ * {@code int[]} indexed by {@link LaneOrder#ordinal()}, sorted along the lane, so neighbours are found
+ * by index and checking and moving cranes neither boxes nor allocates. It's converted from and to
+ * {@link Lane} only when read from or written to Mongo and when answering requests.
+ */
+public final class LaneState {
+
+    /**
+     * Position of a crane the lane doesn't have.
+     */
+    public static final int NO_CRANE = -1;
+
+    private static final LaneOrder[] LANE_ORDERS = LaneOrder.values();
+
+    private final String id;
+    private final int positions;
+    private final int[] cranePositions;
+    private int cranes;
+    private long version;
+    private MoveListener moveListener;
+
+    /**
+     * Told about every crane move applied to a lane, see {@link #setMoveListener}.
+     */
+    @FunctionalInterface
+    public interface MoveListener {
+
+        /**
+         * @param pushedCranes number of cranes after the moved one pushed away by the move, they end right
+         *                     after it at {@code toPosition + 1}, {@code toPosition + 2} and so on
+         */
+        void moved(LaneOrder laneOrder, int fromPosition, int toPosition, int pushedCranes);
+    }
+
+    public LaneState(final String id, final int positions, final long version) {
+        this.id = id;
+        this.positions = positions;
+        this.cranePositions = new int[LANE_ORDERS.length];
+        this.version = version;
+        Arrays.fill(cranePositions, NO_CRANE);
+    }
+
+    /**
+     * Lanes stored before versions existed start at version 0.
+     */
+    public static LaneState of(final Lane lane) {
+        final LaneState state = new LaneState(
+                lane.getId(),
+                lane.getPositions(),
+                lane.getVersion() == null ? 0L : lane.getVersion()
+        );
+        for (final Crane crane : lane.getCranes()) {
+            state.setCranePosition(crane.getLaneOrder(), crane.getCurrentPosition());
+        }
+        return state;
+    }
+
+    public Lane toLane() {
+        final List<Crane> craneList = new ArrayList<>(cranes);
+        for (int index = 0; index < cranes; index++) {
+            if (cranePositions[index] != NO_CRANE) {
+                craneList.add(new Crane(cranePositions[index], LANE_ORDERS[index]));
+            }
+        }
+        return Lane.builder()
+                .withId(id)
+                .withPositions(positions)
+                .withCranes(craneList)
+                .withVersion(version)
+                .build();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getPositions() {
+        return positions;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void incrementVersion() {
+        version++;
+    }
+
+    public void setVersion(final long version) {
+        this.version = version;
+    }
+
+    /**
+     * Sets the listener told about the moves applied from now on, {@code null} to stop listening.
+     */
+    public void setMoveListener(final MoveListener moveListener) {
+        this.moveListener = moveListener;
+    }
+
+    /**
+     * Called by whoever moves the cranes, once per move.
+     */
+    public void moved(final LaneOrder laneOrder, final int fromPosition, final int toPosition, final int pushedCranes) {
+        if (moveListener != null) {
+            moveListener.moved(laneOrder, fromPosition, toPosition, pushedCranes);
+        }
+    }
+
+    /**
+     * Number of cranes up to the last one the lane has, cranes are indexed by {@link LaneOrder#ordinal()}.
+     */
+    public int getCranes() {
+        return cranes;
+    }
+
+    public boolean hasCrane(final LaneOrder laneOrder) {
+        return cranePositions[laneOrder.ordinal()] != NO_CRANE;
+    }
+
+    public int getCranePosition(final LaneOrder laneOrder) {
+        return cranePositions[laneOrder.ordinal()];
+    }
+
+    public void setCranePosition(final LaneOrder laneOrder, final int position) {
+        setCranePosition(laneOrder.ordinal(), position);
+    }
+
+    public int getCranePosition(final int index) {
+        return cranePositions[index];
+    }
+
+    public void setCranePosition(final int index, final int position) {
+        cranePositions[index] = position;
+        if (position != NO_CRANE && index >= cranes) {
+            cranes = index + 1;
+        }
+    }
+
+    /**
+     * Where a new lane parks the crane at {@code index}: the first one at position 0 and the others at
+     * the end of the lane, the last one at {@code positions + 1}.
+     */
+    public static int homePosition(final int positions, final int cranes, final int index) {
+        return index == 0 ? 0 : positions + 1 - (cranes - 1 - index);
+    }
+
+    /**
+     * Whether every crane is at its {@link #homePosition home position}.
+     */
+    public boolean isParked() {
+        for (int index = 0; index < cranes; index++) {
+            if (cranePositions[index] != homePosition(positions, cranes, index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The free positions between every two consecutive cranes added up, 0 for a lane with one crane.
+     */
+    public int getTotalGap() {
+        return cranes < 2 ? 0 : cranePositions[cranes - 1] - cranePositions[0] - (cranes - 1);
+    }
+
+    /**
+     * The largest number of free positions between two consecutive cranes, 0 for a lane with one crane.
+     */
+    public int getWorkingWindow() {
+        int window = 0;
+        for (int index = 1; index < cranes; index++) {
+            window = Math.max(window, cranePositions[index] - cranePositions[index - 1] - 1);
+        }
+        return window;
+    }
+}
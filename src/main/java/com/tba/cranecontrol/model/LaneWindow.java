@@ -0,0 +1,70 @@
+package com.tba.cranecontrol.model;
+
+import java.util.Objects;
+
+/**
+ * A lane's {@link LaneState#getWorkingWindow() working window}. Lanes found by working window are
+ * ordered by it, largest first, and by id, and the last one of a page is where the next page starts.
+ */
+public final class LaneWindow implements Comparable<LaneWindow> {
+
+    private final int window;
+    private final String laneId;
+
+    public LaneWindow(final int window, final String laneId) {
+        this.window = window;
+        this.laneId = laneId;
+    }
+
+    public static LaneWindow of(final Lane lane) {
+        return new LaneWindow(LaneState.of(lane).getWorkingWindow(), lane.getId());
+    }
+
+    /**
+     * @param value as written by {@link #toString()}, {@code window:laneId}
+     * @throws IllegalArgumentException when it's not
+     */
+    public static LaneWindow parse(final String value) {
+        final int separator = value.indexOf(':');
+        if (separator < 1 || separator == value.length() - 1) {
+            throw new IllegalArgumentException("Not a lane window: " + value);
+        }
+        return new LaneWindow(Integer.parseInt(value.substring(0, separator)), value.substring(separator + 1));
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public String getLaneId() {
+        return laneId;
+    }
+
+    @Override
+    public int compareTo(final LaneWindow other) {
+        final int byWindow = Integer.compare(other.window, window);
+        return byWindow != 0 ? byWindow : laneId.compareTo(other.laneId);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof LaneWindow)) {
+            return false;
+        }
+        final LaneWindow that = (LaneWindow) other;
+        return window == that.window && laneId.equals(that.laneId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(window, laneId);
+    }
+
+    @Override
+    public String toString() {
+        return window + ":" + laneId;
+    }
+}
@@ -0,0 +1,7 @@
+package com.tba.cranecontrol.model;
+
+public enum MoveStatus {
+
+    APPLIED, REJECTED, NOT_FOUND, CONFLICT, FAILED
+
+}
@@ -0,0 +1,49 @@
+package com.tba.cranecontrol.model;
+
+import java.util.List;
+
+public final class YardStats {
+
+    private final long lanes;
+    private final double averageGap;
+    private final double movesPerMinute;
+    private final double rejectionRate;
+    private final List<LaneActivity> busiestLanes;
+
+    public YardStats(
+            final long lanes, final double averageGap, final double movesPerMinute, final double rejectionRate,
+            final List<LaneActivity> busiestLanes
+    ) {
+        this.lanes = lanes;
+        this.averageGap = averageGap;
+        this.movesPerMinute = movesPerMinute;
+        this.rejectionRate = rejectionRate;
+        this.busiestLanes = busiestLanes;
+    }
+
+    public long getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Free positions between two consecutive cranes, over every pair of consecutive cranes of the yard.
+     */
+    public double getAverageGap() {
+        return averageGap;
+    }
+
+    public double getMovesPerMinute() {
+        return movesPerMinute;
+    }
+
+    /**
+     * Rejected moves out of every move tried, between 0 and 1.
+     */
+    public double getRejectionRate() {
+        return rejectionRate;
+    }
+
+    public List<LaneActivity> getBusiestLanes() {
+        return busiestLanes;
+    }
+}
@@ -0,0 +1,337 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.bson.BsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.MongoServerException;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.LaneWindow;
+
+/**
+ * {@link MongoLaneStore} that answers reads from a copy of every lane kept in memory and coherent with
+ * the changes other instances make, by following the change stream of the lane collection. Moves are
+ * still written to Mongo with the version check, and their result is put in the copy right away.
+ * <p>
+ * The stream resumes after the last change seen when it's interrupted. When it can't (the change is
+ * gone from the oplog, or the collection was dropped) it's opened from now and every lane is read
+ * again. A lane is only replaced by a higher version, so changes seen twice or out of order with the
+ * reload don't go back in time.
+ * <p>
+ * Reads are at most {@code max-staleness-ms} behind Mongo: when nothing was heard from the stream for
+ * longer, for instance while it reconnects, they go to Mongo until it's caught up again.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "cranecontrol.store", name = "mode", havingValue = "cached")
+public class CachedLaneStore extends MongoLaneStore implements LaneChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachedLaneStore.class);
+    /**
+     * ChangeStreamFatalError, InvalidResumeToken and ChangeStreamHistoryLost: resuming can't work.
+     */
+    private static final Set<Integer> RESUME_FAILURES = Set.of(280, 260, 286);
+    private static final int LOCK_STRIPES = 64;
+
+    private final LaneRepository laneRepository;
+    private final long maxAwaitMs;
+    private final long maxStalenessMs;
+    private final long retryIntervalMs;
+    private final NavigableMap<String, Lane> lanes = new ConcurrentSkipListMap<>();
+    private final LaneIndex index = new LaneIndex();
+    private final Object[] laneLocks = new Object[LOCK_STRIPES];
+    private final AtomicLong changes = new AtomicLong();
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Thread watcher = new Thread(this::watch, "Lane Change Stream");
+    private volatile BsonDocument resumeToken;
+    private volatile Map<String, Boolean> touchedDuringReload;
+    private volatile boolean synced;
+    private volatile long lastHeardNanos;
+    private volatile boolean running = true;
+
+    public CachedLaneStore(
+            final LaneRepository laneRepository,
+            @Value("${cranecontrol.store.max-update-attempts:5}") final int maxUpdateAttempts,
+            @Value("${cranecontrol.store.bulk-batch-size:500}") final int bulkBatchSize,
+            @Value("${cranecontrol.store.cached.max-await-ms:500}") final long maxAwaitMs,
+            @Value("${cranecontrol.store.cached.max-staleness-ms:2000}") final long maxStalenessMs,
+            @Value("${cranecontrol.store.cached.retry-interval-ms:1000}") final long retryIntervalMs
+    ) {
+        super(laneRepository, maxUpdateAttempts, bulkBatchSize);
+        this.laneRepository = laneRepository;
+        this.maxAwaitMs = maxAwaitMs;
+        this.maxStalenessMs = maxStalenessMs;
+        this.retryIntervalMs = retryIntervalMs;
+        watcher.setDaemon(true);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            laneLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        watcher.interrupt();
+        watcher.join(maxAwaitMs * 4);
+    }
+
+    @Override
+    public Optional<Lane> findById(final String laneId) {
+        return isFresh() ? Optional.ofNullable(lanes.get(laneId)) : super.findById(laneId);
+    }
+
+    @Override
+    public Optional<Long> findVersion(final String laneId) {
+        return isFresh() ? Optional.ofNullable(lanes.get(laneId)).map(Lane::getVersion) : Optional.empty();
+    }
+
+    /**
+     * The number of changes seen since startup, prefixed with the startup time so it's never reused.
+     */
+    @Override
+    public Optional<String> findAggregateVersion() {
+        return isFresh() ? Optional.of(epoch + "-" + changes.get()) : Optional.empty();
+    }
+
+    @Override
+    public List<Lane> findAll() {
+        return isFresh() ? new ArrayList<>(lanes.values()) : super.findAll();
+    }
+
+    @Override
+    public List<Lane> findPage(final String afterId, final int limit) {
+        if (!isFresh()) {
+            return super.findPage(afterId, limit);
+        }
+        final List<Lane> page = new ArrayList<>(limit);
+        for (final Lane lane : (afterId == null ? lanes : lanes.tailMap(afterId, false)).values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(lane);
+        }
+        return page;
+    }
+
+    @Override
+    public List<Lane> findParked(final String afterId, final int limit) {
+        return isFresh() ? lanes(index.findParked(afterId, limit)) : super.findParked(afterId, limit);
+    }
+
+    @Override
+    public List<Lane> findByWorkingWindow(final int minWindow, final LaneWindow after, final int limit) {
+        return isFresh()
+                ? lanes(index.findByWorkingWindow(minWindow, after, limit))
+                : super.findByWorkingWindow(minWindow, after, limit);
+    }
+
+    @Override
+    public void streamAll(final Consumer<Lane> action) {
+        if (isFresh()) {
+            lanes.values().forEach(action);
+        } else {
+            super.streamAll(action);
+        }
+    }
+
+    @Override
+    public List<Lane> insertAll(final List<Lane> newLanes) {
+        final List<Lane> inserted = super.insertAll(newLanes);
+        inserted.forEach(this::changed);
+        return inserted;
+    }
+
+    @Override
+    public Lane update(final String laneId, final Consumer<LaneState> mutation) {
+        final Lane updated = super.update(laneId, mutation);
+        changed(updated);
+        return updated;
+    }
+
+    @Override
+    protected Lane move(final CraneMove move, final Consumer<LaneState> mutation) {
+        final Lane moved = super.move(move, mutation);
+        changed(moved);
+        return moved;
+    }
+
+    @Override
+    public Map<String, Lane> updateAll(final Map<String, Consumer<LaneState>> mutations) {
+        final Map<String, Lane> updated = super.updateAll(mutations);
+        updated.values().forEach(this::changed);
+        return updated;
+    }
+
+    /**
+     * Whether the copy in memory is synced and heard from the stream within {@code max-staleness-ms}.
+     */
+    public boolean isFresh() {
+        return synced && System.nanoTime() - lastHeardNanos <= TimeUnit.MILLISECONDS.toNanos(maxStalenessMs);
+    }
+
+    /**
+     * Reloads every lane when the stream couldn't pick up where it left off. The stream is already
+     * open, so a change made by another instance during the reload is either in what's read or
+     * follows it. The lanes this instance changed or deleted meanwhile may be missing from what's
+     * read, or be read as they were before, so what happened to them during the reload wins over it.
+     */
+    @Override
+    public void opened(final boolean resumed) {
+        if (!resumed) {
+            final Map<String, Boolean> touched = new ConcurrentHashMap<>();
+            touchedDuringReload = touched;
+            try {
+                final NavigableMap<String, Lane> reloaded = new ConcurrentSkipListMap<>();
+                laneRepository.streamAll(lane -> reloaded.put(lane.getId(), lane));
+                lanes.keySet().stream()
+                        .filter(laneId -> !reloaded.containsKey(laneId))
+                        .forEach(laneId -> deletedUnlessTouched(laneId, touched));
+                reloaded.values().stream()
+                        .filter(lane -> touched.get(lane.getId()) != Boolean.FALSE)
+                        .forEach(this::changed);
+                changes.incrementAndGet();
+                LOGGER.warn("Reloaded {} lanes after opening the lane change stream from now.", reloaded.size());
+            } finally {
+                touchedDuringReload = null;
+            }
+        }
+        heard();
+        synced = true;
+    }
+
+    @Override
+    public void changed(final Lane lane) {
+        synchronized (lockOf(lane.getId())) {
+            touched(lane.getId(), true);
+            final Lane current = lanes.merge(lane.getId(), lane, CachedLaneStore::newer);
+            if (current == lane) {
+                index.put(LaneState.of(lane));
+                changes.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void deleted(final String laneId) {
+        synchronized (lockOf(laneId)) {
+            touched(laneId, false);
+            remove(laneId);
+        }
+    }
+
+    private void deletedUnlessTouched(final String laneId, final Map<String, Boolean> touched) {
+        synchronized (lockOf(laneId)) {
+            if (!touched.containsKey(laneId)) {
+                remove(laneId);
+            }
+        }
+    }
+
+    private void remove(final String laneId) {
+        if (lanes.remove(laneId) != null) {
+            index.remove(laneId);
+            changes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records, while reloading, whether the lane was last changed or deleted.
+     */
+    private void touched(final String laneId, final boolean present) {
+        final Map<String, Boolean> touched = touchedDuringReload;
+        if (touched != null) {
+            touched.put(laneId, present);
+        }
+    }
+
+    @Override
+    public void advanced(final BsonDocument token) {
+        resumeToken = token;
+        heard();
+    }
+
+    private void watch() {
+        while (running) {
+            try {
+                laneRepository.watchChanges(resumeToken, maxAwaitMs, this);
+                if (running) {
+                    LOGGER.warn("The lane collection was dropped or renamed, reloading every lane.");
+                    resumeToken = null;
+                }
+            } catch (MongoServerException e) {
+                if (RESUME_FAILURES.contains(e.getCode())) {
+                    LOGGER.warn("The lane change stream can't resume, reloading every lane.", e);
+                    resumeToken = null;
+                } else {
+                    retryLater(e);
+                }
+            } catch (RuntimeException e) {
+                retryLater(e);
+            }
+        }
+    }
+
+    private void retryLater(final RuntimeException e) {
+        if (!running) {
+            return;
+        }
+        LOGGER.warn("The lane change stream failed, resuming in {} ms.", retryIntervalMs, e);
+        try {
+            Thread.sleep(retryIntervalMs);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private List<Lane> lanes(final List<String> ids) {
+        final List<Lane> found = new ArrayList<>(ids.size());
+        for (final String laneId : ids) {
+            final Lane lane = lanes.get(laneId);
+            if (lane != null) {
+                found.add(lane);
+            }
+        }
+        return found;
+    }
+
+    private Object lockOf(final String laneId) {
+        return laneLocks[Math.floorMod(laneId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private void heard() {
+        lastHeardNanos = System.nanoTime();
+    }
+
+    private static Lane newer(final Lane current, final Lane candidate) {
+        return version(candidate) > version(current) ? candidate : current;
+    }
+
+    private static long version(final Lane lane) {
+        return lane.getVersion() == null ? -1L : lane.getVersion();
+    }
+}
@@ -0,0 +1,15 @@
+package com.tba.cranecontrol.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.tba.cranecontrol.model.ClusterNode;
+
+@Repository
+public interface ClusterNodeRepository extends MongoRepository<ClusterNode, String> {
+
+    List<ClusterNode> findByLastSeenAfter(Instant instant);
+}
@@ -0,0 +1,188 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.tba.cranecontrol.exception.LaneConflictException;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneState;
+
+/**
+ * {@link MongoLaneStore} that holds the updates submitted for a lane back for {@code window-ms} after
+ * the first one, then reads the lane once, applies them in submission order and writes only the final
+ * crane positions with one conditional findAndModify. Each update still gets the lane as it was right
+ * after it, or its own exception when it was rejected, and the version is incremented once per update
+ * applied. A conflicting write replays the whole burst on the lane as read again.
+ * <p>
+ * A lane is always written by the same one of {@code threads} single-threaded writers, so its bursts
+ * are written in order.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "cranecontrol.store", name = "mode", havingValue = "coalescing")
+public class CoalescingLaneStore extends MongoLaneStore {
+
+    private final LaneRepository laneRepository;
+    private final int maxUpdateAttempts;
+    private final long windowMs;
+    private final Map<String, List<PendingUpdate>> bursts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService[] writers;
+
+    public CoalescingLaneStore(
+            final LaneRepository laneRepository,
+            @Value("${cranecontrol.store.max-update-attempts:5}") final int maxUpdateAttempts,
+            @Value("${cranecontrol.store.bulk-batch-size:500}") final int bulkBatchSize,
+            @Value("${cranecontrol.store.coalescing.window-ms:5}") final long windowMs,
+            @Value("${cranecontrol.store.coalescing.threads:4}") final int threads
+    ) {
+        super(laneRepository, maxUpdateAttempts, bulkBatchSize);
+        this.laneRepository = laneRepository;
+        this.maxUpdateAttempts = maxUpdateAttempts;
+        this.windowMs = windowMs;
+        this.writers = new ScheduledExecutorService[threads];
+        for (int writer = 0; writer < threads; writer++) {
+            final String threadName = "Lane Coalescer-" + writer;
+            this.writers[writer] = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Writes the bursts already waiting before stopping.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (final ScheduledExecutorService writer : writers) {
+            writer.shutdown();
+        }
+        for (final ScheduledExecutorService writer : writers) {
+            writer.awaitTermination(windowMs * 100, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Lane update(final String laneId, final Consumer<LaneState> mutation) {
+        final CompletableFuture<Lane> updated = submit(laneId, mutation);
+        try {
+            return updated.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the update to the lane's burst, the first update of a burst schedules its write.
+     */
+    @Override
+    public CompletableFuture<Lane> submit(final String laneId, final Consumer<LaneState> mutation) {
+        final PendingUpdate update = new PendingUpdate(mutation);
+        bursts.compute(laneId, (id, burst) -> {
+            if (burst == null) {
+                burst = new ArrayList<>();
+                writerFor(laneId).schedule(() -> write(laneId), windowMs, TimeUnit.MILLISECONDS);
+            }
+            burst.add(update);
+            return burst;
+        });
+        return update.result;
+    }
+
+    /**
+     * Moves are coalesced like any other update rather than written on their own.
+     */
+    @Override
+    public CompletableFuture<Lane> submitMove(final CraneMove move, final Consumer<LaneState> mutation) {
+        return submit(move.getLaneId(), mutation);
+    }
+
+    private void write(final String laneId) {
+        final List<PendingUpdate> burst = bursts.remove(laneId);
+        try {
+            for (int attempt = 0; attempt < maxUpdateAttempts; attempt++) {
+                final Lane lane = laneRepository.findById(laneId)
+                        .orElseThrow(() -> new NotFoundException("Lane not found for id: " + laneId));
+                final LaneState state = LaneState.of(lane);
+                boolean applied = false;
+                for (final PendingUpdate update : burst) {
+                    applied |= update.apply(state);
+                }
+                if (!applied) {
+                    burst.forEach(PendingUpdate::complete);
+                    return;
+                }
+                final Optional<Lane> written = laneRepository.compareAndSetCranes(lane, state.toLane());
+                if (written.isPresent()) {
+                    burst.forEach(PendingUpdate::complete);
+                    return;
+                }
+            }
+            throw new LaneConflictException("The lane " + laneId + " is being changed concurrently, please retry.");
+        } catch (RuntimeException e) {
+            burst.forEach(update -> update.result.completeExceptionally(e));
+        }
+    }
+
+    private ScheduledExecutorService writerFor(final String laneId) {
+        final int hash = laneId.hashCode();
+        return writers[Math.floorMod(hash ^ (hash >>> 16), writers.length)];
+    }
+
+    private static final class PendingUpdate {
+
+        private final Consumer<LaneState> mutation;
+        private final CompletableFuture<Lane> result = new CompletableFuture<>();
+        private Lane updated;
+        private RuntimeException rejection;
+
+        private PendingUpdate(final Consumer<LaneState> mutation) {
+            this.mutation = mutation;
+        }
+
+        /**
+         * @return whether the update was applied, a rejected one is left out of the lane
+         */
+        private boolean apply(final LaneState state) {
+            try {
+                mutation.accept(state);
+            } catch (RuntimeException e) {
+                updated = null;
+                rejection = e;
+                return false;
+            }
+            state.incrementVersion();
+            updated = state.toLane();
+            rejection = null;
+            return true;
+        }
+
+        private void complete() {
+            if (rejection != null) {
+                result.completeExceptionally(rejection);
+            } else {
+                result.complete(updated);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.function.Consumer;
+
+import com.tba.cranecontrol.model.CraneMoveEvent;
+
+public interface CraneMoveEventRepositoryCustom {
+
+    /**
+     * Hands the events written after the given one to the action in journal order, one at a time.
+     *
+     * @param afterId id of the last event to skip, {@code null} to read the whole journal
+     */
+    void streamAfter(String afterId, Consumer<CraneMoveEvent> action);
+}
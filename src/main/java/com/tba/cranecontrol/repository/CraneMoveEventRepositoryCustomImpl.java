@@ -0,0 +1,32 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.function.Consumer;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+
+import com.tba.cranecontrol.model.CraneMoveEvent;
+
+public class CraneMoveEventRepositoryCustomImpl implements CraneMoveEventRepositoryCustom {
+
+    private final MongoOperations mongoOperations;
+
+    public CraneMoveEventRepositoryCustomImpl(final MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public void streamAfter(final String afterId, final Consumer<CraneMoveEvent> action) {
+        final Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id"));
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("id").gt(new ObjectId(afterId)));
+        }
+        try (CloseableIterator<CraneMoveEvent> events = mongoOperations.stream(query, CraneMoveEvent.class)) {
+            events.forEachRemaining(action);
+        }
+    }
+}
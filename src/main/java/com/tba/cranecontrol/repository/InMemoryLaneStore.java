@@ -0,0 +1,291 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.LaneWindow;
+
+/**
+ * Keeps every lane in memory as the source of truth and writes changed lanes
+ * to Mongo in the background. Lanes are loaded from Mongo on startup, flushed
+ * at least every {@code flush-interval-ms} (or sooner once {@code max-pending-writes}
+ * lanes are dirty) and flushed one last time on shutdown.
+ * <p>
+ * Lanes are held as {@link LaneState}s and mutated in place while holding their monitor, readers
+ * take a {@link Lane} snapshot under the same monitor. A {@link LaneIndex} updated under the same
+ * monitor answers the lookups by crane state.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "cranecontrol.store", name = "mode", havingValue = "memory")
+public class InMemoryLaneStore implements LaneStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryLaneStore.class);
+
+    private final LaneRepository laneRepository;
+    private final long flushIntervalMs;
+    private final int maxPendingWrites;
+    private final Map<String, LaneState> lanes = new ConcurrentHashMap<>();
+    private final NavigableSet<String> laneIds = new ConcurrentSkipListSet<>();
+    private final Set<String> dirtyLanes = ConcurrentHashMap.newKeySet();
+    private final LaneIndex index = new LaneIndex();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong changes = new AtomicLong();
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "Lane Flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InMemoryLaneStore(
+            final LaneRepository laneRepository,
+            @Value("${cranecontrol.store.flush-interval-ms:200}") final long flushIntervalMs,
+            @Value("${cranecontrol.store.max-pending-writes:1000}") final int maxPendingWrites
+    ) {
+        this.laneRepository = laneRepository;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxPendingWrites = maxPendingWrites;
+    }
+
+    @PostConstruct
+    public void load() {
+        laneRepository.streamAll(this::put);
+        loaded();
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    @Override
+    public Optional<Lane> findById(final String laneId) {
+        return Optional.ofNullable(lanes.get(laneId)).map(InMemoryLaneStore::snapshot);
+    }
+
+    @Override
+    public Optional<Long> findVersion(final String laneId) {
+        final LaneState lane = lanes.get(laneId);
+        if (lane == null) {
+            return Optional.empty();
+        }
+        synchronized (lane) {
+            return Optional.of(lane.getVersion());
+        }
+    }
+
+    /**
+     * The number of changes since startup, prefixed with the startup time so it's never reused.
+     */
+    @Override
+    public Optional<String> findAggregateVersion() {
+        return Optional.of(epoch + "-" + changes.get());
+    }
+
+    @Override
+    public List<Lane> findAll() {
+        final List<Lane> all = new ArrayList<>(lanes.size());
+        lanes.values().forEach(lane -> all.add(snapshot(lane)));
+        return all;
+    }
+
+    /**
+     * Lane ids are ObjectIds in hex, so ordering them as strings gives the same order as Mongo.
+     */
+    @Override
+    public List<Lane> findPage(final String afterId, final int limit) {
+        final List<Lane> page = new ArrayList<>(limit);
+        final Iterator<String> ids = (afterId == null ? laneIds : laneIds.tailSet(afterId, false)).iterator();
+        while (page.size() < limit && ids.hasNext()) {
+            page.add(snapshot(lanes.get(ids.next())));
+        }
+        return page;
+    }
+
+    @Override
+    public void streamAll(final Consumer<Lane> action) {
+        lanes.values().forEach(lane -> action.accept(snapshot(lane)));
+    }
+
+    @Override
+    public List<Lane> findParked(final String afterId, final int limit) {
+        return snapshots(index.findParked(afterId, limit));
+    }
+
+    @Override
+    public List<Lane> findByWorkingWindow(final int minWindow, final LaneWindow after, final int limit) {
+        return snapshots(index.findByWorkingWindow(minWindow, after, limit));
+    }
+
+    /**
+     * New lanes are written through to Mongo right away, there's nothing to batch with later.
+     */
+    @Override
+    public List<Lane> insertAll(final List<Lane> newLanes) {
+        final List<Lane> inserted = laneRepository.insert(newLanes);
+        inserted.forEach(this::put);
+        changes.incrementAndGet();
+        return inserted;
+    }
+
+    @Override
+    public Lane update(final String laneId, final Consumer<LaneState> mutation) {
+        final Lane updated = apply(laneId, mutation);
+        if (updated == null) {
+            throw new NotFoundException("Lane not found for id: " + laneId);
+        }
+        return updated;
+    }
+
+    @Override
+    public Map<String, Lane> updateAll(final Map<String, Consumer<LaneState>> mutations) {
+        final Map<String, Lane> updated = new HashMap<>(mutations.size());
+        mutations.forEach((laneId, mutation) -> {
+            final Lane lane = apply(laneId, mutation);
+            if (lane != null) {
+                updated.put(laneId, lane);
+            }
+        });
+        return updated;
+    }
+
+    public int getPendingWrites() {
+        return dirtyLanes.size();
+    }
+
+    /**
+     * Writes every dirty lane to Mongo. A lane changed while the flush is running
+     * is marked dirty again and picked up by the next flush.
+     */
+    public synchronized void flush() {
+        flushDirtyLanes();
+    }
+
+    /**
+     * @return whether every dirty lane was written
+     */
+    protected synchronized boolean flushDirtyLanes() {
+        flushRequested.set(false);
+        final List<Lane> pending = new ArrayList<>(dirtyLanes.size());
+        final Iterator<String> iterator = dirtyLanes.iterator();
+        while (iterator.hasNext()) {
+            final String laneId = iterator.next();
+            iterator.remove();
+            pending.add(snapshot(lanes.get(laneId)));
+        }
+        if (pending.isEmpty()) {
+            return true;
+        }
+        try {
+            laneRepository.saveAll(pending);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to flush {} lanes, retrying on the next flush.", pending.size(), e);
+            pending.forEach(lane -> dirtyLanes.add(lane.getId()));
+            return false;
+        }
+    }
+
+    /**
+     * Called once the stored lanes are loaded, before the first flush is scheduled.
+     */
+    protected void loaded() {
+    }
+
+    /**
+     * Applies the mutation to the lane, called while holding the lane's monitor.
+     */
+    protected void mutate(final LaneState lane, final Consumer<LaneState> mutation) {
+        mutation.accept(lane);
+    }
+
+    protected LaneState getLane(final String laneId) {
+        return lanes.get(laneId);
+    }
+
+    /**
+     * Updates the index after the lane was changed without {@link #update}, while holding the lane's monitor
+     * or before the store is in use.
+     */
+    protected void reindex(final LaneState lane) {
+        index.put(lane);
+    }
+
+    private void put(final Lane lane) {
+        final LaneState state = LaneState.of(lane);
+        index.put(state);
+        lanes.put(lane.getId(), state);
+        laneIds.add(lane.getId());
+    }
+
+    private List<Lane> snapshots(final List<String> ids) {
+        final List<Lane> snapshots = new ArrayList<>(ids.size());
+        for (final String laneId : ids) {
+            final LaneState lane = lanes.get(laneId);
+            if (lane != null) {
+                snapshots.add(snapshot(lane));
+            }
+        }
+        return snapshots;
+    }
+
+    private Lane apply(final String laneId, final Consumer<LaneState> mutation) {
+        final LaneState lane = lanes.get(laneId);
+        if (lane == null) {
+            return null;
+        }
+        final Lane updated;
+        synchronized (lane) {
+            mutate(lane, mutation);
+            lane.incrementVersion();
+            index.put(lane);
+            updated = lane.toLane();
+        }
+        changes.incrementAndGet();
+        markDirty(laneId);
+        return updated;
+    }
+
+    private static Lane snapshot(final LaneState lane) {
+        synchronized (lane) {
+            return lane.toLane();
+        }
+    }
+
+    protected void markDirty(final String laneId) {
+        dirtyLanes.add(laneId);
+        if (dirtyLanes.size() >= maxPendingWrites && flushRequested.compareAndSet(false, true)
+                && !flusher.isShutdown()) {
+            flusher.execute(this::flush);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.tba.cranecontrol.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.tba.cranecontrol.model.JournalCheckpoint;
+
+@Repository
+public interface JournalCheckpointRepository extends MongoRepository<JournalCheckpoint, String> {
+}
@@ -0,0 +1,199 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.tba.cranecontrol.model.CraneMoveEvent;
+import com.tba.cranecontrol.model.JournalCheckpoint;
+import com.tba.cranecontrol.model.LaneState;
+
+/**
+ * {@link InMemoryLaneStore} that records every crane move as an event appended to a journal instead
+ * of rewriting the lane. Events are written in groups every {@code commit-interval-ms} (or sooner
+ * once {@code max-batch-size} are pending) with one insertMany. The lane documents become snapshots
+ * written every {@code snapshot-interval-ms}, after which a checkpoint records the last event they
+ * include. On startup the snapshots are loaded and only the events after the checkpoint replayed.
+ * <p>
+ * Like the memory mode, a move is answered before its event is written, so a crash loses at most the
+ * moves of the last commit interval.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "cranecontrol.store", name = "mode", havingValue = "journal")
+public class JournalLaneStore extends InMemoryLaneStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JournalLaneStore.class);
+
+    private final CraneMoveEventRepository eventRepository;
+    private final JournalCheckpointRepository checkpointRepository;
+    private final long commitIntervalMs;
+    private final int maxBatchSize;
+    private final Queue<CraneMoveEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingEventCount = new AtomicInteger();
+    private final AtomicBoolean commitRequested = new AtomicBoolean();
+    private final ScheduledExecutorService committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "Lane Journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private List<CraneMoveEvent> failedBatch = List.of();
+    private volatile String lastEventId;
+    private String checkpointEventId;
+
+    public JournalLaneStore(
+            final LaneRepository laneRepository,
+            final CraneMoveEventRepository eventRepository,
+            final JournalCheckpointRepository checkpointRepository,
+            @Value("${cranecontrol.store.journal.snapshot-interval-ms:60000}") final long snapshotIntervalMs,
+            @Value("${cranecontrol.store.journal.max-snapshot-lanes:100000}") final int maxSnapshotLanes,
+            @Value("${cranecontrol.store.journal.commit-interval-ms:10}") final long commitIntervalMs,
+            @Value("${cranecontrol.store.journal.max-batch-size:1000}") final int maxBatchSize
+    ) {
+        super(laneRepository, snapshotIntervalMs, maxSnapshotLanes);
+        this.eventRepository = eventRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.commitIntervalMs = commitIntervalMs;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Stops committing, writes the pending events and then the last snapshots.
+     */
+    @Override
+    public void shutdown() throws InterruptedException {
+        committer.shutdown();
+        committer.awaitTermination(commitIntervalMs * 10, TimeUnit.MILLISECONDS);
+        commit();
+        super.shutdown();
+    }
+
+    public int getPendingEvents() {
+        return pendingEventCount.get();
+    }
+
+    /**
+     * Writes the pending events in batches of {@code max-batch-size}, in the order the moves were
+     * applied. A batch that fails is retried first on the next commit.
+     */
+    public synchronized void commit() {
+        commitRequested.set(false);
+        while (true) {
+            final List<CraneMoveEvent> batch = failedBatch.isEmpty() ? drain() : failedBatch;
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                eventRepository.insert(batch);
+                failedBatch = List.of();
+                pendingEventCount.addAndGet(-batch.size());
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to commit {} crane move events, retrying on the next commit.", batch.size(), e);
+                failedBatch = batch;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshots of the lanes changed since the last one, then moves the checkpoint to the
+     * last event applied before they were taken.
+     */
+    @Override
+    public synchronized void flush() {
+        final String snapshotEventId = lastEventId;
+        if (flushDirtyLanes() && snapshotEventId != null && !snapshotEventId.equals(checkpointEventId)) {
+            try {
+                checkpointRepository.save(new JournalCheckpoint(JournalCheckpoint.LANES, snapshotEventId));
+                checkpointEventId = snapshotEventId;
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to save the journal checkpoint, retrying on the next snapshot.", e);
+            }
+        }
+    }
+
+    /**
+     * Replays the events written after the checkpoint on top of the snapshots. Events carry absolute
+     * positions, so the moves of the version a snapshot already has can be replayed again harmlessly,
+     * while the older ones are skipped.
+     */
+    @Override
+    protected void loaded() {
+        checkpointEventId = checkpointRepository.findById(JournalCheckpoint.LANES)
+                .map(JournalCheckpoint::getLastEventId)
+                .orElse(null);
+        lastEventId = checkpointEventId;
+        eventRepository.streamAfter(checkpointEventId, event -> {
+            final LaneState lane = getLane(event.getLaneId());
+            if (lane != null && event.getVersion() >= lane.getVersion()) {
+                final int index = event.getLaneOrder().ordinal();
+                lane.setCranePosition(index, event.getToPosition());
+                for (int pushed = 1; pushed <= event.getPushedCranes(); pushed++) {
+                    lane.setCranePosition(index + pushed, event.getToPosition() + pushed);
+                }
+                lane.setVersion(event.getVersion());
+                reindex(lane);
+                markDirty(lane.getId());
+            }
+            lastEventId = event.getId();
+        });
+        committer.scheduleWithFixedDelay(this::commit, commitIntervalMs, commitIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records an event for every move the mutation applies. They're queued only if the mutation
+     * succeeds, once the lane is marked dirty, and get their ids as they're queued so every event up to
+     * {@code lastEventId} belongs to a lane the next snapshot includes.
+     */
+    @Override
+    protected void mutate(final LaneState lane, final Consumer<LaneState> mutation) {
+        final long version = lane.getVersion() + 1;
+        final List<Function<String, CraneMoveEvent>> moves = new ArrayList<>(1);
+        lane.setMoveListener((laneOrder, fromPosition, toPosition, pushedCranes) -> moves.add(id -> new CraneMoveEvent(
+                id, lane.getId(), version, laneOrder, fromPosition, toPosition, pushedCranes
+        )));
+        try {
+            super.mutate(lane, mutation);
+        } finally {
+            lane.setMoveListener(null);
+        }
+        if (moves.isEmpty()) {
+            return;
+        }
+        markDirty(lane.getId());
+        synchronized (pendingEvents) {
+            for (final Function<String, CraneMoveEvent> move : moves) {
+                final CraneMoveEvent event = move.apply(new ObjectId().toHexString());
+                pendingEvents.add(event);
+                lastEventId = event.getId();
+            }
+        }
+        if (pendingEventCount.addAndGet(moves.size()) >= maxBatchSize && commitRequested.compareAndSet(false, true)
+                && !committer.isShutdown()) {
+            committer.execute(this::commit);
+        }
+    }
+
+    private List<CraneMoveEvent> drain() {
+        final List<CraneMoveEvent> batch = new ArrayList<>(Math.min(maxBatchSize, pendingEventCount.get()));
+        CraneMoveEvent event;
+        while (batch.size() < maxBatchSize && (event = pendingEvents.poll()) != null) {
+            batch.add(event);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,29 @@
+package com.tba.cranecontrol.repository;
+
+import org.bson.BsonDocument;
+
+import com.tba.cranecontrol.model.Lane;
+
+/**
+ * Receives the changes of the lane collection from {@link LaneRepositoryCustom#watchChanges}, in the
+ * order they were made.
+ */
+public interface LaneChangeListener {
+
+    /**
+     * The stream is open, every change made from now on will follow.
+     *
+     * @param resumed whether it picked up right after the resume token, otherwise changes made while
+     *                it was closed are missing
+     */
+    void opened(boolean resumed);
+
+    void changed(Lane lane);
+
+    void deleted(String laneId);
+
+    /**
+     * Called after every change, and whenever the server answered without one, with the token to resume after.
+     */
+    void advanced(BsonDocument resumeToken);
+}
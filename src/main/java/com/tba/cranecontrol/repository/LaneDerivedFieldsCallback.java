@@ -0,0 +1,22 @@
+package com.tba.cranecontrol.repository;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Component;
+
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneState;
+
+/**
+ * Adds the fields derived from the crane positions to every lane document inserted or saved, see
+ * {@link LaneQueries}.
+ */
+@Component
+public class LaneDerivedFieldsCallback implements BeforeSaveCallback<Lane> {
+
+    @Override
+    public Lane onBeforeSave(final Lane lane, final Document document, final String collection) {
+        document.putAll(LaneQueries.derivedFields(LaneState.of(lane)));
+        return lane;
+    }
+}
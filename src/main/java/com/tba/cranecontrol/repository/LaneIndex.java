@@ -0,0 +1,79 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.LaneWindow;
+
+/**
+ * Lane ids by crane state, for the stores that see every change of every lane: the parked lanes ordered
+ * by id, and every lane ordered by working window. Finding a page costs a skip list seek plus the page,
+ * whatever the number of lanes, and so does updating a lane.
+ * <p>
+ * Lookups may run at any time, but the updates of a lane must not overlap, the stores already serialize
+ * them with the lane's lock.
+ */
+final class LaneIndex {
+
+    private final NavigableSet<String> parked = new ConcurrentSkipListSet<>();
+    private final NavigableSet<LaneWindow> windows = new ConcurrentSkipListSet<>();
+    private final Map<String, LaneWindow> laneWindows = new ConcurrentHashMap<>();
+
+    void put(final LaneState lane) {
+        if (lane.isParked()) {
+            parked.add(lane.getId());
+        } else {
+            parked.remove(lane.getId());
+        }
+        final LaneWindow window = new LaneWindow(lane.getWorkingWindow(), lane.getId());
+        final LaneWindow previous = laneWindows.put(lane.getId(), window);
+        if (!window.equals(previous)) {
+            if (previous != null) {
+                windows.remove(previous);
+            }
+            windows.add(window);
+        }
+    }
+
+    void remove(final String laneId) {
+        parked.remove(laneId);
+        final LaneWindow previous = laneWindows.remove(laneId);
+        if (previous != null) {
+            windows.remove(previous);
+        }
+    }
+
+    /**
+     * @param afterId id of the last lane of the previous page, {@code null} for the first page
+     */
+    List<String> findParked(final String afterId, final int limit) {
+        final List<String> page = new ArrayList<>(limit);
+        final Iterator<String> ids = (afterId == null ? parked : parked.tailSet(afterId, false)).iterator();
+        while (page.size() < limit && ids.hasNext()) {
+            page.add(ids.next());
+        }
+        return page;
+    }
+
+    /**
+     * @param after the last lane of the previous page, {@code null} for the first page
+     */
+    List<String> findByWorkingWindow(final int minWindow, final LaneWindow after, final int limit) {
+        final List<String> page = new ArrayList<>(limit);
+        final Iterator<LaneWindow> entries = (after == null ? windows : windows.tailSet(after, false)).iterator();
+        while (page.size() < limit && entries.hasNext()) {
+            final LaneWindow entry = entries.next();
+            if (entry.getWindow() < minWindow) {
+                break;
+            }
+            page.add(entry.getLaneId());
+        }
+        return page;
+    }
+}
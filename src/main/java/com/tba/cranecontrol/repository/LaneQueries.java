@@ -0,0 +1,238 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.LaneWindow;
+
+/**
+ * Queries and updates on the lane collection shared by the blocking and the reactive repositories.
+ * <p>
+ * Besides the {@link Lane} itself every lane document holds fields derived from its crane positions, so
+ * they can be indexed: {@value #PARKED}, from {@link LaneState#isParked()}, and {@value #WORKING_WINDOW},
+ * from {@link LaneState#getWorkingWindow()}. Every write keeps them up to date.
+ */
+final class LaneQueries {
+
+    static final String PARKED = "parked";
+    static final String WORKING_WINDOW = "workingWindow";
+
+    private LaneQueries() {
+    }
+
+    static Query page(final String afterId, final int limit) {
+        final Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id")).limit(limit);
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("id").gt(idValue(afterId)));
+        }
+        return query;
+    }
+
+    /**
+     * Matches the lane only if it still has the version and crane positions of {@code current}.
+     */
+    static Query expectedState(final Lane current) {
+        final Criteria criteria = Criteria.where("id").is(current.getId()).and("version").is(current.getVersion());
+        final List<Crane> cranes = current.getCranes();
+        for (int index = 0; index < cranes.size(); index++) {
+            criteria.and(cranePositionPath(index)).is(cranes.get(index).getCurrentPosition());
+        }
+        return Query.query(criteria);
+    }
+
+    /**
+     * Parked lanes, paged like {@link #page}.
+     */
+    static Query parked(final String afterId, final int limit) {
+        return page(afterId, limit).addCriteria(Criteria.where(PARKED).is(true));
+    }
+
+    /**
+     * Lanes with a working window of at least {@code minWindow}, in the order of {@link LaneWindow}:
+     * largest window first, then by id.
+     */
+    static Query byWorkingWindow(final int minWindow, final LaneWindow after, final int limit) {
+        final Criteria criteria = Criteria.where(WORKING_WINDOW).gte(minWindow);
+        if (after != null) {
+            criteria.orOperator(
+                    Criteria.where(WORKING_WINDOW).lt(after.getWindow()),
+                    Criteria.where(WORKING_WINDOW).is(after.getWindow()).and("id").gt(idValue(after.getLaneId()))
+            );
+        }
+        return Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, WORKING_WINDOW).and(Sort.by(Sort.Direction.ASC, "id")))
+                .limit(limit);
+    }
+
+    /**
+     * Lanes stored before the derived fields existed.
+     */
+    static Query withoutDerivedFields() {
+        return Query.query(Criteria.where(WORKING_WINDOW).exists(false));
+    }
+
+    static Document derivedFields(final LaneState lane) {
+        return new Document(PARKED, lane.isParked()).append(WORKING_WINDOW, lane.getWorkingWindow());
+    }
+
+    /**
+     * Update pipeline stage computing the derived fields from the stored crane positions, the cranes
+     * being in lane order.
+     */
+    static Document derivedFieldsStage() {
+        final Document craneCount = new Document("$size", "$cranes");
+        final Document homePosition = new Document("$cond", List.of(
+                new Document("$eq", List.of("$$index", 0)),
+                0,
+                new Document("$add", List.of(
+                        "$positions", 1, "$$index", new Document("$subtract", List.of(1, craneCount))
+                ))
+        ));
+        final Document atHome = new Document("$map", new Document("input", range(0, craneCount))
+                .append("as", "index")
+                .append("in", new Document("$eq", List.of(storedPosition("$$index"), homePosition))));
+        final Document previousPosition = storedPosition(new Document("$subtract", List.of("$$index", 1)));
+        final Document gaps = new Document("$map", new Document("input", range(1, craneCount))
+                .append("as", "index")
+                .append("in", new Document("$subtract", List.of(
+                        storedPosition("$$index"), new Document("$add", List.of(previousPosition, 1))
+                ))));
+        final Document workingWindow = new Document("$max", List.of(
+                0, new Document("$ifNull", List.of(new Document("$max", gaps), 0))
+        ));
+        return new Document("$set", new Document(PARKED, new Document("$allElementsTrue", List.of(atHome)))
+                .append(WORKING_WINDOW, workingWindow));
+    }
+
+    /**
+     * Sets the position of the cranes that moved between {@code current} and {@code updated}, and
+     * the version and derived fields of {@code updated}.
+     */
+    static Update craneChanges(final Lane current, final Lane updated) {
+        final LaneState state = LaneState.of(updated);
+        final Update update = new Update()
+                .set("version", updated.getVersion())
+                .set(PARKED, state.isParked())
+                .set(WORKING_WINDOW, state.getWorkingWindow());
+        final List<Crane> cranes = current.getCranes();
+        for (int index = 0; index < cranes.size(); index++) {
+            final Crane crane = cranes.get(index);
+            final Integer newPosition = positionOf(updated, crane);
+            if (!Objects.equals(newPosition, crane.getCurrentPosition())) {
+                update.set(cranePositionPath(index), newPosition);
+            }
+        }
+        return update;
+    }
+
+    /**
+     * Matches the lane only if the lane rules allow the move: the crane is stored at the index of its
+     * lane order, the crane before it is below the desired position and every crane after it that gets
+     * pushed stays within the lane. A lane has at most one crane per lane order, so each index a pushed
+     * crane could have is checked.
+     */
+    static Query craneMove(final CraneMove move) {
+        final int index = move.getLaneOrder().ordinal();
+        final int desiredPosition = move.getDesiredPosition();
+        final Criteria criteria = Criteria.where("id").is(move.getLaneId())
+                .and(craneOrderPath(index)).is(move.getLaneOrder())
+                .and("positions").gte(desiredPosition);
+        if (index > 0) {
+            criteria.and(cranePositionPath(index - 1)).lt(desiredPosition);
+        }
+        final List<Criteria> pushedCranes = new ArrayList<>();
+        for (int pushed = index + 1; pushed < LaneOrder.values().length; pushed++) {
+            final int pushedPosition = desiredPosition + pushed - index;
+            pushedCranes.add(new Criteria().orOperator(
+                    Criteria.where("cranes." + pushed).exists(false),
+                    Criteria.where(cranePositionPath(pushed)).gte(pushedPosition),
+                    Criteria.where("positions").gte(pushedPosition - 1)
+            ));
+        }
+        if (!pushedCranes.isEmpty()) {
+            criteria.andOperator(pushedCranes.toArray(new Criteria[0]));
+        }
+        return Query.query(criteria);
+    }
+
+    /**
+     * Moves the crane to the desired position and pushes every crane after it to at least the position
+     * right after the one before it, then increments the version and updates the derived fields. It is
+     * an update pipeline, so the pushed positions are computed from the stored ones; it relies on
+     * {@link #craneMove} having checked the move.
+     */
+    static AggregationUpdate craneMoveUpdate(final CraneMove move) {
+        final int index = move.getLaneOrder().ordinal();
+        final int desiredPosition = move.getDesiredPosition();
+        final Document storedPosition = storedPosition("$$index");
+        final Document newPosition = new Document("$switch", new Document("branches", List.of(
+                new Document("case", new Document("$lt", List.of("$$index", index))).append("then", storedPosition),
+                new Document("case", new Document("$eq", List.of("$$index", index))).append("then", desiredPosition)
+        )).append("default", new Document("$max", List.of(
+                storedPosition,
+                new Document("$add", List.of("$$index", desiredPosition - index))
+        ))));
+        final Document cranes = new Document("$map", new Document("input", range(0, new Document("$size", "$cranes")))
+                .append("as", "index")
+                .append("in", new Document("$mergeObjects", List.of(
+                        new Document("$arrayElemAt", List.of("$cranes", "$$index")),
+                        new Document("currentPosition", newPosition)
+                ))));
+        final Document version = new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L));
+        final Document set = new Document("$set", new Document("cranes", cranes).append("version", version));
+        final Document derivedFields = derivedFieldsStage();
+        return AggregationUpdate.from(List.<AggregationOperation>of(context -> set, context -> derivedFields));
+    }
+
+    private static Document storedPosition(final Object index) {
+        return new Document("$arrayElemAt", List.of("$cranes.currentPosition", index));
+    }
+
+    private static Document range(final int from, final Object to) {
+        return new Document("$range", List.of(from, to));
+    }
+
+    private static Object idValue(final String laneId) {
+        return ObjectId.isValid(laneId) ? new ObjectId(laneId) : laneId;
+    }
+
+    private static String cranePositionPath(final int index) {
+        return "cranes." + index + ".currentPosition";
+    }
+
+    private static String craneOrderPath(final int index) {
+        return "cranes." + index + ".laneOrder";
+    }
+
+    /**
+     * Cranes are usually listed in lane order, so the crane at the same index is checked before the others.
+     */
+    private static Integer positionOf(final Lane lane, final Crane crane) {
+        final List<Crane> cranes = lane.getCranes();
+        final int index = crane.getLaneOrder().ordinal();
+        if (index < cranes.size() && cranes.get(index).getLaneOrder() == crane.getLaneOrder()) {
+            return cranes.get(index).getCurrentPosition();
+        }
+        return cranes
+                .stream()
+                .filter(c -> c.getLaneOrder() == crane.getLaneOrder())
+                .findFirst()
+                .map(Crane::getCurrentPosition)
+                .orElse(crane.getCurrentPosition());
+    }
+}
@@ -6,5 +6,5 @@ import org.springframework.stereotype.Repository;
 import com.tba.cranecontrol.model.Lane;
 
 @Repository
-public interface LaneRepository extends MongoRepository<Lane, String> {
+public interface LaneRepository extends MongoRepository<Lane, String>, LaneRepositoryCustom {
 }
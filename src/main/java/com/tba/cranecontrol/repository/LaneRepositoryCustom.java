@@ -0,0 +1,78 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.bson.BsonDocument;
+
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneWindow;
+
+public interface LaneRepositoryCustom {
+
+    /**
+     * @param afterId id of the last lane of the previous page, {@code null} for the first page
+     * @return at most {@code limit} lanes with an id greater than {@code afterId}, ordered by id
+     */
+    List<Lane> findPage(String afterId, int limit);
+
+    /**
+     * @see com.tba.cranecontrol.repository.LaneStore#findParked(String, int)
+     */
+    List<Lane> findParked(String afterId, int limit);
+
+    /**
+     * @see com.tba.cranecontrol.repository.LaneStore#findByWorkingWindow(int, LaneWindow, int)
+     */
+    List<Lane> findByWorkingWindow(int minWindow, LaneWindow after, int limit);
+
+    /**
+     * Creates the indexes on the fields derived from the crane positions, and sets them on the lanes
+     * stored before they existed.
+     */
+    void indexDerivedFields();
+
+    /**
+     * Reads every lane through a cursor, handing them to the action as they arrive.
+     */
+    void streamAll(Consumer<Lane> action);
+
+    /**
+     * Writes the crane positions of {@code updated} with a single findAndModify, provided the stored
+     * lane still has the version and crane positions of {@code current}. Only the cranes that moved
+     * are written, along with the version of {@code updated}.
+     *
+     * @return the stored lane after the update, or empty when the lane was changed concurrently
+     */
+    Optional<Lane> compareAndSetCranes(Lane current, Lane updated);
+
+    /**
+     * Applies the move with a single findAndModify that only matches the lane when the lane rules allow
+     * it, pushing the cranes in the way and incrementing the version.
+     *
+     * @return the stored lane before the move, or empty when the lane doesn't exist, the move is
+     * rejected, or the cranes aren't stored in lane order
+     */
+    Optional<Lane> moveCrane(CraneMove move);
+
+    /**
+     * Same conditional update as {@link #compareAndSetCranes(Lane, Lane)} for many lanes in one
+     * unordered bulkWrite, without upserts. {@code currentLanes} and {@code updatedLanes} are matched by index.
+     *
+     * @return the ids of the lanes that were written, the others were changed or deleted concurrently
+     */
+    Set<String> compareAndSetAllCranes(List<Lane> currentLanes, List<Lane> updatedLanes);
+
+    /**
+     * Follows the change stream of the lane collection, with the full lane for inserts and updates,
+     * until the thread is interrupted or the collection is dropped or renamed. Needs a replica set.
+     *
+     * @param resumeToken where to resume, {@code null} to start from now
+     * @param maxAwaitMs  how long the server waits for a change before answering without one
+     * @throws com.mongodb.MongoException when the stream fails, or can't resume after the token
+     */
+    void watchChanges(BsonDocument resumeToken, long maxAwaitMs, LaneChangeListener listener);
+}
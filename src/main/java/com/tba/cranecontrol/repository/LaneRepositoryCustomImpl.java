@@ -0,0 +1,199 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneWindow;
+
+public class LaneRepositoryCustomImpl implements LaneRepositoryCustom {
+
+    private final MongoOperations mongoOperations;
+
+    public LaneRepositoryCustomImpl(final MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public List<Lane> findPage(final String afterId, final int limit) {
+        return mongoOperations.find(LaneQueries.page(afterId, limit), Lane.class);
+    }
+
+    @Override
+    public List<Lane> findParked(final String afterId, final int limit) {
+        return mongoOperations.find(LaneQueries.parked(afterId, limit), Lane.class);
+    }
+
+    @Override
+    public List<Lane> findByWorkingWindow(final int minWindow, final LaneWindow after, final int limit) {
+        return mongoOperations.find(LaneQueries.byWorkingWindow(minWindow, after, limit), Lane.class);
+    }
+
+    /**
+     * The derived fields of the older lanes are set by a single updateMany, which only has work to do
+     * the first time.
+     */
+    @Override
+    public void indexDerivedFields() {
+        final IndexOperations indexes = mongoOperations.indexOps(Lane.class);
+        indexes.ensureIndex(new Index()
+                .on(LaneQueries.PARKED, Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC));
+        indexes.ensureIndex(new Index()
+                .on(LaneQueries.WORKING_WINDOW, Sort.Direction.DESC)
+                .on("_id", Sort.Direction.ASC));
+        final Document derivedFields = LaneQueries.derivedFieldsStage();
+        mongoOperations.updateMulti(
+                LaneQueries.withoutDerivedFields(),
+                AggregationUpdate.from(List.<AggregationOperation>of(context -> derivedFields)),
+                Lane.class
+        );
+    }
+
+    @Override
+    public void streamAll(final Consumer<Lane> action) {
+        try (CloseableIterator<Lane> lanes = mongoOperations.stream(new Query(), Lane.class)) {
+            lanes.forEachRemaining(action);
+        }
+    }
+
+    /**
+     * Inserts, updates and replaces are read back as lanes from their full document. A drop, rename
+     * or invalidate ends the stream, as the lanes it was following may not exist anymore.
+     */
+    @Override
+    public void watchChanges(final BsonDocument resumeToken, final long maxAwaitMs, final LaneChangeListener listener) {
+        ChangeStreamIterable<Document> stream = mongoOperations.getCollection(mongoOperations.getCollectionName(Lane.class))
+                .watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(maxAwaitMs, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            listener.opened(resumeToken != null);
+            while (!Thread.currentThread().isInterrupted()) {
+                final ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    switch (change.getOperationType()) {
+                        case INSERT:
+                        case UPDATE:
+                        case REPLACE:
+                            if (change.getFullDocument() != null) {
+                                listener.changed(mongoOperations.getConverter().read(Lane.class, change.getFullDocument()));
+                            }
+                            break;
+                        case DELETE:
+                            listener.deleted(laneId(change.getDocumentKey().get("_id")));
+                            break;
+                        default:
+                            return;
+                    }
+                }
+                if (cursor.getResumeToken() != null) {
+                    listener.advanced(cursor.getResumeToken());
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<Lane> compareAndSetCranes(final Lane current, final Lane updated) {
+        return Optional.ofNullable(mongoOperations.findAndModify(
+                LaneQueries.expectedState(current),
+                LaneQueries.craneChanges(current, updated),
+                FindAndModifyOptions.options().returnNew(true),
+                Lane.class
+        ));
+    }
+
+    @Override
+    public Optional<Lane> moveCrane(final CraneMove move) {
+        return Optional.ofNullable(mongoOperations.findAndModify(
+                LaneQueries.craneMove(move),
+                LaneQueries.craneMoveUpdate(move),
+                FindAndModifyOptions.options().returnNew(false),
+                Lane.class
+        ));
+    }
+
+    /**
+     * When fewer lanes matched than were sent, the lanes are read back to tell which ones hold the
+     * written state. The others were changed or deleted concurrently.
+     */
+    @Override
+    public Set<String> compareAndSetAllCranes(final List<Lane> currentLanes, final List<Lane> updatedLanes) {
+        if (currentLanes.isEmpty()) {
+            return Set.of();
+        }
+        final BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Lane.class);
+        final Set<String> laneIds = new HashSet<>(currentLanes.size());
+        for (int index = 0; index < currentLanes.size(); index++) {
+            bulkOperations.updateOne(
+                    LaneQueries.expectedState(currentLanes.get(index)),
+                    LaneQueries.craneChanges(currentLanes.get(index), updatedLanes.get(index))
+            );
+            laneIds.add(currentLanes.get(index).getId());
+        }
+        if (bulkOperations.execute().getMatchedCount() == currentLanes.size()) {
+            return laneIds;
+        }
+        final Map<String, Lane> storedLanes = new HashMap<>(currentLanes.size());
+        for (final Lane lane : mongoOperations.find(Query.query(Criteria.where("id").in(laneIds)), Lane.class)) {
+            storedLanes.put(lane.getId(), lane);
+        }
+        final Set<String> written = new HashSet<>(updatedLanes.size());
+        for (final Lane updated : updatedLanes) {
+            final Lane stored = storedLanes.get(updated.getId());
+            if (stored != null && hasSameCranes(stored, updated)) {
+                written.add(updated.getId());
+            }
+        }
+        return written;
+    }
+
+    private static boolean hasSameCranes(final Lane stored, final Lane updated) {
+        if (!Objects.equals(stored.getVersion(), updated.getVersion())
+                || stored.getCranes().size() != updated.getCranes().size()) {
+            return false;
+        }
+        for (int index = 0; index < stored.getCranes().size(); index++) {
+            if (!Objects.equals(stored.getCranes().get(index).getCurrentPosition(),
+                    updated.getCranes().get(index).getCurrentPosition())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String laneId(final BsonValue id) {
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+}
@@ -0,0 +1,115 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.LaneWindow;
+
+/**
+ * Source of truth for lane state used by the service layer.
+ * The active implementation is chosen with the {@code cranecontrol.store.mode} property.
+ */
+public interface LaneStore {
+
+    Optional<Lane> findById(String laneId);
+
+    /**
+     * Version of the lane, for stores that know it without reading the lane from the database.
+     *
+     * @return empty when the version isn't known in memory or there is no such lane
+     */
+    default Optional<Long> findVersion(final String laneId) {
+        return Optional.empty();
+    }
+
+    /**
+     * Tag that changes whenever a lane is created or changed, for stores that see every change.
+     *
+     * @return empty when other instances or processes may change lanes without this store knowing
+     */
+    default Optional<String> findAggregateVersion() {
+        return Optional.empty();
+    }
+
+    List<Lane> findAll();
+
+    /**
+     * Keyset pagination ordered by lane id.
+     *
+     * @param afterId id of the last lane of the previous page, {@code null} for the first page
+     */
+    List<Lane> findPage(String afterId, int limit);
+
+    /**
+     * Hands every lane to the action one at a time, without holding all of them in memory.
+     */
+    void streamAll(Consumer<Lane> action);
+
+    /**
+     * Lanes with every crane at its {@link LaneState#homePosition home position}, ordered by id. Answered
+     * from an index, never by reading every lane.
+     *
+     * @param afterId id of the last lane of the previous page, {@code null} for the first page
+     */
+    List<Lane> findParked(String afterId, int limit);
+
+    /**
+     * Lanes with a {@link LaneState#getWorkingWindow() working window} of at least {@code minWindow}
+     * positions, largest window first. Answered from an index, never by reading every lane.
+     *
+     * @param after the last lane of the previous page, {@code null} for the first page
+     */
+    List<Lane> findByWorkingWindow(int minWindow, LaneWindow after, int limit);
+
+    /**
+     * Stores new lanes with a single batched insert and returns them with their generated ids.
+     */
+    List<Lane> insertAll(List<Lane> lanes);
+
+    /**
+     * Atomically applies the mutation to the lane and increments its version. The mutation changes the
+     * {@link LaneState} in place; when it throws it must do so before changing anything, the exception
+     * is propagated and the lane is left untouched.
+     *
+     * @return the lane after the update
+     * @throws com.tba.cranecontrol.exception.NotFoundException when there is no lane for the given id
+     */
+    Lane update(String laneId, Consumer<LaneState> mutation);
+
+    /**
+     * Same as {@link #update} for stores that may hold the update back to write it together with the
+     * following updates of the lane. By default the update is applied before returning.
+     *
+     * @return the lane after this update, completed exceptionally with what {@link #update} would throw
+     */
+    default CompletableFuture<Lane> submit(final String laneId, final Consumer<LaneState> mutation) {
+        try {
+            return CompletableFuture.completedFuture(update(laneId, mutation));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Same as {@link #submit} for a single crane move, {@code mutation} being the one applying {@code move}
+     * by the lane rules. Stores that can check the rules in the backend write the move without reading the
+     * lane first and only run the mutation to report the outcome. By default the mutation is submitted.
+     */
+    default CompletableFuture<Lane> submitMove(final CraneMove move, final Consumer<LaneState> mutation) {
+        return submit(move.getLaneId(), mutation);
+    }
+
+    /**
+     * Applies each mutation atomically to its own lane, batching the writes where the backend allows it.
+     * Lanes that do not exist, or that kept being changed concurrently, are left out of the result.
+     *
+     * @return the updated lanes by id
+     */
+    Map<String, Lane> updateAll(Map<String, Consumer<LaneState>> mutations);
+}
@@ -0,0 +1,427 @@
+package com.tba.cranecontrol.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.LaneWindow;
+
+/**
+ * Keeps the lanes in a local memory-mapped file instead of Mongo, for deployments that must keep
+ * working without a database. The file is a header followed by fixed-size records:
+ * <pre>
+ *   header: magic (int), record count (int), crane slots (int), padding up to {@value #HEADER_SIZE} bytes
+ *   record: ObjectId (12 bytes), positions (int), version (long), crane positions (int per slot, -1 if none)
+ * </pre>
+ * New files get a slot for every {@link LaneOrder}.
+ * Lookups by id go through an in-memory index of record slots, and moves overwrite the crane positions
+ * and version of the record in place. When the file is forced to disk depends on {@code sync}.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "cranecontrol.store", name = "mode", havingValue = "mapped")
+public class MappedLaneStore implements LaneStore {
+
+    /**
+     * {@code always} forces the file after every write, {@code interval} every {@code sync-interval-ms}
+     * and {@code never} leaves it to the operating system.
+     */
+    public enum Sync {
+        ALWAYS, INTERVAL, NEVER
+    }
+
+    static final int HEADER_SIZE = 64;
+
+    private static final int MAGIC = 0x4C414E45;
+    private static final int COUNT_OFFSET = 4;
+    private static final int CRANE_SLOTS_OFFSET = 8;
+    private static final int ID_SIZE = 12;
+    private static final int POSITIONS_OFFSET = ID_SIZE;
+    private static final int VERSION_OFFSET = POSITIONS_OFFSET + 4;
+    private static final int CRANES_OFFSET = VERSION_OFFSET + 8;
+    private static final int LOCK_STRIPES = 64;
+    private static final LaneOrder[] LANE_ORDERS = LaneOrder.values();
+
+    private final Path path;
+    private final int initialCapacity;
+    private final Sync sync;
+    private final long syncIntervalMs;
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private final NavigableSet<String> laneIds = new ConcurrentSkipListSet<>();
+    private final LaneIndex laneIndex = new LaneIndex();
+    private final Object[] recordLocks = new Object[LOCK_STRIPES];
+    private final ReadWriteLock mappingLock = new ReentrantReadWriteLock();
+    private final AtomicLong changes = new AtomicLong();
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "Lane File Sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private String[] ids;
+    private int count;
+    private int craneSlots;
+    private int recordSize;
+
+    public MappedLaneStore(
+            @Value("${cranecontrol.store.mapped.path:lanes.dat}") final String path,
+            @Value("${cranecontrol.store.mapped.initial-capacity:1024}") final int initialCapacity,
+            @Value("${cranecontrol.store.mapped.sync:interval}") final String sync,
+            @Value("${cranecontrol.store.mapped.sync-interval-ms:1000}") final long syncIntervalMs
+    ) {
+        this.path = Paths.get(path);
+        this.initialCapacity = initialCapacity;
+        this.sync = Sync.valueOf(sync.toUpperCase(Locale.ROOT));
+        this.syncIntervalMs = syncIntervalMs;
+        for (int stripe = 0; stripe < LOCK_STRIPES; stripe++) {
+            recordLocks[stripe] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final boolean created = channel.size() == 0;
+        craneSlots = created ? LANE_ORDERS.length : readCraneSlots();
+        recordSize = CRANES_OFFSET + 4 * craneSlots;
+        final int capacity = created
+                ? initialCapacity
+                : Math.max(initialCapacity, (int) ((channel.size() - HEADER_SIZE) / recordSize));
+        map(capacity);
+        if (created) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(COUNT_OFFSET, 0);
+            buffer.putInt(CRANE_SLOTS_OFFSET, craneSlots);
+        } else if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException(path + " is not a lane file.");
+        }
+        count = buffer.getInt(COUNT_OFFSET);
+        ids = new String[capacity];
+        for (int slot = 0; slot < count; slot++) {
+            index(slot, readId(slot));
+            laneIndex.put(read(slot));
+        }
+        if (sync == Sync.INTERVAL) {
+            syncer.scheduleWithFixedDelay(this::force, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        syncer.shutdown();
+        syncer.awaitTermination(syncIntervalMs * 10, TimeUnit.MILLISECONDS);
+        force();
+        channel.close();
+    }
+
+    @Override
+    public Optional<Lane> findById(final String laneId) {
+        final Integer slot = slots.get(laneId);
+        return slot == null ? Optional.empty() : Optional.of(read(slot).toLane());
+    }
+
+    @Override
+    public Optional<Long> findVersion(final String laneId) {
+        final Integer slot = slots.get(laneId);
+        return slot == null ? Optional.empty() : Optional.of(readVersion(slot));
+    }
+
+    /**
+     * The number of changes since the file was opened, prefixed with the time it was opened.
+     */
+    @Override
+    public Optional<String> findAggregateVersion() {
+        return Optional.of(epoch + "-" + changes.get());
+    }
+
+    @Override
+    public List<Lane> findAll() {
+        final List<Lane> all = new ArrayList<>(slots.size());
+        streamAll(all::add);
+        return all;
+    }
+
+    /**
+     * Lane ids are ObjectIds in hex, so ordering them as strings gives the same order as Mongo.
+     */
+    @Override
+    public List<Lane> findPage(final String afterId, final int limit) {
+        final List<Lane> page = new ArrayList<>(limit);
+        final Iterator<String> pageIds = (afterId == null ? laneIds : laneIds.tailSet(afterId, false)).iterator();
+        while (page.size() < limit && pageIds.hasNext()) {
+            page.add(read(slots.get(pageIds.next())).toLane());
+        }
+        return page;
+    }
+
+    @Override
+    public void streamAll(final Consumer<Lane> action) {
+        final int lanes;
+        synchronized (this) {
+            lanes = count;
+        }
+        for (int slot = 0; slot < lanes; slot++) {
+            action.accept(read(slot).toLane());
+        }
+    }
+
+    @Override
+    public List<Lane> findParked(final String afterId, final int limit) {
+        return read(laneIndex.findParked(afterId, limit));
+    }
+
+    @Override
+    public List<Lane> findByWorkingWindow(final int minWindow, final LaneWindow after, final int limit) {
+        return read(laneIndex.findByWorkingWindow(minWindow, after, limit));
+    }
+
+    /**
+     * Lanes are given a new ObjectId unless they already have one, and appended to the file.
+     * The file is remapped twice as large when it's full.
+     */
+    @Override
+    public synchronized List<Lane> insertAll(final List<Lane> lanes) {
+        for (final Lane lane : lanes) {
+            if (lane.getCranes().size() > craneSlots) {
+                throw new IllegalArgumentException(
+                        path + " only has room for " + craneSlots + " cranes per lane.");
+            }
+        }
+        if (count + lanes.size() > ids.length) {
+            grow(count + lanes.size());
+        }
+        final List<Lane> inserted = new ArrayList<>(lanes.size());
+        mappingLock.readLock().lock();
+        try {
+            for (final Lane lane : lanes) {
+                final Lane withId = lane.getId() == null
+                        ? lane.toBuilder().withId(new ObjectId().toHexString()).build()
+                        : lane;
+                final int slot = count;
+                final ByteBuffer record = record(slot);
+                record.put(new ObjectId(withId.getId()).toByteArray());
+                final LaneState state = LaneState.of(withId);
+                write(slot, state);
+                count++;
+                index(slot, withId.getId());
+                laneIndex.put(state);
+                inserted.add(withId);
+            }
+            buffer.putInt(COUNT_OFFSET, count);
+        } finally {
+            mappingLock.readLock().unlock();
+        }
+        changes.incrementAndGet();
+        forceIfAlways();
+        return inserted;
+    }
+
+    @Override
+    public Lane update(final String laneId, final Consumer<LaneState> mutation) {
+        final Integer slot = slots.get(laneId);
+        if (slot == null) {
+            throw new NotFoundException("Lane not found for id: " + laneId);
+        }
+        final Lane updated = apply(slot, mutation);
+        forceIfAlways();
+        return updated;
+    }
+
+    @Override
+    public Map<String, Lane> updateAll(final Map<String, Consumer<LaneState>> mutations) {
+        final Map<String, Lane> updated = new HashMap<>(mutations.size());
+        mutations.forEach((laneId, mutation) -> {
+            final Integer slot = slots.get(laneId);
+            if (slot != null) {
+                updated.put(laneId, apply(slot, mutation));
+            }
+        });
+        forceIfAlways();
+        return updated;
+    }
+
+    /**
+     * Writes every change made so far to the file on disk.
+     */
+    public void force() {
+        mappingLock.readLock().lock();
+        try {
+            buffer.force();
+        } finally {
+            mappingLock.readLock().unlock();
+        }
+    }
+
+    private Lane apply(final int slot, final Consumer<LaneState> mutation) {
+        synchronized (recordLocks[slot % LOCK_STRIPES]) {
+            final LaneState lane = read(slot);
+            mutation.accept(lane);
+            lane.incrementVersion();
+            write(slot, lane);
+            laneIndex.put(lane);
+            changes.incrementAndGet();
+            return lane.toLane();
+        }
+    }
+
+    private long readVersion(final int slot) {
+        synchronized (recordLocks[slot % LOCK_STRIPES]) {
+            mappingLock.readLock().lock();
+            try {
+                return buffer.getLong(offset(slot) + VERSION_OFFSET);
+            } finally {
+                mappingLock.readLock().unlock();
+            }
+        }
+    }
+
+    private LaneState read(final int slot) {
+        synchronized (recordLocks[slot % LOCK_STRIPES]) {
+            mappingLock.readLock().lock();
+            try {
+                final int offset = offset(slot);
+                final LaneState lane = new LaneState(
+                        ids[slot],
+                        buffer.getInt(offset + POSITIONS_OFFSET),
+                        buffer.getLong(offset + VERSION_OFFSET)
+                );
+                for (int index = 0; index < craneSlots; index++) {
+                    final int position = buffer.getInt(offset + CRANES_OFFSET + 4 * index);
+                    if (position != LaneState.NO_CRANE) {
+                        lane.setCranePosition(LANE_ORDERS[index], position);
+                    }
+                }
+                return lane;
+            } finally {
+                mappingLock.readLock().unlock();
+            }
+        }
+    }
+
+    private List<Lane> read(final List<String> ids) {
+        final List<Lane> lanes = new ArrayList<>(ids.size());
+        for (final String laneId : ids) {
+            final Integer slot = slots.get(laneId);
+            if (slot != null) {
+                lanes.add(read(slot).toLane());
+            }
+        }
+        return lanes;
+    }
+
+    private void write(final int slot, final LaneState lane) {
+        mappingLock.readLock().lock();
+        try {
+            final int offset = offset(slot);
+            buffer.putInt(offset + POSITIONS_OFFSET, lane.getPositions());
+            buffer.putLong(offset + VERSION_OFFSET, lane.getVersion());
+            for (int index = 0; index < craneSlots; index++) {
+                final LaneOrder laneOrder = LANE_ORDERS[index];
+                buffer.putInt(
+                        offset + CRANES_OFFSET + 4 * index,
+                        lane.hasCrane(laneOrder) ? lane.getCranePosition(laneOrder) : LaneState.NO_CRANE
+                );
+            }
+        } finally {
+            mappingLock.readLock().unlock();
+        }
+    }
+
+    private String readId(final int slot) {
+        final byte[] id = new byte[ID_SIZE];
+        record(slot).get(id);
+        return new ObjectId(id).toHexString();
+    }
+
+    private ByteBuffer record(final int slot) {
+        final ByteBuffer record = buffer.duplicate();
+        record.position(offset(slot)).limit(offset(slot) + recordSize);
+        return record;
+    }
+
+    private void index(final int slot, final String laneId) {
+        ids[slot] = laneId;
+        slots.put(laneId, slot);
+        laneIds.add(laneId);
+    }
+
+    private void grow(final int minCapacity) {
+        mappingLock.writeLock().lock();
+        try {
+            int capacity = ids.length;
+            while (capacity < minCapacity) {
+                capacity *= 2;
+            }
+            buffer.force();
+            map(capacity);
+            final String[] grown = new String[capacity];
+            System.arraycopy(ids, 0, grown, 0, count);
+            ids = grown;
+        } finally {
+            mappingLock.writeLock().unlock();
+        }
+    }
+
+    private void map(final int capacity) {
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * recordSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void forceIfAlways() {
+        if (sync == Sync.ALWAYS) {
+            force();
+        }
+    }
+
+    private int readCraneSlots() throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        final int slots = header.getInt(CRANE_SLOTS_OFFSET);
+        if (slots < 1 || slots > LANE_ORDERS.length) {
+            throw new IllegalStateException(path + " has an unsupported number of crane slots: " + slots + ".");
+        }
+        return slots;
+    }
+
+    private int offset(final int slot) {
+        return HEADER_SIZE + slot * recordSize;
+    }
+}
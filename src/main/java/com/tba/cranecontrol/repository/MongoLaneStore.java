@@ -0,0 +1,205 @@
+package com.tba.cranecontrol.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.tba.cranecontrol.exception.LaneConflictException;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.LaneWindow;
+
+@Repository
+@ConditionalOnProperty(prefix = "cranecontrol.store", name = "mode", havingValue = "mongo", matchIfMissing = true)
+public class MongoLaneStore implements LaneStore {
+
+    private final LaneRepository laneRepository;
+    private final int maxUpdateAttempts;
+    private final int bulkBatchSize;
+
+    public MongoLaneStore(
+            final LaneRepository laneRepository,
+            @Value("${cranecontrol.store.max-update-attempts:5}") final int maxUpdateAttempts,
+            @Value("${cranecontrol.store.bulk-batch-size:500}") final int bulkBatchSize
+    ) {
+        this.laneRepository = laneRepository;
+        this.maxUpdateAttempts = maxUpdateAttempts;
+        this.bulkBatchSize = bulkBatchSize;
+    }
+
+    @PostConstruct
+    public void indexDerivedFields() {
+        laneRepository.indexDerivedFields();
+    }
+
+    @Override
+    public Optional<Lane> findById(final String laneId) {
+        return laneRepository.findById(laneId);
+    }
+
+    @Override
+    public List<Lane> findAll() {
+        return laneRepository.findAll();
+    }
+
+    @Override
+    public List<Lane> findPage(final String afterId, final int limit) {
+        return laneRepository.findPage(afterId, limit);
+    }
+
+    @Override
+    public void streamAll(final Consumer<Lane> action) {
+        laneRepository.streamAll(action);
+    }
+
+    /**
+     * Answered from an index on the {@code parked} field kept on every lane document.
+     */
+    @Override
+    public List<Lane> findParked(final String afterId, final int limit) {
+        return laneRepository.findParked(afterId, limit);
+    }
+
+    /**
+     * Answered from an index on the {@code workingWindow} field kept on every lane document.
+     */
+    @Override
+    public List<Lane> findByWorkingWindow(final int minWindow, final LaneWindow after, final int limit) {
+        return laneRepository.findByWorkingWindow(minWindow, after, limit);
+    }
+
+    @Override
+    public List<Lane> insertAll(final List<Lane> lanes) {
+        return laneRepository.insert(lanes);
+    }
+
+    /**
+     * Optimistic update: the mutation is applied to the lane as read and written back with a
+     * conditional findAndModify that only matches if nobody changed the lane in between.
+     * On a conflict the lane is read again and the mutation re-applied, up to
+     * {@code max-update-attempts} times.
+     */
+    @Override
+    public Lane update(final String laneId, final Consumer<LaneState> mutation) {
+        for (int attempt = 0; attempt < maxUpdateAttempts; attempt++) {
+            final Lane lane = laneRepository.findById(laneId)
+                    .orElseThrow(() -> new NotFoundException("Lane not found for id: " + laneId));
+            final LaneState state = LaneState.of(lane);
+            mutation.accept(state);
+            state.incrementVersion();
+            final Optional<Lane> updated = laneRepository.compareAndSetCranes(lane, state.toLane());
+            if (updated.isPresent()) {
+                return updated.get();
+            }
+        }
+        throw new LaneConflictException("The lane " + laneId + " is being changed concurrently, please retry.");
+    }
+
+    @Override
+    public CompletableFuture<Lane> submitMove(final CraneMove move, final Consumer<LaneState> mutation) {
+        try {
+            return CompletableFuture.completedFuture(move(move, mutation));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * A single round trip when the move is allowed: one findAndModify only matches the lane when the
+     * lane rules allow the move and computes the pushed positions from the stored ones. It returns the
+     * lane as it was, and applying the mutation to it gives the lane as written. When nothing matched
+     * the lane is read and the mutation applied to it to tell why: it throws the rejection, or the lane
+     * changed in between and the move is tried again, up to {@code max-update-attempts} times. Negative
+     * positions, which the filter can't tell apart, go straight to the read. Lanes whose cranes aren't
+     * stored in lane order are moved with {@link #update}.
+     */
+    protected Lane move(final CraneMove move, final Consumer<LaneState> mutation) {
+        final String laneId = move.getLaneId();
+        for (int attempt = 0; attempt < maxUpdateAttempts; attempt++) {
+            final Optional<Lane> before = move.getDesiredPosition() < 0 ? Optional.empty() : laneRepository.moveCrane(move);
+            if (before.isPresent()) {
+                final LaneState state = LaneState.of(before.get());
+                mutation.accept(state);
+                state.incrementVersion();
+                return state.toLane();
+            }
+            final Lane lane = laneRepository.findById(laneId)
+                    .orElseThrow(() -> new NotFoundException("Lane not found for id: " + laneId));
+            if (!isInLaneOrder(lane)) {
+                return update(laneId, mutation);
+            }
+            mutation.accept(LaneState.of(lane));
+        }
+        throw new LaneConflictException("The lane " + laneId + " is being changed concurrently, please retry.");
+    }
+
+    /**
+     * Lanes are processed in batches of {@code bulk-batch-size}: one query reads the batch, and one
+     * bulkWrite writes it back with the same conditional update as {@link #update}. Lanes whose write
+     * conflicted are read and mutated again, up to {@code max-update-attempts} times, and the ones deleted
+     * in between are left out.
+     */
+    @Override
+    public Map<String, Lane> updateAll(final Map<String, Consumer<LaneState>> mutations) {
+        final Map<String, Lane> updated = new HashMap<>(mutations.size());
+        final List<String> laneIds = new ArrayList<>(mutations.keySet());
+        for (int from = 0; from < laneIds.size(); from += bulkBatchSize) {
+            updateBatch(laneIds.subList(from, Math.min(from + bulkBatchSize, laneIds.size())), mutations, updated);
+        }
+        return updated;
+    }
+
+    private void updateBatch(
+            final Collection<String> laneIds,
+            final Map<String, Consumer<LaneState>> mutations,
+            final Map<String, Lane> updated
+    ) {
+        Collection<String> pending = laneIds;
+        for (int attempt = 0; attempt < maxUpdateAttempts && !pending.isEmpty(); attempt++) {
+            final List<Lane> currentLanes = new ArrayList<>(pending.size());
+            final List<Lane> updatedLanes = new ArrayList<>(pending.size());
+            for (final Lane lane : laneRepository.findAllById(pending)) {
+                final LaneState state = LaneState.of(lane);
+                mutations.get(lane.getId()).accept(state);
+                state.incrementVersion();
+                currentLanes.add(lane);
+                updatedLanes.add(state.toLane());
+            }
+            final Set<String> written = laneRepository.compareAndSetAllCranes(currentLanes, updatedLanes);
+            final List<String> conflicts = new ArrayList<>(updatedLanes.size() - written.size());
+            for (final Lane lane : updatedLanes) {
+                if (written.contains(lane.getId())) {
+                    updated.put(lane.getId(), lane);
+                } else {
+                    conflicts.add(lane.getId());
+                }
+            }
+            pending = conflicts;
+        }
+    }
+
+    private static boolean isInLaneOrder(final Lane lane) {
+        final List<Crane> cranes = lane.getCranes();
+        for (int index = 0; index < cranes.size(); index++) {
+            if (cranes.get(index).getLaneOrder().ordinal() != index) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package com.tba.cranecontrol.repository;
+
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeSaveCallback;
+import org.springframework.stereotype.Component;
+
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneState;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link LaneDerivedFieldsCallback} for the lanes written by the reactive repository.
+ */
+@Component
+public class ReactiveLaneDerivedFieldsCallback implements ReactiveBeforeSaveCallback<Lane> {
+
+    @Override
+    public Publisher<Lane> onBeforeSave(final Lane lane, final Document document, final String collection) {
+        document.putAll(LaneQueries.derivedFields(LaneState.of(lane)));
+        return Mono.just(lane);
+    }
+}
@@ -0,0 +1,10 @@
+package com.tba.cranecontrol.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.tba.cranecontrol.model.Lane;
+
+@Repository
+public interface ReactiveLaneRepository extends ReactiveMongoRepository<Lane, String>, ReactiveLaneRepositoryCustom {
+}
@@ -0,0 +1,20 @@
+package com.tba.cranecontrol.repository;
+
+import com.tba.cranecontrol.model.Lane;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveLaneRepositoryCustom {
+
+    /**
+     * @see LaneRepositoryCustom#findPage(String, int)
+     */
+    Flux<Lane> findPage(String afterId, int limit);
+
+    /**
+     * @return the stored lane after the update, or an empty Mono when the lane was changed concurrently
+     * @see LaneRepositoryCustom#compareAndSetCranes(Lane, Lane)
+     */
+    Mono<Lane> compareAndSetCranes(Lane current, Lane updated);
+}
@@ -0,0 +1,33 @@
+package com.tba.cranecontrol.repository;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+
+import com.tba.cranecontrol.model.Lane;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class ReactiveLaneRepositoryCustomImpl implements ReactiveLaneRepositoryCustom {
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    public ReactiveLaneRepositoryCustomImpl(final ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public Flux<Lane> findPage(final String afterId, final int limit) {
+        return mongoOperations.find(LaneQueries.page(afterId, limit), Lane.class);
+    }
+
+    @Override
+    public Mono<Lane> compareAndSetCranes(final Lane current, final Lane updated) {
+        return mongoOperations.findAndModify(
+                LaneQueries.expectedState(current),
+                LaneQueries.craneChanges(current, updated),
+                FindAndModifyOptions.options().returnNew(true),
+                Lane.class
+        );
+    }
+}
@@ -0,0 +1,71 @@
+package com.tba.cranecontrol.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import com.tba.cranecontrol.model.LaneActivity;
+
+/**
+ * The lanes with the most moves, with the Space-Saving algorithm: at most {@code capacity} lanes are
+ * counted, and a lane that isn't takes the place of the least moved one and its count, plus one. Counts
+ * are exact while fewer lanes moved, and otherwise overestimate a lane by at most the count it took over,
+ * while any lane moved more than {@code 1 / capacity} of all moves is always kept.
+ */
+final class BusiestLanes {
+
+    private static final Comparator<Entry> BY_MOVES = Comparator
+            .comparingLong((Entry entry) -> entry.moves)
+            .thenComparing(entry -> entry.laneId);
+
+    private final int capacity;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final NavigableSet<Entry> byMoves = new TreeSet<>(BY_MOVES);
+
+    BusiestLanes(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void moved(final String laneId) {
+        Entry entry = entries.get(laneId);
+        if (entry != null) {
+            byMoves.remove(entry);
+            entry.moves++;
+        } else if (entries.size() < capacity) {
+            entry = new Entry(laneId, 1);
+            entries.put(laneId, entry);
+        } else {
+            final Entry evicted = byMoves.pollFirst();
+            entries.remove(evicted.laneId);
+            entry = new Entry(laneId, evicted.moves + 1);
+            entries.put(laneId, entry);
+        }
+        byMoves.add(entry);
+    }
+
+    synchronized List<LaneActivity> top(final int limit) {
+        final List<LaneActivity> top = new ArrayList<>(Math.min(limit, entries.size()));
+        final Iterator<Entry> busiest = byMoves.descendingIterator();
+        while (top.size() < limit && busiest.hasNext()) {
+            final Entry entry = busiest.next();
+            top.add(new LaneActivity(entry.laneId, entry.moves));
+        }
+        return top;
+    }
+
+    private static final class Entry {
+
+        private final String laneId;
+        private long moves;
+
+        private Entry(final String laneId, final long moves) {
+            this.laneId = laneId;
+            this.moves = moves;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.tba.cranecontrol.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.CraneMoveResult;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.MoveStatus;
+
+/**
+ * Moves of a bulk request grouped by lane. Each lane gets one mutation applying its moves in request
+ * order, recording the outcome of every move. A rejected move doesn't stop the following moves of the
+ * same lane, they're checked against the state left by the last applied one.
+ */
+final class CraneMoveBatch {
+
+    private final List<CraneMove> moves;
+    private final CraneMoveResult[] results;
+    private final boolean[] pushes;
+    private final int[] gapChanges;
+    private final MovementNotAllowedException.Reason[] rejections;
+    private final Map<String, List<Integer>> movesByLane = new LinkedHashMap<>();
+
+    CraneMoveBatch(final List<CraneMove> moves) {
+        this.moves = moves;
+        this.results = new CraneMoveResult[moves.size()];
+        this.pushes = new boolean[moves.size()];
+        this.gapChanges = new int[moves.size()];
+        this.rejections = new MovementNotAllowedException.Reason[moves.size()];
+        for (int index = 0; index < moves.size(); index++) {
+            movesByLane.computeIfAbsent(moves.get(index).getLaneId(), laneId -> new ArrayList<>()).add(index);
+        }
+    }
+
+    Set<String> laneIds() {
+        return movesByLane.keySet();
+    }
+
+    Map<String, Consumer<LaneState>> mutations() {
+        return mutations(movesByLane.keySet());
+    }
+
+    Map<String, Consumer<LaneState>> mutations(final Collection<String> laneIds) {
+        final Map<String, Consumer<LaneState>> mutations = new LinkedHashMap<>(laneIds.size());
+        laneIds.forEach(laneId -> mutations.put(laneId, mutation(laneId)));
+        return mutations;
+    }
+
+    Consumer<LaneState> mutation(final String laneId) {
+        final List<Integer> indexes = movesByLane.get(laneId);
+        return lane -> {
+            for (final Integer index : indexes) {
+                final CraneMove move = moves.get(index);
+                pushes[index] = false;
+                rejections[index] = null;
+                try {
+                    final int gap = lane.getTotalGap();
+                    pushes[index] = LaneRules.move(lane, move.getLaneOrder(), move.getDesiredPosition());
+                    gapChanges[index] = lane.getTotalGap() - gap;
+                    results[index] = CraneMoveResult.applied(move, lane.toLane());
+                } catch (MovementNotAllowedException e) {
+                    rejections[index] = e.getReason();
+                    results[index] = CraneMoveResult.rejected(move, MoveStatus.REJECTED, e.getMessage());
+                } catch (NotFoundException e) {
+                    results[index] = CraneMoveResult.rejected(move, MoveStatus.REJECTED, e.getMessage());
+                }
+            }
+        };
+    }
+
+    /**
+     * Counts the pushes and rejections of the moves on the lanes that were written, as last evaluated.
+     */
+    void countCollisions(final Set<String> updatedLaneIds, final LaneMetrics laneMetrics) {
+        updatedLaneIds.forEach(laneId -> movesByLane.get(laneId).forEach(index -> {
+            if (pushes[index]) {
+                laneMetrics.pushed();
+            } else if (rejections[index] != null) {
+                laneMetrics.rejected(rejections[index]);
+            }
+        }));
+    }
+
+    /**
+     * Counts the applied and rejected moves on the lanes that were written in the yard statistics.
+     */
+    void countMoves(final Set<String> updatedLaneIds, final YardStatistics yardStatistics) {
+        updatedLaneIds.forEach(laneId -> movesByLane.get(laneId).forEach(index -> {
+            if (rejections[index] != null) {
+                yardStatistics.rejected();
+            } else if (results[index].getStatus() == MoveStatus.APPLIED) {
+                yardStatistics.moved(laneId, gapChanges[index]);
+            }
+        }));
+    }
+
+    /**
+     * @param updatedLanes lanes whose mutation was written, as they were written
+     * @param laneExists whether a lane whose mutation ran but wasn't written is still stored
+     * @return the outcome of each move, in the same order as the moves. Applied moves carry the version
+     * their lane was written with. Moves of lanes that weren't written are reported as not found, or as
+     * a conflict if their lane kept changing concurrently.
+     */
+    List<CraneMoveResult> complete(final Map<String, Lane> updatedLanes, final Predicate<String> laneExists) {
+        movesByLane.forEach((laneId, indexes) -> {
+            final Lane updated = updatedLanes.get(laneId);
+            if (updated != null) {
+                indexes.forEach(index -> {
+                    if (results[index].getStatus() == MoveStatus.APPLIED) {
+                        results[index] = CraneMoveResult.applied(moves.get(index),
+                                results[index].getLane().toBuilder().withVersion(updated.getVersion()).build());
+                    }
+                });
+                return;
+            }
+            final boolean conflict = results[indexes.get(0)] != null && laneExists.test(laneId);
+            indexes.forEach(index -> results[index] = conflict
+                    ? CraneMoveResult.rejected(moves.get(index), MoveStatus.CONFLICT,
+                    "The lane " + laneId + " is being changed concurrently, please retry.")
+                    : CraneMoveResult.rejected(moves.get(index), MoveStatus.NOT_FOUND,
+                    "Lane not found for id: " + laneId));
+        });
+        return Arrays.asList(results);
+    }
+}
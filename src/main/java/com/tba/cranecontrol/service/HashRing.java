@@ -0,0 +1,59 @@
+package com.tba.cranecontrol.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Consistent hashing of lane ids onto nodes. Every node is placed on the ring {@code virtualNodes} times
+ * and a lane belongs to the first node point at or after the lane's hash, so a node joining or leaving
+ * only moves about {@code 1 / nodes} of the lanes, and only from or to that node. Immutable, a change
+ * of nodes builds a new ring.
+ */
+public final class HashRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final Set<String> nodes;
+
+    public HashRing(final Collection<String> nodes, final int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node.");
+        }
+        this.nodes = Set.copyOf(new TreeSet<>(nodes));
+        for (final String node : this.nodes) {
+            for (int point = 0; point < virtualNodes; point++) {
+                points.put(hash(node + "#" + point), node);
+            }
+        }
+    }
+
+    public String ownerOf(final String laneId) {
+        final Map.Entry<Long, String> point = points.ceilingEntry(hash(laneId));
+        return point == null ? points.firstEntry().getValue() : point.getValue();
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mix so close ids spread out.
+     */
+    static long hash(final String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,122 @@
+package com.tba.cranecontrol.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the work on a lane on one of a fixed set of single-threaded stripes picked by hashing the lane id.
+ * Work on the same lane is serialized in submission order, while lanes on different stripes never wait
+ * on each other.
+ */
+@Component
+public class LaneExecutor {
+
+    private final ThreadPoolExecutor[] stripes;
+
+    public LaneExecutor(
+            @Value("${cranecontrol.lane-executor.stripes:0}") final int stripes,
+            @Value("${cranecontrol.lane-executor.queue-capacity:10000}") final int queueCapacity
+    ) {
+        this.stripes = new ThreadPoolExecutor[stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors()];
+        for (int stripe = 0; stripe < this.stripes.length; stripe++) {
+            final String threadName = "Lane Stripe-" + stripe;
+            this.stripes[stripe] = new ThreadPoolExecutor(
+                    1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, threadName)
+            );
+        }
+    }
+
+    /**
+     * Runs the task on the lane's stripe and waits for its result. Runtime exceptions thrown by the
+     * task are rethrown as they are.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException when the stripe queue is full
+     */
+    public <T> T execute(final String laneId, final Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, stripeFor(laneId)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Splits the lanes by stripe and runs the task once on each stripe with its lanes, in parallel, waiting
+     * for all of them. Runtime exceptions thrown by the tasks are rethrown as they are, once every task ended.
+     *
+     * @return the result of each stripe's task
+     * @throws java.util.concurrent.RejectedExecutionException when a stripe queue is full
+     */
+    public <T> List<T> executeByStripe(final Collection<String> laneIds, final Function<List<String>, T> task) {
+        final Map<ThreadPoolExecutor, List<String>> lanesByStripe = new LinkedHashMap<>();
+        for (final String laneId : laneIds) {
+            lanesByStripe.computeIfAbsent(stripeFor(laneId), stripe -> new ArrayList<>()).add(laneId);
+        }
+        final List<CompletableFuture<T>> results = new ArrayList<>(lanesByStripe.size());
+        for (final Map.Entry<ThreadPoolExecutor, List<String>> stripe : lanesByStripe.entrySet()) {
+            results.add(CompletableFuture.supplyAsync(() -> task.apply(stripe.getValue()), stripe.getKey()));
+        }
+        try {
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        final List<T> values = new ArrayList<>(results.size());
+        results.forEach(result -> values.add(result.join()));
+        return values;
+    }
+
+    /**
+     * Number of tasks waiting on each stripe, indexed by stripe.
+     */
+    public List<Integer> getQueueDepths() {
+        final List<Integer> depths = new ArrayList<>(stripes.length);
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            depths.add(getQueueDepth(stripe));
+        }
+        return depths;
+    }
+
+    public int getQueueDepth(final int stripe) {
+        return stripes[stripe].getQueue().size();
+    }
+
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (final ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+    }
+
+    private ThreadPoolExecutor stripeFor(final String laneId) {
+        final int hash = laneId.hashCode();
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+}
@@ -0,0 +1,55 @@
+package com.tba.cranecontrol.service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Crane collisions counted by reason, a move rejected by the rules or the second crane pushed away,
+ * and the number of moves waiting on each {@link LaneExecutor} stripe.
+ */
+@Component
+public class LaneMetrics {
+
+    static final String COLLISIONS = "cranecontrol.crane.collisions";
+    static final String QUEUE_DEPTH = "cranecontrol.lane.executor.queue.depth";
+
+    private final Map<MovementNotAllowedException.Reason, Counter> rejections =
+            new EnumMap<>(MovementNotAllowedException.Reason.class);
+    private final Counter pushes;
+
+    public LaneMetrics(final MeterRegistry meterRegistry, final LaneExecutor laneExecutor) {
+        for (final MovementNotAllowedException.Reason reason : MovementNotAllowedException.Reason.values()) {
+            rejections.put(reason, collisions(meterRegistry, reason.name().toLowerCase(Locale.ROOT)));
+        }
+        this.pushes = collisions(meterRegistry, "push");
+        for (int stripe = 0; stripe < laneExecutor.getStripes(); stripe++) {
+            final int index = stripe;
+            Gauge.builder(QUEUE_DEPTH, laneExecutor, executor -> executor.getQueueDepth(index))
+                    .tag("stripe", Integer.toString(stripe))
+                    .register(meterRegistry);
+        }
+    }
+
+    void rejected(final MovementNotAllowedException.Reason reason) {
+        rejections.get(reason).increment();
+    }
+
+    void pushed() {
+        pushes.increment();
+    }
+
+    private static Counter collisions(final MeterRegistry meterRegistry, final String reason) {
+        return Counter.builder(COLLISIONS)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,121 @@
+package com.tba.cranecontrol.service;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.tba.cranecontrol.model.ClusterNode;
+import com.tba.cranecontrol.repository.ClusterNodeRepository;
+
+/**
+ * Which node owns the moves of each lane. Every node writes a heartbeat to the {@code clusterNode}
+ * collection every {@code heartbeat-interval-ms} and reads back the nodes seen within
+ * {@code node-timeout-ms}; whenever that set changes the {@link HashRing} is rebuilt, so lanes move to
+ * a node that joins and away from one that leaves or stops answering. A node leaving cleanly removes
+ * its heartbeat so the others rebalance on their next one.
+ * <p>
+ * Nodes may briefly disagree on an owner while a change spreads, moves stay safe in the meantime
+ * because every store allowed here checks the lane's version when writing it.
+ */
+@Service
+@ConditionalOnProperty(prefix = "cranecontrol.cluster", name = "enabled", havingValue = "true")
+public class LaneOwnership {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LaneOwnership.class);
+    private static final Set<String> SHARED_STORE_MODES = Set.of("mongo", "coalescing", "cached");
+
+    private final ClusterNodeRepository clusterNodeRepository;
+    private final String self;
+    private final int virtualNodes;
+    private final long heartbeatIntervalMs;
+    private final long nodeTimeoutMs;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "Cluster Heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile HashRing ring;
+
+    public LaneOwnership(
+            final ClusterNodeRepository clusterNodeRepository,
+            @Value("${cranecontrol.cluster.self}") final String self,
+            @Value("${cranecontrol.cluster.virtual-nodes:128}") final int virtualNodes,
+            @Value("${cranecontrol.cluster.heartbeat-interval-ms:1000}") final long heartbeatIntervalMs,
+            @Value("${cranecontrol.cluster.node-timeout-ms:5000}") final long nodeTimeoutMs,
+            @Value("${cranecontrol.store.mode:mongo}") final String storeMode
+    ) {
+        if (!SHARED_STORE_MODES.contains(storeMode)) {
+            throw new IllegalStateException("Lanes can only be split across nodes sharing Mongo as the source of truth, " +
+                    "the " + storeMode + " store mode keeps them on each node.");
+        }
+        this.clusterNodeRepository = clusterNodeRepository;
+        this.self = self;
+        this.virtualNodes = virtualNodes;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.nodeTimeoutMs = nodeTimeoutMs;
+        this.ring = new HashRing(Set.of(self), virtualNodes);
+    }
+
+    @PostConstruct
+    public void join() {
+        heartbeat();
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void leave() throws InterruptedException {
+        heartbeats.shutdown();
+        heartbeats.awaitTermination(heartbeatIntervalMs * 10, TimeUnit.MILLISECONDS);
+        clusterNodeRepository.deleteById(self);
+    }
+
+    public String ownerOf(final String laneId) {
+        return ring.ownerOf(laneId);
+    }
+
+    public boolean isLocal(final String laneId) {
+        return self.equals(ring.ownerOf(laneId));
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public Set<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * Writes this node's heartbeat and rebuilds the ring when the live nodes changed. When Mongo can't
+     * be reached the current ring is kept.
+     */
+    void heartbeat() {
+        try {
+            final Instant now = Instant.now();
+            clusterNodeRepository.save(new ClusterNode(self, now));
+            final Set<String> nodes = new HashSet<>();
+            nodes.add(self);
+            clusterNodeRepository.findByLastSeenAfter(now.minusMillis(nodeTimeoutMs))
+                    .forEach(node -> nodes.add(node.getId()));
+            final HashRing current = ring;
+            if (!nodes.equals(current.getNodes())) {
+                ring = new HashRing(nodes, virtualNodes);
+                LOGGER.warn("Lanes rebalanced from {} to {}.", current.getNodes(), nodes);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cluster heartbeat failed, keeping the nodes {}.", ring.getNodes(), e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.tba.cranecontrol.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.model.LaneState;
+
+/**
+ * Layout of new lanes and collision rules of crane moves, shared by the blocking and the reactive services.
+ * A crane can't move onto or past the crane before it, and pushes the cranes after it that are in the
+ * way to the positions right after its own.
+ */
+final class LaneRules {
+
+    private static final LaneOrder[] LANE_ORDERS = LaneOrder.values();
+
+    private LaneRules() {
+    }
+
+    /**
+     * The first crane starts at position 0 and the others are parked at the end of the lane, the last
+     * one at {@code positions + 1}.
+     */
+    static Lane newLane(final int positions, final int cranes) {
+        final List<Crane> craneList = new ArrayList<>(cranes);
+        craneList.add(new Crane(0, LaneOrder.FIRST));
+        for (int index = 1; index < cranes; index++) {
+            craneList.add(new Crane(LaneState.homePosition(positions, cranes, index), LANE_ORDERS[index]));
+        }
+        return Lane.builder()
+                .withPositions(positions)
+                .withCranes(craneList)
+                .withVersion(0L)
+                .build();
+    }
+
+    /**
+     * Moves the crane in place, pushing away the cranes after it in one pass. Nothing is changed when
+     * the move is rejected.
+     *
+     * @return whether the crane pushed other cranes away to reach the desired position
+     * @throws MovementNotAllowedException when the move is out of the lane or blocked by another crane
+     */
+    static boolean move(final LaneState lane, final LaneOrder laneOrder, final int desiredPosition) {
+        validateDesiredPosition(desiredPosition, lane);
+        final int index = laneOrder.ordinal();
+        final int fromPosition = getCranePosition(laneOrder, lane);
+        if (index > 0 && isCollidingWithPreviousCrane(getCranePosition(LANE_ORDERS[index - 1], lane), desiredPosition)) {
+            throw new MovementNotAllowedException(
+                    "Movement not allowed for the " + name(laneOrder) + " crane. The " +
+                            name(LANE_ORDERS[index - 1]) + " crane is blocking this movement.",
+                    MovementNotAllowedException.Reason.BLOCKED_BY_PREVIOUS_CRANE);
+        }
+        final int pushedCranes = countCranesInTheWay(lane, index, desiredPosition);
+        if (desiredPosition + pushedCranes > lane.getPositions() + 1) {
+            throw new MovementNotAllowedException(
+                    "The cranes pushed away by this movement would end outside the lane.",
+                    MovementNotAllowedException.Reason.OUT_OF_BOUNDS);
+        }
+        for (int pushed = 1; pushed <= pushedCranes; pushed++) {
+            lane.setCranePosition(index + pushed, desiredPosition + pushed);
+        }
+        lane.setCranePosition(index, desiredPosition);
+        lane.moved(laneOrder, fromPosition, desiredPosition, pushedCranes);
+        return pushedCranes > 0;
+    }
+
+    private static boolean isCollidingWithPreviousCrane(final int previousCranePosition, final int desiredPosition) {
+        return desiredPosition <= previousCranePosition;
+    }
+
+    /**
+     * The crane {@code j} after the moved crane {@code i} is in the way when its position is below
+     * {@code desiredPosition + (j - i)}, that is when {@code position(j) - j < desiredPosition - i}.
+     * Positions strictly increase along the lane, so {@code position(j) - j} never decreases and the
+     * cranes in the way are the ones before the first that isn't, found by binary search.
+     */
+    private static int countCranesInTheWay(final LaneState lane, final int index, final int desiredPosition) {
+        final int limit = desiredPosition - index;
+        int low = index + 1;
+        int high = lane.getCranes();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (lane.getCranePosition(middle) - middle < limit) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - index - 1;
+    }
+
+    private static int getCranePosition(final LaneOrder laneOrder, final LaneState lane) {
+        if (!lane.hasCrane(laneOrder)) {
+            throw new NotFoundException("Crane not found for the lane id: " + lane.getId() + " and order " +
+                    laneOrder.name() +
+                    " informed.");
+        }
+        return lane.getCranePosition(laneOrder);
+    }
+
+    /**
+     * Negative positions are rejected too, -1 being how {@link LaneState} marks a crane the lane doesn't have.
+     */
+    private static void validateDesiredPosition(final int desiredPosition, final LaneState lane) {
+        if (desiredPosition < 0) {
+            throw new MovementNotAllowedException(
+                    "The desired position given can't be negative.",
+                    MovementNotAllowedException.Reason.OUT_OF_BOUNDS);
+        }
+        if (desiredPosition > lane.getPositions()) {
+            throw new MovementNotAllowedException(
+                    "The desired position given is higher than the allowed for this lane.",
+                    MovementNotAllowedException.Reason.OUT_OF_BOUNDS);
+        }
+    }
+
+    private static String name(final LaneOrder laneOrder) {
+        return laneOrder.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,136 +1,223 @@
 package com.tba.cranecontrol.service;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.tba.cranecontrol.exception.LaneCreationException;
 import com.tba.cranecontrol.exception.MovementNotAllowedException;
 import com.tba.cranecontrol.exception.NotFoundException;
-import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.CraneMoveResult;
 import com.tba.cranecontrol.model.Lane;
 import com.tba.cranecontrol.model.LaneOrder;
-import com.tba.cranecontrol.repository.LaneRepository;
+import com.tba.cranecontrol.model.LaneWindow;
+import com.tba.cranecontrol.repository.LaneStore;
+
+import io.micrometer.core.annotation.Timed;
 
 @Service
 public class LaneService {
 
-    private final LaneRepository laneRepository;
-
-    public LaneService(final LaneRepository laneRepository) {
-        this.laneRepository = laneRepository;
+    static final String TIMER = "cranecontrol.lane.service";
+
+    private final LaneStore laneStore;
+    private final LaneExecutor laneExecutor;
+    private final LaneMetrics laneMetrics;
+    private final LaneUpdates laneUpdates;
+    private final YardStatistics yardStatistics;
+    private final Executor provisioningExecutor;
+    private final int provisioningChunkSize;
+    private final int provisioningChunksInFlight;
+
+    public LaneService(
+            final LaneStore laneStore,
+            final LaneExecutor laneExecutor,
+            final LaneMetrics laneMetrics,
+            final LaneUpdates laneUpdates,
+            final YardStatistics yardStatistics,
+            @Qualifier("laneProvisioningExecutor") final Executor provisioningExecutor,
+            @Value("${cranecontrol.provisioning.chunk-size:1000}") final int provisioningChunkSize,
+            @Value("${cranecontrol.provisioning.chunks-in-flight:8}") final int provisioningChunksInFlight
+    ) {
+        this.laneStore = laneStore;
+        this.laneExecutor = laneExecutor;
+        this.laneMetrics = laneMetrics;
+        this.laneUpdates = laneUpdates;
+        this.yardStatistics = yardStatistics;
+        this.provisioningExecutor = provisioningExecutor;
+        this.provisioningChunkSize = provisioningChunkSize;
+        this.provisioningChunksInFlight = provisioningChunksInFlight;
     }
 
+    @Timed(value = TIMER, histogram = true)
     public List<Lane> findAll() {
-        try {
-            return new ArrayList<>(CompletableFuture.supplyAsync(laneRepository::findAll).get());
-        } catch (InterruptedException | ExecutionException e) {
-            throw new LaneCreationException("An error happened while fetching lanes.");
-        }
+        return laneStore.findAll();
+    }
+
+    @Timed(value = TIMER, histogram = true)
+    public List<Lane> findPage(final String afterId, final int limit) {
+        return laneStore.findPage(afterId, limit);
+    }
+
+    @Timed(value = TIMER, histogram = true)
+    public List<Lane> findParked(final String afterId, final int limit) {
+        return laneStore.findParked(afterId, limit);
+    }
+
+    @Timed(value = TIMER, histogram = true)
+    public List<Lane> findByWorkingWindow(final int minWindow, final LaneWindow after, final int limit) {
+        return laneStore.findByWorkingWindow(minWindow, after, limit);
+    }
+
+    @Timed(value = TIMER, histogram = true)
+    public void streamAll(final Consumer<Lane> action) {
+        laneStore.streamAll(action);
     }
 
+    @Timed(value = TIMER, histogram = true)
     public Lane findById(final String laneId) {
-        return laneRepository.findById(laneId)
+        return laneStore.findById(laneId)
                 .orElseThrow(() -> new NotFoundException("Lane not found for id: " + laneId));
     }
 
-    public Lane moveCrane(final String laneId, final LaneOrder laneOrder, final Integer desiredPosition) {
-        final Lane lane = laneRepository.findById(laneId).orElseThrow(() -> new NotFoundException(
-                "Lane not found for id: " + laneId));
-        validateDesiredPosition(desiredPosition, lane);
-        if (LaneOrder.FIRST == laneOrder) {
-            return moveFirstCrane(desiredPosition, lane);
-        }
-        return moveSecondCrane(lane, desiredPosition);
-    }
-
-    public List<Lane> create(final Integer lanes, final Integer positions) {
-        return IntStream.range(0, lanes)
-                .mapToObj(pos -> CompletableFuture.supplyAsync(() -> createLane(positions)))
-                .peek(CompletableFuture::join).map(
-                        future -> {
-                            try {
-                                return future.get();
-                            } catch (InterruptedException | ExecutionException e) {
-                                throw new LaneCreationException("An error happened while creating lanes.");
-                            }
-                        })
-                .collect(Collectors.toList());
-    }
-
-    private Lane moveSecondCrane(final Lane lane, final Integer desiredPosition) {
-        final Crane firstCrane = getCrane(LaneOrder.FIRST, lane);
-        if (isCollidingWithFirstCrane(firstCrane, desiredPosition)) {
-            throw new MovementNotAllowedException(
-                    "Movement not allowed for the second crane. The first crane is blocking this movement.");
-        }
-        return laneRepository.save(Lane.builder()
-                .withId(lane.getId())
-                .withPositions(lane.getPositions())
-                .withCranes(List.of(firstCrane, new Crane(desiredPosition, LaneOrder.SECOND)))
-                .build());
+    /**
+     * @see LaneStore#findVersion(String)
+     */
+    public Optional<Long> findVersion(final String laneId) {
+        return laneStore.findVersion(laneId);
     }
 
-    private Lane moveFirstCrane(final Integer desiredPosition, final Lane lane) {
-        final Crane secondCrane = getCrane(LaneOrder.SECOND, lane);
-        if (isCollidingWithSecondCrane(secondCrane, desiredPosition)) {
-            return laneRepository.save(moveSecondCraneToSafePosition(desiredPosition, lane));
+    /**
+     * @see LaneStore#findAggregateVersion()
+     */
+    public Optional<String> findAggregateVersion() {
+        return laneStore.findAggregateVersion();
+    }
+
+    /**
+     * Moves are submitted on the lane's stripe of the {@link LaneExecutor}, so moves on the same lane
+     * never race each other while moves on other lanes go on in parallel. The stripe only waits for
+     * the move when the store applies it right away, a coalescing store lets the next moves through.
+     */
+    @Timed(value = TIMER, histogram = true)
+    public Lane moveCrane(final String laneId, final LaneOrder laneOrder, final Integer desiredPosition) {
+        final AtomicBoolean pushed = new AtomicBoolean();
+        final AtomicInteger gapChange = new AtomicInteger();
+        final CraneMove move = new CraneMove(laneId, laneOrder, desiredPosition);
+        try {
+            final Lane moved = await(laneExecutor.execute(laneId, () -> laneStore.submitMove(move, lane -> {
+                final int gap = lane.getTotalGap();
+                pushed.set(LaneRules.move(lane, laneOrder, desiredPosition));
+                gapChange.set(lane.getTotalGap() - gap);
+            })));
+            if (pushed.get()) {
+                laneMetrics.pushed();
+            }
+            yardStatistics.moved(laneId, gapChange.get());
+            laneUpdates.publish(moved);
+            return moved;
+        } catch (MovementNotAllowedException e) {
+            laneMetrics.rejected(e.getReason());
+            yardStatistics.rejected();
+            throw e;
         }
-        final Crane firstCraneNewPosition = new Crane(desiredPosition, LaneOrder.FIRST);
-        return laneRepository.save(Lane.builder()
-                .withId(lane.getId())
-                .withPositions(lane.getPositions())
-                .withCranes(List.of(firstCraneNewPosition, secondCrane))
-                .build()
-        );
     }
 
-    private Lane createLane(final Integer positions) {
-        final Crane firstCrane = new Crane(0, LaneOrder.FIRST);
-        final Crane secondCrane = new Crane(positions + 1, LaneOrder.SECOND);
-        return laneRepository.save(Lane.builder()
-                .withPositions(positions)
-                .withCranes(List.of(firstCrane, secondCrane))
-                .build());
+    /**
+     * Applies the moves in the given order for each lane, every lane in a single update. Like single
+     * moves, the lanes are updated on their stripe of the {@link LaneExecutor}, one batched update per
+     * stripe, so they never race the single moves on the same lanes.
+     *
+     * @return the outcome of each move, in the same order as the moves
+     */
+    @Timed(value = TIMER, histogram = true)
+    public List<CraneMoveResult> moveCranes(final List<CraneMove> moves) {
+        final CraneMoveBatch batch = new CraneMoveBatch(moves);
+        final Map<String, Lane> updatedLanes = new HashMap<>();
+        laneExecutor.executeByStripe(batch.laneIds(), laneIds -> laneStore.updateAll(batch.mutations(laneIds)))
+                .forEach(updatedLanes::putAll);
+        final Set<String> updatedLaneIds = updatedLanes.keySet();
+        batch.countCollisions(updatedLaneIds, laneMetrics);
+        batch.countMoves(updatedLaneIds, yardStatistics);
+        laneUpdates.publishAll(updatedLanes.values());
+        return batch.complete(updatedLanes, laneId -> laneStore.findById(laneId).isPresent());
     }
 
-    private boolean isCollidingWithFirstCrane(final Crane firstCrane, final Integer desiredPosition) {
-        return desiredPosition <= firstCrane.getCurrentPosition();
+    @Timed(value = TIMER, histogram = true)
+    public List<Lane> create(final Integer lanes, final Integer positions, final Integer cranes) {
+        final List<Lane> created = new ArrayList<>(lanes);
+        provision(lanes, positions, cranes, created::addAll);
+        return created;
     }
 
-    private boolean isCollidingWithSecondCrane(final Crane secondCrane, final Integer desiredPosition) {
-        return desiredPosition >= secondCrane.getCurrentPosition();
+    /**
+     * Creates the lanes in chunks, each chunk built and written with one batched insert on the
+     * provisioning executor. At most {@code chunks-in-flight} chunks are pending at a time, and every
+     * chunk is published to the {@link LaneUpdates} subscribers and handed to the consumer as soon as
+     * it's written, in creation order.
+     */
+    @Timed(value = TIMER, histogram = true)
+    public void provision(final int lanes, final int positions, final int cranes, final Consumer<List<Lane>> consumer) {
+        final Deque<CompletableFuture<List<Lane>>> inFlight = new ArrayDeque<>(provisioningChunksInFlight);
+        for (int created = 0; created < lanes; created += provisioningChunkSize) {
+            final int chunkSize = Math.min(provisioningChunkSize, lanes - created);
+            inFlight.add(CompletableFuture.supplyAsync(
+                    () -> laneStore.insertAll(newLanes(chunkSize, positions, cranes)),
+                    provisioningExecutor
+            ));
+            if (inFlight.size() >= provisioningChunksInFlight) {
+                consumer.accept(awaitChunk(inFlight.poll()));
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            consumer.accept(awaitChunk(inFlight.poll()));
+        }
     }
 
-    private Crane getCrane(final LaneOrder laneOrder, final Lane lane) {
-        return lane.getCranes()
-                .stream()
-                .filter(c -> Objects.equals(c.getLaneOrder(), laneOrder))
-                .findFirst()
-                .orElseThrow(() -> new NotFoundException("Crane not found for the lane id: " + lane.getId() + " and order " +
-                        laneOrder.name() +
-                        " informed."));
+    private List<Lane> newLanes(final int lanes, final int positions, final int cranes) {
+        final List<Lane> newLanes = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            newLanes.add(LaneRules.newLane(positions, cranes));
+        }
+        return newLanes;
     }
 
-    private void validateDesiredPosition(final Integer desiredPosition, final Lane lane) {
-        if (desiredPosition > lane.getPositions()) {
-            throw new MovementNotAllowedException("The desired position given is higher than the allowed for this lane.");
+    private static Lane await(final CompletableFuture<Lane> update) {
+        try {
+            return update.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
         }
     }
 
-    private Lane moveSecondCraneToSafePosition(final Integer desiredPosition, final Lane lane) {
-        final Crane secondCraneNewPosition = new Crane(desiredPosition + 1, LaneOrder.SECOND);
-        final Crane firstCraneNewPosition = new Crane(desiredPosition, LaneOrder.FIRST);
-        return Lane.builder()
-                .withCranes(List.of(firstCraneNewPosition, secondCraneNewPosition))
-                .withPositions(lane.getPositions())
-                .withId(lane.getId())
-                .build();
+    private List<Lane> awaitChunk(final CompletableFuture<List<Lane>> chunk) {
+        final List<Lane> lanes;
+        try {
+            lanes = chunk.join();
+        } catch (CompletionException e) {
+            throw new LaneCreationException("An error happened while creating lanes.");
+        }
+        yardStatistics.created(lanes);
+        laneUpdates.publishAll(lanes);
+        return lanes;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,244 @@
+package com.tba.cranecontrol.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tba.cranecontrol.model.Lane;
+
+/**
+ * Hands every changed lane to the subscribers of all lanes and of that lane. Each subscription keeps
+ * only the latest state of every lane it hasn't sent yet and sends them as one batch on the update
+ * executor, so a slow subscriber gets fewer, conflated batches instead of an ever growing backlog,
+ * and never holds up a move.
+ * <p>
+ * A subscriber that can't keep up is dropped: once more than {@code max-pending-lanes} lanes wait for
+ * it, or once one of its batches has been sending for {@code send-timeout-ms}. It is told through its
+ * {@code onDropped} callback, after the send in progress returns, and gets nothing more, so a few
+ * stalled clients hold the update threads only until their writes fail. Listeners inside the
+ * application don't go through the executor at all.
+ */
+@Component
+public class LaneUpdates {
+
+    private final Executor executor;
+    private final int maxPendingLanes;
+    private final long sendTimeoutNanos;
+    private final List<Consumer<List<Lane>>> listeners = new CopyOnWriteArrayList<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Set<Subscription> allLanes = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Subscription>> byLane = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "Lane Updates Watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LaneUpdates(
+            @Qualifier("laneUpdateExecutor") final Executor executor,
+            @Value("${cranecontrol.updates.max-pending-lanes:100000}") final int maxPendingLanes,
+            @Value("${cranecontrol.updates.send-timeout-ms:5000}") final long sendTimeoutMs
+    ) {
+        this.executor = executor;
+        this.maxPendingLanes = maxPendingLanes;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        final long periodNanos = Math.max(sendTimeoutNanos / 2, 1);
+        watchdog.scheduleWithFixedDelay(this::dropStalled, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * @param listener called with every changed lane on the thread publishing it, so it must be quick
+     *                 and must not block
+     */
+    public void listen(final Consumer<List<Lane>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param laneIds   the lanes to be told about, every lane when empty
+     * @param sink      called with batches of changed lanes, one call at a time, the subscription is
+     *                  cancelled when it throws
+     * @param onDropped called once if the subscription is dropped for not keeping up
+     */
+    public Subscription subscribe(
+            final Collection<String> laneIds, final Consumer<List<Lane>> sink, final Runnable onDropped
+    ) {
+        final Subscription subscription = new Subscription(Set.copyOf(laneIds), sink, onDropped);
+        subscriptions.add(subscription);
+        if (subscription.laneIds.isEmpty()) {
+            allLanes.add(subscription);
+        }
+        subscription.laneIds.forEach(laneId -> byLane.computeIfAbsent(laneId, id -> ConcurrentHashMap.newKeySet())
+                .add(subscription));
+        return subscription;
+    }
+
+    void publish(final Lane lane) {
+        if (!listeners.isEmpty()) {
+            final List<Lane> changed = List.of(lane);
+            listeners.forEach(listener -> listener.accept(changed));
+        }
+        allLanes.forEach(subscription -> subscription.offer(lane));
+        final Set<Subscription> subscriptions = byLane.get(lane.getId());
+        if (subscriptions != null) {
+            subscriptions.forEach(subscription -> subscription.offer(lane));
+        }
+    }
+
+    void publishAll(final Collection<Lane> lanes) {
+        if (!listeners.isEmpty() || !subscriptions.isEmpty()) {
+            lanes.forEach(this::publish);
+        }
+    }
+
+    /**
+     * Drops the subscriptions whose current batch has been sending for longer than {@code send-timeout-ms}.
+     */
+    void dropStalled() {
+        final long now = System.nanoTime();
+        subscriptions.forEach(subscription -> {
+            if (subscription.sending && now - subscription.sendingSinceNanos > sendTimeoutNanos) {
+                subscription.drop();
+            }
+        });
+    }
+
+    private void remove(final Subscription subscription) {
+        subscriptions.remove(subscription);
+        allLanes.remove(subscription);
+        subscription.laneIds.forEach(laneId -> byLane.computeIfPresent(laneId, (id, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        }));
+    }
+
+    private static long version(final Lane lane) {
+        return lane.getVersion() == null ? 0L : lane.getVersion();
+    }
+
+    public final class Subscription {
+
+        private final Set<String> laneIds;
+        private final Consumer<List<Lane>> sink;
+        private final Runnable onDropped;
+        private final Map<String, Lane> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean dropped = new AtomicBoolean();
+        private final AtomicBoolean notified = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private volatile boolean sending;
+        private volatile long sendingSinceNanos;
+
+        private Subscription(final Set<String> laneIds, final Consumer<List<Lane>> sink, final Runnable onDropped) {
+            this.laneIds = laneIds;
+            this.sink = sink;
+            this.onDropped = onDropped;
+        }
+
+        /**
+         * Queues the lane unless a newer state of it is already queued.
+         */
+        public void offer(final Lane lane) {
+            if (cancelled) {
+                return;
+            }
+            pending.merge(lane.getId(), lane, (queued, offered) -> version(offered) >= version(queued) ? offered : queued);
+            if (pending.size() > maxPendingLanes) {
+                drop();
+                return;
+            }
+            schedule();
+        }
+
+        public void cancel() {
+            cancelled = true;
+            remove(this);
+            pending.clear();
+        }
+
+        /**
+         * Cancels the subscription and tells the subscriber, right away unless a batch is being sent, in
+         * which case the sending thread does once the send returns.
+         */
+        private void drop() {
+            if (dropped.compareAndSet(false, true)) {
+                cancel();
+                if (!sending) {
+                    notifyDropped();
+                }
+            }
+        }
+
+        private void notifyDropped() {
+            if (notified.compareAndSet(false, true)) {
+                onDropped.run();
+            }
+        }
+
+        private void schedule() {
+            if (!cancelled && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    cancel();
+                }
+            }
+        }
+
+        /**
+         * Sends one batch, a lane replaced while the batch is taken stays queued for the next one.
+         */
+        private void send() {
+            final List<Lane> batch = new ArrayList<>(pending.size());
+            pending.forEach((laneId, lane) -> {
+                if (pending.remove(laneId, lane)) {
+                    batch.add(lane);
+                }
+            });
+            try {
+                if (!batch.isEmpty() && !cancelled) {
+                    sendingSinceNanos = System.nanoTime();
+                    sending = true;
+                    sink.accept(batch);
+                }
+            } catch (RuntimeException e) {
+                cancel();
+            } finally {
+                sending = false;
+                scheduled.set(false);
+            }
+            if (dropped.get()) {
+                notifyDropped();
+            } else if (!pending.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.tba.cranecontrol.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import com.tba.cranecontrol.exception.LaneConflictException;
+import com.tba.cranecontrol.exception.LaneCreationException;
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.CraneMoveResult;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.repository.ReactiveLaneRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Non-blocking counterpart of {@link LaneService} used when the application runs on WebFlux.
+ * It talks to Mongo through the reactive driver and applies the same {@link LaneRules}.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLaneService {
+
+    private static final int BULK_CONCURRENCY = 32;
+
+    private final ReactiveLaneRepository laneRepository;
+    private final LaneMetrics laneMetrics;
+    private final int maxUpdateAttempts;
+    private final int provisioningChunkSize;
+
+    public ReactiveLaneService(
+            final ReactiveLaneRepository laneRepository,
+            final LaneMetrics laneMetrics,
+            @Value("${cranecontrol.store.max-update-attempts:5}") final int maxUpdateAttempts,
+            @Value("${cranecontrol.provisioning.chunk-size:1000}") final int provisioningChunkSize
+    ) {
+        this.laneRepository = laneRepository;
+        this.laneMetrics = laneMetrics;
+        this.maxUpdateAttempts = maxUpdateAttempts;
+        this.provisioningChunkSize = provisioningChunkSize;
+    }
+
+    public Flux<Lane> findAll() {
+        return laneRepository.findAll();
+    }
+
+    public Flux<Lane> findPage(final String afterId, final int limit) {
+        return laneRepository.findPage(afterId, limit);
+    }
+
+    public Mono<Lane> findById(final String laneId) {
+        return laneRepository.findById(laneId).switchIfEmpty(notFound(laneId));
+    }
+
+    public Mono<Lane> moveCrane(final String laneId, final LaneOrder laneOrder, final Integer desiredPosition) {
+        final AtomicBoolean pushed = new AtomicBoolean();
+        return update(laneId, lane -> pushed.set(LaneRules.move(lane, laneOrder, desiredPosition)))
+                .doOnSuccess(lane -> {
+                    if (pushed.get()) {
+                        laneMetrics.pushed();
+                    }
+                })
+                .doOnError(MovementNotAllowedException.class, e -> laneMetrics.rejected(e.getReason()));
+    }
+
+    /**
+     * @see LaneService#moveCranes(List)
+     */
+    public Mono<List<CraneMoveResult>> moveCranes(final List<CraneMove> moves) {
+        final CraneMoveBatch batch = new CraneMoveBatch(moves);
+        final Set<String> missingLaneIds = ConcurrentHashMap.newKeySet();
+        return Flux.fromIterable(batch.laneIds())
+                .flatMap(laneId -> update(laneId, batch.mutation(laneId))
+                        .onErrorResume(NotFoundException.class, e -> {
+                            missingLaneIds.add(laneId);
+                            return Mono.empty();
+                        })
+                        .onErrorResume(LaneConflictException.class, e -> Mono.empty()), BULK_CONCURRENCY)
+                .collectMap(Lane::getId)
+                .map(updatedLanes -> {
+                    batch.countCollisions(updatedLanes.keySet(), laneMetrics);
+                    return batch.complete(updatedLanes, laneId -> !missingLaneIds.contains(laneId));
+                });
+    }
+
+    /**
+     * Creates the lanes in chunks, each chunk written with one insertMany.
+     */
+    public Flux<Lane> create(final int lanes, final int positions, final int cranes) {
+        return Flux.range(0, lanes)
+                .map(lane -> LaneRules.newLane(positions, cranes))
+                .buffer(provisioningChunkSize)
+                .concatMap(chunk -> laneRepository.insert(chunk))
+                .onErrorMap(e -> new LaneCreationException("An error happened while creating lanes."));
+    }
+
+    /**
+     * Same optimistic update as {@link com.tba.cranecontrol.repository.MongoLaneStore#update}: the lane
+     * is read, mutated and written back only if nobody changed it in between, otherwise read again.
+     */
+    private Mono<Lane> update(final String laneId, final Consumer<LaneState> mutation) {
+        return Mono.defer(() -> findById(laneId)
+                        .flatMap(lane -> {
+                            final LaneState state = LaneState.of(lane);
+                            mutation.accept(state);
+                            state.incrementVersion();
+                            return laneRepository.compareAndSetCranes(lane, state.toLane());
+                        }))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new LaneConflictException(
+                        "The lane " + laneId + " is being changed concurrently, please retry."))))
+                .retryWhen(Retry.max(maxUpdateAttempts - 1)
+                        .filter(LaneConflictException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private static <T> Mono<T> notFound(final String laneId) {
+        return Mono.defer(() -> Mono.error(new NotFoundException("Lane not found for id: " + laneId)));
+    }
+}
@@ -0,0 +1,56 @@
+package com.tba.cranecontrol.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Events counted per second over the last {@code seconds} seconds. Each bucket packs its second and its
+ * count in one long, so a bucket is moved to a new second and counted in the same compare and set and no
+ * event is lost to a reset. Adding and summing never depend on the number of events.
+ */
+final class SlidingCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final int seconds;
+    private final AtomicLongArray buckets;
+
+    SlidingCounter(final int seconds) {
+        if (seconds < 1) {
+            throw new IllegalArgumentException("A sliding window needs at least one second, got " + seconds);
+        }
+        this.seconds = seconds;
+        this.buckets = new AtomicLongArray(seconds);
+    }
+
+    void increment(final long second) {
+        final int bucket = (int) (second % seconds);
+        while (true) {
+            final long current = buckets.get(bucket);
+            final long updated = current >>> COUNT_BITS == second
+                    ? current + 1
+                    : second << COUNT_BITS | 1;
+            if (buckets.compareAndSet(bucket, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the events of the {@code seconds} seconds ending with the given one
+     */
+    long sum(final long second) {
+        long sum = 0;
+        for (int bucket = 0; bucket < seconds; bucket++) {
+            final long value = buckets.get(bucket);
+            if (second - (value >>> COUNT_BITS) < seconds) {
+                sum += value & COUNT_MASK;
+            }
+        }
+        return sum;
+    }
+
+    int getSeconds() {
+        return seconds;
+    }
+}
@@ -0,0 +1,104 @@
+package com.tba.cranecontrol.service;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.YardStats;
+import com.tba.cranecontrol.repository.LaneStore;
+
+/**
+ * Yard totals kept up to date by the {@link LaneService} as lanes are created and cranes moved, so
+ * reading them never touches the lanes. Lanes and gaps are counted once on startup and then adjusted by
+ * every change, moves and rejections are counted per second over the last {@code window-seconds}, and
+ * the busiest lanes are tracked by {@link BusiestLanes}.
+ * <p>
+ * Each instance counts the changes it makes, when lanes are split across instances every one of them
+ * reports the moves of its own lanes.
+ */
+@Component
+public class YardStatistics {
+
+    private final LaneStore laneStore;
+    private final boolean loadOnStartup;
+    private final int busiestLaneCount;
+    private final LongAdder lanes = new LongAdder();
+    private final LongAdder cranePairs = new LongAdder();
+    private final LongAdder gaps = new LongAdder();
+    private final SlidingCounter moves;
+    private final SlidingCounter rejections;
+    private final BusiestLanes busiestLanes;
+
+    public YardStatistics(
+            final LaneStore laneStore,
+            @Value("${cranecontrol.stats.load-on-startup:true}") final boolean loadOnStartup,
+            @Value("${cranecontrol.stats.window-seconds:60}") final int windowSeconds,
+            @Value("${cranecontrol.stats.busiest-lanes:10}") final int busiestLaneCount,
+            @Value("${cranecontrol.stats.tracked-lanes:1000}") final int trackedLanes
+    ) {
+        this.laneStore = laneStore;
+        this.loadOnStartup = loadOnStartup;
+        this.busiestLaneCount = busiestLaneCount;
+        this.moves = new SlidingCounter(windowSeconds);
+        this.rejections = new SlidingCounter(windowSeconds);
+        this.busiestLanes = new BusiestLanes(Math.max(trackedLanes, busiestLaneCount));
+    }
+
+    /**
+     * Counts the lanes already stored, the only time every lane is read.
+     */
+    @PostConstruct
+    public void load() {
+        if (loadOnStartup) {
+            laneStore.streamAll(this::count);
+        }
+    }
+
+    public YardStats getStats() {
+        final long second = currentSecond();
+        final long moved = moves.sum(second);
+        final long rejected = rejections.sum(second);
+        final long pairs = cranePairs.sum();
+        return new YardStats(
+                lanes.sum(),
+                pairs == 0 ? 0 : (double) gaps.sum() / pairs,
+                moved * 60.0 / moves.getSeconds(),
+                moved + rejected == 0 ? 0 : (double) rejected / (moved + rejected),
+                busiestLanes.top(busiestLaneCount)
+        );
+    }
+
+    void created(final Collection<Lane> newLanes) {
+        newLanes.forEach(this::count);
+    }
+
+    /**
+     * @param gapChange how much the move changed the {@link LaneState#getTotalGap() total gap} of the lane
+     */
+    void moved(final String laneId, final int gapChange) {
+        moves.increment(currentSecond());
+        gaps.add(gapChange);
+        busiestLanes.moved(laneId);
+    }
+
+    void rejected() {
+        rejections.increment(currentSecond());
+    }
+
+    private void count(final Lane lane) {
+        final LaneState state = LaneState.of(lane);
+        lanes.increment();
+        cranePairs.add(Math.max(0, state.getCranes() - 1));
+        gaps.add(state.getTotalGap());
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,60 @@
+package com.tba.cranecontrol.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 100, 2.0);
+
+    @Test
+    void shouldTurnAwayRequestsPastTheLimit() {
+        for (int request = 0; request < 10; request++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release(-1);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldGrowWhileTheLatencyHoldsAndShrinkWhenItClimbs() {
+        rounds(20, TimeUnit.MILLISECONDS.toNanos(1));
+        final int grown = limit.getLimit();
+
+        rounds(20, TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertThat(grown).isGreaterThan(10);
+        assertThat(limit.getLimit()).isLessThan(grown);
+    }
+
+    @Test
+    void shouldNotGrowWhenTheLimitIsNotInUse() {
+        for (int request = 0; request < 100; request++) {
+            limit.tryAcquire();
+            limit.release(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    /**
+     * Takes every permit, then gives them all back with the given latency.
+     */
+    private void rounds(final int rounds, final long latencyNanos) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                acquired++;
+            }
+            for (int request = 0; request < acquired; request++) {
+                limit.release(latencyNanos);
+            }
+        }
+    }
+}
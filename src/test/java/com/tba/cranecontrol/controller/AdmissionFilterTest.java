@@ -0,0 +1,115 @@
+package com.tba.cranecontrol.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdmissionFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger handled = new AtomicInteger();
+    private final FilterChain chain = (request, response) -> handled.incrementAndGet();
+
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+    private AdmissionFilter filter;
+
+    @BeforeEach
+    void setup() {
+        concurrencyLimit = new AdaptiveConcurrencyLimit(2, 1, 10, 2.0);
+        filter = new AdmissionFilter(
+                new ObjectMapper(), new SimpleMeterRegistry(), concurrencyLimit,
+                new LaneRateLimiter(1, 2, 100, now::get), 3
+        );
+    }
+
+    @Test
+    void shouldLimitTheMovesOfALaneAndTellWhenToRetry() throws Exception {
+        assertThat(move("{\"laneId\":\"1\"}").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(move("{\"laneId\":\"1\"}").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        final MockHttpServletResponse limited = move("{\"laneId\":\"1\"}");
+
+        assertThat(limited.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(limited.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(move("{\"laneId\":\"2\"}").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(move("{\"laneId\":\"1\"}").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(handled.get()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldTakeEveryMoveOfABulkOrNone() throws Exception {
+        move("{\"laneId\":\"2\"}");
+
+        final MockHttpServletResponse limited = bulk("{\"moves\":[{\"laneId\":\"1\"},{\"laneId\":\"2\"},{\"laneId\":\"2\"}]}");
+
+        assertThat(limited.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(move("{\"laneId\":\"1\"}").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(move("{\"laneId\":\"1\"}").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void shouldNotChargeTheLanesOfAMoveForwardedByAnotherInstance() throws Exception {
+        move("{\"laneId\":\"1\"}");
+        move("{\"laneId\":\"1\"}");
+
+        final MockHttpServletRequest forwarded = new MockHttpServletRequest("PATCH", LaneController.PATH);
+        forwarded.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        forwarded.setContent("{\"laneId\":\"1\"}".getBytes(StandardCharsets.UTF_8));
+        forwarded.addHeader(LaneRoutingFilter.FORWARDED_HEADER, "http://localhost:8082");
+
+        assertThat(send(forwarded).getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(handled.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldTurnAwayRequestsWhenTheInstanceIsSaturated() throws Exception {
+        concurrencyLimit.tryAcquire();
+        concurrencyLimit.tryAcquire();
+
+        final MockHttpServletResponse overloaded = send(new MockHttpServletRequest("GET", LaneController.PATH));
+
+        assertThat(overloaded.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(overloaded.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        assertThat(handled.get()).isZero();
+    }
+
+    private MockHttpServletResponse move(final String body) throws Exception {
+        return patch(LaneController.PATH, body);
+    }
+
+    private MockHttpServletResponse bulk(final String body) throws Exception {
+        return patch(LaneController.PATH + "/bulk", body);
+    }
+
+    private MockHttpServletResponse patch(final String path, final String body) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("PATCH", path);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return send(request);
+    }
+
+    private MockHttpServletResponse send(final MockHttpServletRequest request) throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
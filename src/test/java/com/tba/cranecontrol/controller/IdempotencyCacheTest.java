@@ -0,0 +1,47 @@
+package com.tba.cranecontrol.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotencyCacheTest {
+
+    private final IdempotencyCache idempotencyCache = new IdempotencyCache(new SimpleMeterRegistry(), 60_000, 2);
+
+    @Test
+    void shouldDropTheOldestCompletedEntriesPastMaxEntries() {
+        final IdempotencyCache.Entry first = put("key-1");
+        idempotencyCache.complete(first, response());
+        put("key-2");
+        put("key-3");
+
+        assertThat(idempotencyCache.size()).isEqualTo(2);
+        assertThat(idempotencyCache.putIfAbsent("key-1", entry())).isNull();
+    }
+
+    @Test
+    void shouldKeepTheEntriesStillInProgressPastMaxEntries() {
+        final IdempotencyCache.Entry first = put("key-1");
+        put("key-2");
+        put("key-3");
+
+        assertThat(idempotencyCache.size()).isEqualTo(3);
+        assertThat(idempotencyCache.putIfAbsent("key-1", entry())).isSameAs(first);
+    }
+
+    private IdempotencyCache.Entry put(final String key) {
+        final IdempotencyCache.Entry entry = entry();
+        assertThat(idempotencyCache.putIfAbsent(key, entry)).isNull();
+        return entry;
+    }
+
+    private static IdempotencyCache.Entry entry() {
+        return new IdempotencyCache.Entry(new byte[0]);
+    }
+
+    private static IdempotencyCache.StoredResponse response() {
+        return new IdempotencyCache.StoredResponse(200, null, new byte[0]);
+    }
+}
@@ -0,0 +1,126 @@
+package com.tba.cranecontrol.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotencyFilterTest {
+
+    private final AtomicInteger handled = new AtomicInteger();
+
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    void setup() {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        filter = new IdempotencyFilter(new IdempotencyCache(meterRegistry, 60_000, 100), meterRegistry, 100);
+    }
+
+    @Test
+    void shouldReplayTheFirstResponseToARetry() throws Exception {
+        final MockHttpServletResponse first = send("key-1", "{\"laneId\":\"1\"}", answering(HttpStatus.OK));
+        final MockHttpServletResponse retry = send("key-1", "{\"laneId\":\"1\"}", answering(HttpStatus.OK));
+
+        assertThat(handled.get()).isEqualTo(1);
+        assertThat(retry.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString()).isEqualTo("handled 1");
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void shouldRejectAKeyReusedWithAnotherBody() throws Exception {
+        send("key-1", "{\"laneId\":\"1\"}", answering(HttpStatus.OK));
+
+        final MockHttpServletResponse reused = send("key-1", "{\"laneId\":\"2\"}", answering(HttpStatus.OK));
+
+        assertThat(reused.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY.value());
+        assertThat(handled.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldHandleTheRetryOfAServerErrorAgain() throws Exception {
+        send("key-1", "{\"laneId\":\"1\"}", answering(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        final MockHttpServletResponse retry = send("key-1", "{\"laneId\":\"1\"}", answering(HttpStatus.OK));
+
+        assertThat(retry.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(handled.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldHandleTheRetryOfAConflictAgain() throws Exception {
+        send("key-1", "{\"laneId\":\"1\"}", answering(HttpStatus.CONFLICT));
+
+        final MockHttpServletResponse retry = send("key-1", "{\"laneId\":\"1\"}", answering(HttpStatus.OK));
+
+        assertThat(retry.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(handled.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReplayAFinalClientError() throws Exception {
+        send("key-1", "{\"laneId\":\"1\"}", answering(HttpStatus.NOT_FOUND));
+
+        final MockHttpServletResponse retry = send("key-1", "{\"laneId\":\"1\"}", answering(HttpStatus.OK));
+
+        assertThat(retry.getStatus()).isEqualTo(HttpStatus.NOT_FOUND.value());
+        assertThat(handled.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldHandleTheRetryOfAResponseMarkedNotKeptAgain() throws Exception {
+        send("key-1", "{\"laneId\":\"1\"}", (request, response) -> {
+            request.setAttribute(IdempotencyFilter.NOT_KEPT_ATTRIBUTE, Boolean.TRUE);
+            answering(HttpStatus.OK).doFilter(request, response);
+        });
+
+        final MockHttpServletResponse retry = send("key-1", "{\"laneId\":\"1\"}", answering(HttpStatus.OK));
+
+        assertThat(retry.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(handled.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldLeaveRequestsWithoutAKeyAlone() throws Exception {
+        send(null, "{\"laneId\":\"1\"}", answering(HttpStatus.OK));
+        send(null, "{\"laneId\":\"1\"}", answering(HttpStatus.OK));
+
+        assertThat(handled.get()).isEqualTo(2);
+    }
+
+    private MockHttpServletResponse send(final String key, final String body, final FilterChain chain) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("PATCH", LaneController.PATH);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.KEY_HEADER, key);
+        }
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private FilterChain answering(final HttpStatus status) {
+        return (request, response) -> {
+            StreamUtils.copyToByteArray(request.getInputStream());
+            ((HttpServletResponse) response).setStatus(status.value());
+            response.getOutputStream().write(("handled " + handled.incrementAndGet()).getBytes(StandardCharsets.UTF_8));
+        };
+    }
+}
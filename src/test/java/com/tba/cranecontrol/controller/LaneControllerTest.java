@@ -2,37 +2,54 @@ package com.tba.cranecontrol.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import com.tba.cranecontrol.controller.dto.CraneMoveResultDTO;
 import com.tba.cranecontrol.controller.dto.LaneDTO;
+import com.tba.cranecontrol.controller.dto.LanePageDTO;
+import com.tba.cranecontrol.controller.request.BulkCraneMoveRequest;
 import com.tba.cranecontrol.controller.request.CraneMoveRequest;
 import com.tba.cranecontrol.controller.request.CreateLaneRequest;
 import com.tba.cranecontrol.exception.NotFoundException;
 import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.CraneMoveResult;
 import com.tba.cranecontrol.model.Lane;
 import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.model.LaneWindow;
+import com.tba.cranecontrol.model.MoveStatus;
 import com.tba.cranecontrol.service.LaneService;
+import com.tba.cranecontrol.service.LaneUpdates;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.restassured.http.Header;
 import io.restassured.module.mockmvc.RestAssuredMockMvc;
 
 @WebMvcTest(controllers = LaneController.class)
+@Import({LaneJsonCache.class, IdempotencyCache.class, SimpleMeterRegistry.class})
 class LaneControllerTest {
 
     @MockBean
     private LaneService laneService;
 
+    @MockBean
+    private LaneUpdates laneUpdates;
+
     @Autowired
     private WebApplicationContext context;
 
@@ -81,6 +98,82 @@ class LaneControllerTest {
         assertThat(lanes.size()).isEqualTo(0);
     }
 
+    @Test
+    void shouldReturnAPageWithTheNextCursorWhenTheLimitIsReached() {
+        when(laneService.findPage("1", 2)).thenReturn(List.of(
+                Lane.builder()
+                        .withPositions(10)
+                        .withId("2")
+                        .withCranes(List.of(new Crane(0, LaneOrder.FIRST), new Crane(11, LaneOrder.SECOND)))
+                        .build(),
+                Lane.builder()
+                        .withPositions(10)
+                        .withId("3")
+                        .withCranes(List.of(new Crane(0, LaneOrder.FIRST), new Crane(11, LaneOrder.SECOND)))
+                        .build()
+        ));
+        final LanePageDTO page = RestAssuredMockMvc.given()
+                .queryParam("after", "1")
+                .queryParam("limit", 2)
+                .when()
+                .get()
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().response().as(LanePageDTO.class);
+
+        assertThat(page.getLanes().size()).isEqualTo(2);
+        assertThat(page.getNext()).isEqualTo("3");
+    }
+
+    @Test
+    void shouldReturnTheLastPageWithoutANextCursor() {
+        when(laneService.findPage(null, 2)).thenReturn(List.of());
+        final LanePageDTO page = RestAssuredMockMvc.given()
+                .queryParam("limit", 2)
+                .when()
+                .get()
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().response().as(LanePageDTO.class);
+
+        assertThat(page.getLanes()).isEmpty();
+        assertThat(page.getNext()).isNull();
+    }
+
+    @Test
+    void shouldReturnLanesByWorkingWindowWithTheNextCursor() {
+        when(laneService.findByWorkingWindow(3, new LaneWindow(8, "1"), 1)).thenReturn(List.of(
+                Lane.builder()
+                        .withPositions(10)
+                        .withId("2")
+                        .withCranes(List.of(new Crane(2, LaneOrder.FIRST), new Crane(9, LaneOrder.SECOND)))
+                        .build()
+        ));
+        final LanePageDTO page = RestAssuredMockMvc.given()
+                .queryParam("minWindow", 3)
+                .queryParam("after", "8:1")
+                .queryParam("limit", 1)
+                .when()
+                .get("/available")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().response().as(LanePageDTO.class);
+
+        assertThat(page.getLanes()).extracting(LaneDTO::getId).containsExactly("2");
+        assertThat(page.getNext()).isEqualTo("6:2");
+    }
+
+    @Test
+    void shouldReturnABadRequestForAMalformedWindowCursor() {
+        RestAssuredMockMvc.given()
+                .queryParam("minWindow", 3)
+                .queryParam("after", "nope")
+                .when()
+                .get("/available")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
     @Test
     void shouldReturnALaneWhenFindByIdIsCalled() {
         final String laneId = "1";
@@ -106,6 +199,50 @@ class LaneControllerTest {
         assertThat(laneDTO.getCranes().get(1).getLaneOrder()).isEqualTo(LaneOrder.SECOND);
     }
 
+    @Test
+    void shouldTagALaneWithItsVersion() {
+        final String laneId = "1";
+        when(laneService.findById(laneId)).thenReturn(Lane.builder()
+                .withPositions(10)
+                .withId(laneId)
+                .withCranes(List.of(new Crane(0, LaneOrder.FIRST), new Crane(11, LaneOrder.SECOND)))
+                .withVersion(4L)
+                .build()
+        );
+        RestAssuredMockMvc.given()
+                .header(new Header("If-None-Match", "\"3\""))
+                .when()
+                .get("/{laneId}", laneId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", "\"4\"");
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWithoutReadingTheLaneWhenItsVersionIsKnown() {
+        final String laneId = "1";
+        when(laneService.findVersion(laneId)).thenReturn(Optional.of(4L));
+        RestAssuredMockMvc.given()
+                .header(new Header("If-None-Match", "\"4\""))
+                .when()
+                .get("/{laneId}", laneId)
+                .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+        verify(laneService, never()).findById(laneId);
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWithoutReadingTheLanesWhenTheAggregateVersionMatches() {
+        when(laneService.findAggregateVersion()).thenReturn(Optional.of("kc1-12"));
+        RestAssuredMockMvc.given()
+                .header(new Header("If-None-Match", "\"kc1-12\""))
+                .when()
+                .get()
+                .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+        verify(laneService, never()).findAll();
+    }
+
     @Test
     void shouldThrowANotFoundExceptionWhenThereIsNoLane() {
         final String laneId = "1";
@@ -120,7 +257,7 @@ class LaneControllerTest {
     @Test
     void shouldCreateLaneForAValidRequest() {
         final String laneId = "1";
-        when(laneService.create(2, 10)).thenReturn(
+        when(laneService.create(2, 10, 2)).thenReturn(
                 List.of(Lane.builder()
                                 .withPositions(10)
                                 .withId(laneId)
@@ -183,6 +320,62 @@ class LaneControllerTest {
         assertThat(laneDTO.getCranes().get(1).getCurrentPosition()).isEqualTo(6);
     }
 
+    @Test
+    void shouldReturnAnOutcomePerMoveForABulkMove() {
+        final CraneMove rejectedMove = new CraneMove("2", LaneOrder.SECOND, 0);
+        when(laneService.moveCranes(any())).thenReturn(List.of(
+                CraneMoveResult.applied(new CraneMove("1", LaneOrder.FIRST, 5), Lane.builder()
+                        .withPositions(10)
+                        .withId("1")
+                        .withCranes(List.of(
+                                new Crane(5, LaneOrder.FIRST),
+                                new Crane(11, LaneOrder.SECOND)
+                        ))
+                        .build()),
+                CraneMoveResult.rejected(rejectedMove, MoveStatus.REJECTED, "blocked")
+        ));
+        final List<CraneMoveResultDTO> results = RestAssuredMockMvc.given()
+                .header(new Header("Content-Type", "application/json; charset=utf-8"))
+                .body(new BulkCraneMoveRequest(List.of(
+                        new CraneMoveRequest("1", LaneOrder.FIRST, 5),
+                        new CraneMoveRequest("2", LaneOrder.SECOND, 0)
+                )))
+                .when()
+                .patch("/bulk")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().body().jsonPath().getList("$", CraneMoveResultDTO.class);
+
+        assertThat(results.size()).isEqualTo(2);
+        assertThat(results.get(0).getStatus()).isEqualTo(MoveStatus.APPLIED);
+        assertThat(results.get(0).getLane().getCranes().get(0).getCurrentPosition()).isEqualTo(5);
+        assertThat(results.get(1).getStatus()).isEqualTo(MoveStatus.REJECTED);
+        assertThat(results.get(1).getLane()).isNull();
+    }
+
+    @Test
+    void shouldFailABulkMoveWithAnInvalidMove() {
+        RestAssuredMockMvc.given()
+                .header(new Header("Content-Type", "application/json; charset=utf-8"))
+                .body(new BulkCraneMoveRequest(List.of(new CraneMoveRequest("1", null, 5))))
+                .when()
+                .patch("/bulk")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void shouldFailAMoveToANegativePosition() {
+        RestAssuredMockMvc.given()
+                .header(new Header("Content-Type", "application/json; charset=utf-8"))
+                .body(new CraneMoveRequest("1", LaneOrder.FIRST, -1))
+                .when()
+                .patch()
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+        verify(laneService, never()).moveCrane(any(), any(), any());
+    }
+
     @Test
     void shouldFailToCreateLaneForAnInvalidNumberOfLanes() {
         RestAssuredMockMvc.given()
@@ -0,0 +1,102 @@
+package com.tba.cranecontrol.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tba.cranecontrol.controller.converters.LaneConverter;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.service.LaneUpdates;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class LaneJsonCacheTest {
+
+    @Mock
+    private LaneUpdates laneUpdates;
+
+    private MeterRegistry meterRegistry;
+
+    private LaneJsonCache laneJsonCache;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        laneJsonCache = new LaneJsonCache(new ObjectMapper(), new LaneConverter(), laneUpdates, meterRegistry, 300);
+    }
+
+    @Test
+    void shouldServeTheCachedJsonWhileTheVersionIsTheSame() {
+        final byte[] json = laneJsonCache.serialize(lane("1", 1L, 3));
+
+        assertThat(new String(json, StandardCharsets.UTF_8)).contains("\"id\":\"1\"");
+        assertThat(laneJsonCache.find("1", 1L)).contains(json);
+        assertThat(laneJsonCache.find("1", 2L)).isEmpty();
+        assertThat(requests("lane", "hit")).isEqualTo(1);
+        assertThat(requests("lane", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDropTheLanesChangedByMovesAndCreates() {
+        laneJsonCache.subscribe();
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Consumer<List<Lane>>> sink = ArgumentCaptor.forClass(Consumer.class);
+        verify(laneUpdates).subscribe(any(), sink.capture());
+        laneJsonCache.serializeList(List.of(lane("1", 1L, 3)), "a-1");
+
+        sink.getValue().accept(List.of(lane("1", 2L, 5)));
+
+        assertThat(laneJsonCache.findList("a-1")).isEmpty();
+        assertThat(laneJsonCache.getBytes()).isZero();
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedLanesOverTheSizeLimit() {
+        laneJsonCache.serialize(lane("1", 1L, 3));
+        laneJsonCache.serialize(lane("2", 1L, 3));
+        laneJsonCache.find("1", 1L);
+        laneJsonCache.serialize(lane("3", 1L, 3));
+
+        assertThat(laneJsonCache.getBytes()).isLessThanOrEqualTo(300);
+        assertThat(laneJsonCache.find("2", 1L)).isEmpty();
+        assertThat(laneJsonCache.find("3", 1L)).isPresent();
+    }
+
+    @Test
+    void shouldJoinTheLanesIntoAnArrayCachedForTheAggregateVersion() {
+        final byte[] json = laneJsonCache.serializeList(List.of(lane("1", 1L, 3), lane("2", 1L, 4)), "a-2");
+
+        assertThat(new String(json, StandardCharsets.UTF_8)).startsWith("[{").endsWith("}]").contains("},{");
+        assertThat(laneJsonCache.findList("a-2")).contains(json);
+        assertThat(laneJsonCache.findList("a-3")).isEmpty();
+    }
+
+    private double requests(final String cache, final String result) {
+        return meterRegistry.get(LaneJsonCache.REQUESTS).tag("cache", cache).tag("result", result).counter().count();
+    }
+
+    private static Lane lane(final String id, final Long version, final int firstCranePosition) {
+        return Lane.builder()
+                .withId(id)
+                .withPositions(10)
+                .withCranes(List.of(new Crane(firstCranePosition, LaneOrder.FIRST), new Crane(11, LaneOrder.SECOND)))
+                .withVersion(version)
+                .build();
+    }
+}
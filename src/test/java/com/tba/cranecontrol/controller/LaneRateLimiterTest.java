@@ -0,0 +1,36 @@
+package com.tba.cranecontrol.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class LaneRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final LaneRateLimiter limiter = new LaneRateLimiter(1, 2, 10, now::get);
+
+    @Test
+    void shouldNotPassOverEveryBucketOnEachMoveWhileManyLanesAreActive() {
+        for (int move = 0; move < 2000; move++) {
+            assertThat(limiter.tryAcquire("lane-" + move % 1000, 1)).isZero();
+        }
+
+        assertThat(limiter.size()).isEqualTo(1000);
+        assertThat(limiter.getSweeps()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDropTheFullBucketsOnTheNextPass() {
+        for (int lane = 0; lane < 100; lane++) {
+            limiter.tryAcquire("lane-" + lane, 1);
+        }
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        limiter.tryAcquire("other", 1);
+
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,188 @@
+package com.tba.cranecontrol.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.sun.net.httpserver.HttpServer;
+import com.tba.cranecontrol.service.LaneOwnership;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LaneRoutingFilterTest {
+
+    private static final String SELF = "http://localhost:8081";
+    private static final String DOWN = "http://localhost:1";
+    private static final String BULK_PATH = LaneController.PATH + "/bulk";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<String> localBodies = new CopyOnWriteArrayList<>();
+    private final List<String> remoteBodies = new CopyOnWriteArrayList<>();
+    private final List<String> remoteKeys = new CopyOnWriteArrayList<>();
+
+    private volatile int remoteStatus = HttpStatus.OK.value();
+    private HttpServer remote;
+    private String other;
+    private LaneRoutingFilter filter;
+
+    @BeforeEach
+    void setup() throws Exception {
+        remote = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        remote.createContext(BULK_PATH, exchange -> {
+            final byte[] body = StreamUtils.copyToByteArray(exchange.getRequestBody());
+            remoteBodies.add(new String(body, StandardCharsets.UTF_8));
+            remoteKeys.add(exchange.getRequestHeaders().getFirst(IdempotencyFilter.KEY_HEADER));
+            final byte[] answer = remoteStatus == HttpStatus.OK.value() ? answer(body) : new byte[0];
+            exchange.sendResponseHeaders(remoteStatus, answer.length == 0 ? -1 : answer.length);
+            exchange.getResponseBody().write(answer);
+            exchange.close();
+        });
+        remote.start();
+        other = "http://localhost:" + remote.getAddress().getPort();
+
+        final LaneOwnership laneOwnership = mock(LaneOwnership.class);
+        when(laneOwnership.getSelf()).thenReturn(SELF);
+        when(laneOwnership.ownerOf("1")).thenReturn(SELF);
+        when(laneOwnership.ownerOf("2")).thenReturn(other);
+        when(laneOwnership.ownerOf("3")).thenReturn(DOWN);
+
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final IdempotencyFilter idempotencyFilter =
+                new IdempotencyFilter(new IdempotencyCache(meterRegistry, 60_000, 100), meterRegistry, 100);
+        filter = new LaneRoutingFilter(laneOwnership, idempotencyFilter, mapper, meterRegistry, "forward", 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        remote.stop(0);
+    }
+
+    @Test
+    void shouldSplitTheMovesByOwnerAndMergeTheResultsInRequestOrder() throws Exception {
+        final MockHttpServletResponse response = send(null, moves("2", "1", "2"));
+
+        assertThat(remoteBodies).containsExactly(moves("2", "2"));
+        assertThat(localBodies).containsExactly(moves("1"));
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        final JsonNode results = mapper.readTree(response.getContentAsByteArray());
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).path("laneId").asText()).isEqualTo("2");
+        assertThat(results.get(1).path("laneId").asText()).isEqualTo("1");
+        assertThat(results.get(2).path("laneId").asText()).isEqualTo("2");
+    }
+
+    @Test
+    void shouldReportTheMovesOfAFailingOwnerInTheResultShape() throws Exception {
+        remoteStatus = HttpStatus.INTERNAL_SERVER_ERROR.value();
+
+        final MockHttpServletRequest request = request(null, moves("2", "1"));
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, localChain());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(request.getAttribute(IdempotencyFilter.NOT_KEPT_ATTRIBUTE)).isEqualTo(Boolean.TRUE);
+        final JsonNode results = mapper.readTree(response.getContentAsByteArray());
+        final JsonNode failed = results.get(0);
+        assertThat(failed.path("laneId").asText()).isEqualTo("2");
+        assertThat(failed.path("laneOrder").asText()).isEqualTo("FIRST");
+        assertThat(failed.path("desiredPosition").asInt()).isEqualTo(3);
+        assertThat(failed.path("status").asText()).isEqualTo("FAILED");
+        assertThat(failed.path("message").asText()).contains("500");
+        assertThat(failed.has("move")).isFalse();
+        assertThat(results.get(1).path("status").asText()).isEqualTo("APPLIED");
+    }
+
+    @Test
+    void shouldKeyEveryGroupOnItsOwnAndKeepTheLocalOne() throws Exception {
+        final MockHttpServletResponse first = send("key-1", moves("2", "1"));
+        final MockHttpServletResponse retry = send("key-1", moves("2", "1"));
+
+        assertThat(remoteKeys).containsExactly("key-1@" + other, "key-1@" + other);
+        assertThat(localBodies).containsExactly(moves("1"));
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+    }
+
+    @Test
+    void shouldHandleTheMovesOfAnUnreachableOwnerLocally() throws Exception {
+        final MockHttpServletResponse response = send(null, moves("3", "1", "3"));
+
+        assertThat(localBodies).containsExactly(moves("3", "1", "3"));
+        final JsonNode results = mapper.readTree(response.getContentAsByteArray());
+        assertThat(results).hasSize(3);
+        results.forEach(result -> assertThat(result.path("status").asText()).isEqualTo("APPLIED"));
+    }
+
+    @Test
+    void shouldKeyTheMovesOfAnUnreachableOwnerForThatOwner() throws Exception {
+        send("key-1", moves("3", "1"));
+        send("key-1", moves("3", "1"));
+
+        assertThat(localBodies).containsExactly(moves("3"), moves("1"));
+    }
+
+    private MockHttpServletResponse send(final String key, final String body) throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(key, body), response, localChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(final String key, final String body) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("PATCH", BULK_PATH);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.KEY_HEADER, key);
+        }
+        return request;
+    }
+
+    private FilterChain localChain() {
+        return (request, response) -> {
+            final byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+            localBodies.add(new String(body, StandardCharsets.UTF_8));
+            ((HttpServletResponse) response).setStatus(HttpStatus.OK.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(answer(body));
+        };
+    }
+
+    /**
+     * Answers every move as applied, the way the lane controller would.
+     */
+    private byte[] answer(final byte[] body) throws IOException {
+        final ArrayNode results = mapper.createArrayNode();
+        mapper.readTree(body).path("moves").forEach(move -> results.addObject()
+                .put("laneId", move.path("laneId").asText())
+                .put("status", "APPLIED"));
+        return mapper.writeValueAsBytes(results);
+    }
+
+    private String moves(final String... laneIds) throws Exception {
+        final ArrayNode moves = mapper.createArrayNode();
+        for (final String laneId : laneIds) {
+            moves.addObject().put("laneId", laneId).put("laneOrder", "FIRST").put("desiredPosition", 3);
+        }
+        return mapper.writeValueAsString(mapper.createObjectNode().set("moves", moves));
+    }
+}
@@ -0,0 +1,179 @@
+package com.tba.cranecontrol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+
+@ExtendWith(MockitoExtension.class)
+class CachedLaneStoreTest {
+
+    private static final BsonDocument RESUME_TOKEN = new BsonDocument("_data", new BsonString("82600001"));
+
+    @Mock
+    private LaneRepository laneRepository;
+
+    private CachedLaneStore laneStore;
+
+    @BeforeEach
+    void setup() {
+        laneStore = new CachedLaneStore(laneRepository, 3, 500, 10, 60_000, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        laneStore.shutdown();
+    }
+
+    @Test
+    void shouldReadFromMongoUntilTheLanesAreLoaded() {
+        when(laneRepository.findById("1")).thenReturn(Optional.of(lane("1", 0, 1L)));
+
+        assertThat(laneStore.findById("1")).isPresent();
+        assertThat(laneStore.findVersion("1")).isEmpty();
+        assertThat(laneStore.findAggregateVersion()).isEmpty();
+    }
+
+    @Test
+    void shouldServeReadsFromMemoryOnceTheLanesAreLoaded() {
+        givenStoredLanes(lane("1", 0, 1L), lane("2", 0, 4L));
+
+        laneStore.opened(false);
+
+        assertThat(laneStore.findById("2").get().getVersion()).isEqualTo(4L);
+        assertThat(laneStore.findVersion("1")).contains(1L);
+        assertThat(laneStore.findPage("1", 10)).extracting(Lane::getId).containsExactly("2");
+        verify(laneRepository, never()).findById(any());
+    }
+
+    @Test
+    void shouldOnlyReplaceALaneWithAHigherVersion() {
+        givenStoredLanes(lane("1", 0, 1L));
+        laneStore.opened(false);
+        final String aggregateVersion = laneStore.findAggregateVersion().get();
+
+        laneStore.changed(lane("1", 7, 3L));
+        laneStore.changed(lane("1", 5, 2L));
+
+        assertThat(laneStore.findById("1").get().getCranes().get(0).getCurrentPosition()).isEqualTo(7);
+        assertThat(laneStore.findAggregateVersion().get()).isNotEqualTo(aggregateVersion);
+    }
+
+    @Test
+    void shouldForgetDeletedLanes() {
+        givenStoredLanes(lane("1", 0, 1L));
+        laneStore.opened(false);
+
+        laneStore.deleted("1");
+
+        assertThat(laneStore.findById("1")).isEmpty();
+    }
+
+    @Test
+    void shouldKeepTheLanesChangedWhileReloading() {
+        doAnswer(invocation -> {
+            laneStore.changed(lane("3", 0, 1L));
+            laneStore.deleted("2");
+            final Consumer<Lane> action = invocation.getArgument(0);
+            List.of(lane("1", 0, 1L), lane("2", 0, 1L)).forEach(action);
+            return null;
+        }).when(laneRepository).streamAll(any());
+
+        laneStore.opened(false);
+
+        assertThat(laneStore.findPage(null, 10)).extracting(Lane::getId).containsExactly("1", "3");
+    }
+
+    @Test
+    void shouldReadFromMongoWhenTheStreamWasSilentForTooLong() throws InterruptedException {
+        laneStore = new CachedLaneStore(laneRepository, 3, 500, 10, 5, 1);
+        givenStoredLanes(lane("1", 0, 1L));
+        laneStore.opened(false);
+        when(laneRepository.findById("1")).thenReturn(Optional.of(lane("1", 9, 2L)));
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (laneStore.isFresh() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertThat(laneStore.isFresh()).isFalse();
+        assertThat(laneStore.findById("1").get().getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldResumeAfterAFailureAndReloadWhenResumingIsNotPossible() throws InterruptedException {
+        givenStoredLanes(lane("1", 0, 1L));
+        final CountDownLatch reloaded = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            final LaneChangeListener listener = invocation.getArgument(2);
+            listener.opened(false);
+            listener.advanced(RESUME_TOKEN);
+            throw new IllegalStateException("connection reset");
+        }).doThrow(new MongoCommandException(
+                new BsonDocument("code", new BsonInt32(286)).append("errmsg", new BsonString("history lost")),
+                new ServerAddress()
+        )).doAnswer(invocation -> {
+            ((LaneChangeListener) invocation.getArgument(2)).opened(false);
+            reloaded.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }).when(laneRepository).watchChanges(any(), anyLong(), any());
+
+        laneStore.start();
+
+        assertThat(reloaded.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(laneRepository).watchChanges(eq(RESUME_TOKEN), anyLong(), any());
+        verify(laneRepository, times(2)).watchChanges(isNull(), anyLong(), any());
+        verify(laneRepository, times(2)).streamAll(any());
+        assertThat(laneStore.isFresh()).isTrue();
+    }
+
+    private void givenStoredLanes(final Lane... lanes) {
+        doAnswer(invocation -> {
+            final Consumer<Lane> action = invocation.getArgument(0);
+            List.of(lanes).forEach(action);
+            return null;
+        }).when(laneRepository).streamAll(any());
+    }
+
+    private static Lane lane(final String id, final int first, final long version) {
+        return Lane.builder()
+                .withId(id)
+                .withPositions(10)
+                .withCranes(List.of(new Crane(first, LaneOrder.FIRST), new Crane(11, LaneOrder.SECOND)))
+                .withVersion(version)
+                .build();
+    }
+}
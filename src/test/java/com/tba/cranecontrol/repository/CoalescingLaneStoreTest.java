@@ -0,0 +1,106 @@
+package com.tba.cranecontrol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tba.cranecontrol.exception.LaneConflictException;
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingLaneStoreTest {
+
+    @Mock
+    private LaneRepository laneRepository;
+
+    private CoalescingLaneStore laneStore;
+
+    @BeforeEach
+    void setup() {
+        laneStore = new CoalescingLaneStore(laneRepository, 3, 500, 50, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        laneStore.shutdown();
+    }
+
+    @Test
+    void shouldWriteOnlyTheFinalPositionsOfABurst() {
+        when(laneRepository.findById("1")).thenReturn(Optional.of(lane(0, 1L)));
+        when(laneRepository.compareAndSetCranes(any(), any()))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(1)));
+
+        final CompletableFuture<Lane> first = laneStore.submit("1", lane -> lane.setCranePosition(LaneOrder.FIRST, 3));
+        final CompletableFuture<Lane> rejected = laneStore.submit("1", lane -> {
+            throw new MovementNotAllowedException("blocked", MovementNotAllowedException.Reason.BLOCKED_BY_PREVIOUS_CRANE);
+        });
+        final CompletableFuture<Lane> last = laneStore.submit("1", lane -> lane.setCranePosition(LaneOrder.FIRST, 5));
+
+        assertThat(first.join().getCranes().get(0).getCurrentPosition()).isEqualTo(3);
+        assertThat(first.join().getVersion()).isEqualTo(2L);
+        assertThat(last.join().getCranes().get(0).getCurrentPosition()).isEqualTo(5);
+        assertThat(last.join().getVersion()).isEqualTo(3L);
+        final CompletionException failure = assertThrows(CompletionException.class, rejected::join);
+        assertThat(failure.getCause()).isInstanceOf(MovementNotAllowedException.class);
+        final ArgumentCaptor<Lane> written = ArgumentCaptor.forClass(Lane.class);
+        verify(laneRepository).compareAndSetCranes(any(), written.capture());
+        assertThat(written.getValue().getCranes().get(0).getCurrentPosition()).isEqualTo(5);
+        assertThat(written.getValue().getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldReplayTheBurstWhenTheLaneWasChangedConcurrently() {
+        when(laneRepository.findById("1"))
+                .thenReturn(Optional.of(lane(0, 1L)))
+                .thenReturn(Optional.of(lane(1, 2L)));
+        when(laneRepository.compareAndSetCranes(any(), any()))
+                .thenReturn(Optional.empty())
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(1)));
+
+        final Lane moved = laneStore.update("1", lane -> lane.setCranePosition(LaneOrder.FIRST, 5));
+
+        assertThat(moved.getVersion()).isEqualTo(3L);
+        verify(laneRepository, times(2)).compareAndSetCranes(any(), any());
+    }
+
+    @Test
+    void shouldFailEveryUpdateOfTheBurstWhenTheAttemptsAreExhausted() {
+        when(laneRepository.findById("1")).thenReturn(Optional.of(lane(0, 1L)));
+        when(laneRepository.compareAndSetCranes(any(), any())).thenReturn(Optional.empty());
+
+        assertThrows(
+                LaneConflictException.class,
+                () -> laneStore.update("1", lane -> lane.setCranePosition(LaneOrder.FIRST, 5))
+        );
+        verify(laneRepository, times(3)).compareAndSetCranes(any(), any());
+    }
+
+    private static Lane lane(final int firstCranePosition, final Long version) {
+        return Lane.builder()
+                .withId("1")
+                .withPositions(10)
+                .withCranes(List.of(new Crane(firstCranePosition, LaneOrder.FIRST), new Crane(11, LaneOrder.SECOND)))
+                .withVersion(version)
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.tba.cranecontrol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryLaneStoreTest {
+
+    @Mock
+    private LaneRepository laneRepository;
+
+    private InMemoryLaneStore laneStore;
+
+    @BeforeEach
+    void setup() {
+        doAnswer(invocation -> {
+            final Consumer<Lane> action = invocation.getArgument(0);
+            List.of(lane("1", 0, 11), lane("3", 0, 11)).forEach(action);
+            return null;
+        }).when(laneRepository).streamAll(any());
+        laneStore = new InMemoryLaneStore(laneRepository, 60_000, 1000);
+        laneStore.load();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        laneStore.shutdown();
+    }
+
+    @Test
+    void shouldServeLanesLoadedOnStartup() {
+        assertThat(laneStore.findById("1")).isPresent();
+        assertThat(laneStore.findAll().size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPageThroughLanesOrderedById() {
+        when(laneRepository.insert(anyList())).thenReturn(List.of(lane("2", 0, 11)));
+        laneStore.insertAll(List.of(lane(null, 0, 11)));
+
+        final List<Lane> firstPage = laneStore.findPage(null, 2);
+        final List<Lane> secondPage = laneStore.findPage(firstPage.get(1).getId(), 2);
+
+        assertThat(firstPage).extracting(Lane::getId).containsExactly("1", "2");
+        assertThat(secondPage).extracting(Lane::getId).containsExactly("3");
+    }
+
+    @Test
+    void shouldWriteNewLanesThroughToTheRepository() {
+        final List<Lane> newLanes = List.of(Lane.builder()
+                .withPositions(10)
+                .withCranes(List.of(new Crane(0, LaneOrder.FIRST), new Crane(11, LaneOrder.SECOND)))
+                .build());
+        when(laneRepository.insert(newLanes)).thenReturn(List.of(lane("2", 0, 11)));
+
+        final List<Lane> inserted = laneStore.insertAll(newLanes);
+
+        assertThat(inserted.get(0).getId()).isEqualTo("2");
+        assertThat(laneStore.findById("2")).isPresent();
+        assertThat(laneStore.getPendingWrites()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldFlushUpdatedLanesToTheRepository() {
+        laneStore.update("1", lane -> lane.setCranePosition(LaneOrder.FIRST, 5));
+
+        laneStore.flush();
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<List<Lane>> captor = ArgumentCaptor.forClass(List.class);
+        verify(laneRepository).saveAll(captor.capture());
+        assertThat(captor.getValue().get(0).getCranes().get(0).getCurrentPosition()).isEqualTo(5);
+        assertThat(laneStore.getPendingWrites()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldChangeTheVersionsKnownInMemoryOnEveryUpdate() {
+        final String aggregateVersion = laneStore.findAggregateVersion().get();
+
+        laneStore.update("1", lane -> lane.setCranePosition(LaneOrder.FIRST, 5));
+
+        assertThat(laneStore.findVersion("1")).contains(1L);
+        assertThat(laneStore.findVersion("2")).isEmpty();
+        assertThat(laneStore.findAggregateVersion().get()).isNotEqualTo(aggregateVersion);
+    }
+
+    @Test
+    void shouldKeepTheLaneUntouchedWhenTheMutationFails() {
+        assertThrows(MovementNotAllowedException.class, () -> laneStore.update("1", lane -> {
+            throw new MovementNotAllowedException("blocked", MovementNotAllowedException.Reason.BLOCKED_BY_PREVIOUS_CRANE);
+        }));
+
+        laneStore.flush();
+
+        verify(laneRepository, never()).saveAll(anyList());
+        assertThat(laneStore.findById("1").get().getCranes().get(0).getCurrentPosition()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldFindParkedLanesAndLanesByWorkingWindowAfterUpdates() {
+        laneStore.update("1", lane -> lane.setCranePosition(LaneOrder.FIRST, 5));
+
+        assertThat(laneStore.findParked(null, 10)).extracting(Lane::getId).containsExactly("3");
+        assertThat(laneStore.findByWorkingWindow(5, null, 10)).extracting(Lane::getId).containsExactly("3", "1");
+        assertThat(laneStore.findByWorkingWindow(6, null, 10)).extracting(Lane::getId).containsExactly("3");
+    }
+
+    @Test
+    void shouldThrowANotFoundExceptionWhenUpdatingAMissingLane() {
+        assertThrows(NotFoundException.class, () -> laneStore.update("2", lane -> {
+        }));
+    }
+
+    private static Lane lane(final String id, final int first, final int second) {
+        return Lane.builder()
+                .withId(id)
+                .withPositions(10)
+                .withCranes(List.of(new Crane(first, LaneOrder.FIRST), new Crane(second, LaneOrder.SECOND)))
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.tba.cranecontrol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.CraneMoveEvent;
+import com.tba.cranecontrol.model.JournalCheckpoint;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+
+@ExtendWith(MockitoExtension.class)
+class JournalLaneStoreTest {
+
+    private static final String CHECKPOINT = "5f0000000000000000000001";
+
+    @Mock
+    private LaneRepository laneRepository;
+
+    @Mock
+    private CraneMoveEventRepository eventRepository;
+
+    @Mock
+    private JournalCheckpointRepository checkpointRepository;
+
+    private JournalLaneStore laneStore;
+
+    @BeforeEach
+    void setup() {
+        doAnswer(invocation -> {
+            final Consumer<Lane> action = invocation.getArgument(0);
+            List.of(lane("1", 0, 11, 3L), lane("2", 0, 11, 1L)).forEach(action);
+            return null;
+        }).when(laneRepository).streamAll(any());
+        when(checkpointRepository.findById(JournalCheckpoint.LANES))
+                .thenReturn(Optional.of(new JournalCheckpoint(JournalCheckpoint.LANES, CHECKPOINT)));
+        doAnswer(invocation -> {
+            final Consumer<CraneMoveEvent> action = invocation.getArgument(1);
+            action.accept(new CraneMoveEvent("5f0000000000000000000002", "1", 2L, LaneOrder.FIRST, 0, 4, 0));
+            action.accept(new CraneMoveEvent("5f0000000000000000000003", "1", 3L, LaneOrder.FIRST, 0, 2, 0));
+            action.accept(new CraneMoveEvent("5f0000000000000000000004", "2", 2L, LaneOrder.FIRST, 0, 8, 1));
+            return null;
+        }).when(eventRepository).streamAfter(eq(CHECKPOINT), any());
+        laneStore = new JournalLaneStore(
+                laneRepository, eventRepository, checkpointRepository, 60_000, 1000, 60_000, 1000
+        );
+        laneStore.load();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        laneStore.shutdown();
+    }
+
+    @Test
+    void shouldReplayTheEventsTheSnapshotsDoNotIncludeYet() {
+        final Lane first = laneStore.findById("1").get();
+        final Lane second = laneStore.findById("2").get();
+
+        assertThat(first.getCranes().get(0).getCurrentPosition()).isEqualTo(2);
+        assertThat(first.getVersion()).isEqualTo(3L);
+        assertThat(second.getCranes().get(0).getCurrentPosition()).isEqualTo(8);
+        assertThat(second.getCranes().get(1).getCurrentPosition()).isEqualTo(9);
+        assertThat(second.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldCommitAnEventForEveryMove() {
+        laneStore.update("2", lane -> {
+            lane.setCranePosition(LaneOrder.FIRST, 10);
+            lane.setCranePosition(LaneOrder.SECOND, 11);
+            lane.moved(LaneOrder.FIRST, 8, 10, 1);
+        });
+        assertThat(laneStore.getPendingEvents()).isEqualTo(1);
+
+        laneStore.commit();
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<List<CraneMoveEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(eventRepository).insert(captor.capture());
+        final CraneMoveEvent event = captor.getValue().get(0);
+        assertThat(event.getLaneId()).isEqualTo("2");
+        assertThat(event.getVersion()).isEqualTo(3L);
+        assertThat(event.getToPosition()).isEqualTo(10);
+        assertThat(event.getPushedCranes()).isEqualTo(1);
+        assertThat(laneStore.getPendingEvents()).isZero();
+    }
+
+    @Test
+    void shouldKeepTheEventsOfAFailedCommitForTheNextOne() {
+        laneStore.update("1", lane -> {
+            lane.setCranePosition(LaneOrder.SECOND, 6);
+            lane.moved(LaneOrder.SECOND, 11, 6, 0);
+        });
+        when(eventRepository.insert(anyList())).thenThrow(new IllegalStateException("insert failed"));
+
+        laneStore.commit();
+
+        assertThat(laneStore.getPendingEvents()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldMoveTheCheckpointOnceTheSnapshotsAreWritten() {
+        laneStore.flush();
+
+        verify(laneRepository).saveAll(anyList());
+        final ArgumentCaptor<JournalCheckpoint> captor = ArgumentCaptor.forClass(JournalCheckpoint.class);
+        verify(checkpointRepository).save(captor.capture());
+        assertThat(captor.getValue().getLastEventId()).isEqualTo("5f0000000000000000000004");
+    }
+
+    @Test
+    void shouldKeepTheCheckpointWhenTheSnapshotsFail() {
+        when(laneRepository.saveAll(anyList())).thenThrow(new IllegalStateException("save failed"));
+
+        laneStore.flush();
+
+        verify(checkpointRepository, never()).save(any());
+    }
+
+    private static Lane lane(final String id, final int first, final int second, final Long version) {
+        return Lane.builder()
+                .withId(id)
+                .withPositions(10)
+                .withCranes(List.of(new Crane(first, LaneOrder.FIRST), new Crane(second, LaneOrder.SECOND)))
+                .withVersion(version)
+                .build();
+    }
+}
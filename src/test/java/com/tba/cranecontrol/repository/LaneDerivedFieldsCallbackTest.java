@@ -0,0 +1,50 @@
+package com.tba.cranecontrol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+
+class LaneDerivedFieldsCallbackTest {
+
+    private final LaneDerivedFieldsCallback callback = new LaneDerivedFieldsCallback();
+
+    @Test
+    void shouldAddTheDerivedFieldsOfAParkedLane() {
+        final Document document = new Document();
+
+        callback.onBeforeSave(lane(0, 10, 11), document, "lane");
+
+        assertThat(document.getBoolean(LaneQueries.PARKED)).isTrue();
+        assertThat(document.getInteger(LaneQueries.WORKING_WINDOW)).isEqualTo(9);
+    }
+
+    @Test
+    void shouldAddTheDerivedFieldsOfAWorkingLane() {
+        final Document document = new Document();
+
+        callback.onBeforeSave(lane(3, 5, 11), document, "lane");
+
+        assertThat(document.getBoolean(LaneQueries.PARKED)).isFalse();
+        assertThat(document.getInteger(LaneQueries.WORKING_WINDOW)).isEqualTo(5);
+    }
+
+    private static Lane lane(final int first, final int second, final int third) {
+        return Lane.builder()
+                .withId("1")
+                .withPositions(10)
+                .withCranes(List.of(
+                        new Crane(first, LaneOrder.FIRST),
+                        new Crane(second, LaneOrder.SECOND),
+                        new Crane(third, LaneOrder.THIRD)
+                ))
+                .withVersion(1L)
+                .build();
+    }
+}
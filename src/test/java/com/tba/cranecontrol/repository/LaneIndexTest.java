@@ -0,0 +1,65 @@
+package com.tba.cranecontrol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.LaneWindow;
+
+class LaneIndexTest {
+
+    private final LaneIndex index = new LaneIndex();
+
+    @Test
+    void shouldPageThroughParkedLanesById() {
+        index.put(lane("1", 0, 11));
+        index.put(lane("2", 4, 11));
+        index.put(lane("3", 0, 11));
+        index.put(lane("4", 0, 11));
+
+        assertThat(index.findParked(null, 2)).containsExactly("1", "3");
+        assertThat(index.findParked("3", 2)).containsExactly("4");
+    }
+
+    @Test
+    void shouldPageThroughLanesByWorkingWindowLargestFirst() {
+        index.put(lane("1", 0, 6));
+        index.put(lane("2", 0, 9));
+        index.put(lane("3", 2, 9));
+        index.put(lane("4", 8, 9));
+
+        final List<String> firstPage = index.findByWorkingWindow(5, null, 2);
+        final List<String> secondPage = index.findByWorkingWindow(5, new LaneWindow(6, "3"), 2);
+
+        assertThat(firstPage).containsExactly("2", "3");
+        assertThat(secondPage).containsExactly("1");
+    }
+
+    @Test
+    void shouldMoveALaneWhenItChangesAndForgetItWhenRemoved() {
+        index.put(lane("1", 0, 11));
+        index.put(lane("1", 3, 11));
+
+        assertThat(index.findParked(null, 10)).isEmpty();
+        assertThat(index.findByWorkingWindow(0, null, 10)).containsExactly("1");
+        assertThat(index.findByWorkingWindow(8, null, 10)).isEmpty();
+
+        index.remove("1");
+
+        assertThat(index.findByWorkingWindow(0, null, 10)).isEmpty();
+    }
+
+    private static LaneState lane(final String id, final int first, final int second) {
+        return LaneState.of(Lane.builder()
+                .withId(id)
+                .withPositions(10)
+                .withCranes(List.of(new Crane(first, LaneOrder.FIRST), new Crane(second, LaneOrder.SECOND)))
+                .build());
+    }
+}
@@ -0,0 +1,119 @@
+package com.tba.cranecontrol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+
+class MappedLaneStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private MappedLaneStore laneStore;
+
+    @BeforeEach
+    void setup() throws IOException {
+        laneStore = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException, InterruptedException {
+        laneStore.close();
+    }
+
+    @Test
+    void shouldFindInsertedLanesById() {
+        final Lane inserted = laneStore.insertAll(List.of(lane(0, 11))).get(0);
+
+        final Lane found = laneStore.findById(inserted.getId()).get();
+
+        assertThat(found.getPositions()).isEqualTo(10);
+        assertThat(found.getCranes()).extracting(Crane::getCurrentPosition).containsExactly(0, 11);
+        assertThat(found.getVersion()).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldKeepUpdatesAfterReopeningTheFile() throws IOException, InterruptedException {
+        final String laneId = laneStore.insertAll(List.of(lane(0, 11))).get(0).getId();
+
+        final Lane updated = laneStore.update(laneId, lane -> lane.setCranePosition(LaneOrder.FIRST, 5));
+        laneStore.close();
+        laneStore = open();
+
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        final Lane reopened = laneStore.findById(laneId).get();
+        assertThat(reopened.getCranes().get(0).getCurrentPosition()).isEqualTo(5);
+        assertThat(reopened.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldGrowTheFileWhenItIsFull() {
+        final List<Lane> lanes = new ArrayList<>();
+        for (int lane = 0; lane < 10; lane++) {
+            lanes.add(lane(0, 11));
+        }
+
+        final List<Lane> inserted = laneStore.insertAll(lanes);
+
+        assertThat(laneStore.findAll()).hasSize(10);
+        assertThat(laneStore.findById(inserted.get(9).getId())).isPresent();
+    }
+
+    @Test
+    void shouldPageThroughLanesOrderedById() {
+        final List<Lane> inserted = laneStore.insertAll(List.of(lane(0, 11), lane(0, 11), lane(0, 11)));
+
+        final List<Lane> firstPage = laneStore.findPage(null, 2);
+        final List<Lane> secondPage = laneStore.findPage(firstPage.get(1).getId(), 2);
+
+        assertThat(firstPage).extracting(Lane::getId)
+                .containsExactly(inserted.get(0).getId(), inserted.get(1).getId());
+        assertThat(secondPage).extracting(Lane::getId).containsExactly(inserted.get(2).getId());
+    }
+
+    @Test
+    void shouldKeepTheLaneUntouchedWhenTheMutationFails() {
+        final String laneId = laneStore.insertAll(List.of(lane(0, 11))).get(0).getId();
+
+        assertThrows(MovementNotAllowedException.class, () -> laneStore.update(laneId, lane -> {
+            throw new MovementNotAllowedException("blocked", MovementNotAllowedException.Reason.BLOCKED_BY_PREVIOUS_CRANE);
+        }));
+
+        assertThat(laneStore.findById(laneId).get().getVersion()).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldThrowANotFoundExceptionWhenUpdatingAMissingLane() {
+        assertThrows(NotFoundException.class, () -> laneStore.update("5f0c6c2a9b1e8a3d4c2b1a00", lane -> {
+        }));
+    }
+
+    private MappedLaneStore open() throws IOException {
+        final MappedLaneStore store = new MappedLaneStore(directory.resolve("lanes.dat").toString(), 4, "never", 1000);
+        store.open();
+        return store;
+    }
+
+    private static Lane lane(final int first, final int second) {
+        return Lane.builder()
+                .withPositions(10)
+                .withCranes(List.of(new Crane(first, LaneOrder.FIRST), new Crane(second, LaneOrder.SECOND)))
+                .withVersion(0L)
+                .build();
+    }
+}
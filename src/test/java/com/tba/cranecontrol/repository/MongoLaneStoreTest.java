@@ -0,0 +1,147 @@
+package com.tba.cranecontrol.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tba.cranecontrol.exception.LaneConflictException;
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+
+@ExtendWith(MockitoExtension.class)
+class MongoLaneStoreTest {
+
+    @Mock
+    private LaneRepository laneRepository;
+
+    private MongoLaneStore laneStore;
+
+    @BeforeEach
+    void setup() {
+        laneStore = new MongoLaneStore(laneRepository, 3, 500);
+    }
+
+    @Test
+    void shouldRetryTheUpdateWhenTheLaneWasChangedConcurrently() {
+        final Lane stored = lane(0, 1L);
+        final Lane moved = lane(5, 2L);
+        when(laneRepository.findById("1")).thenReturn(Optional.of(stored));
+        when(laneRepository.compareAndSetCranes(any(), any()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(moved));
+
+        final Lane result = laneStore.update("1", lane -> lane.setCranePosition(LaneOrder.FIRST, 5));
+
+        assertThat(result.getVersion()).isEqualTo(2L);
+        verify(laneRepository, times(2)).compareAndSetCranes(any(), any());
+    }
+
+    @Test
+    void shouldThrowALaneConflictExceptionWhenTheAttemptsAreExhausted() {
+        when(laneRepository.findById("1")).thenReturn(Optional.of(lane(0, 1L)));
+        when(laneRepository.compareAndSetCranes(any(), any())).thenReturn(Optional.empty());
+
+        assertThrows(
+                LaneConflictException.class,
+                () -> laneStore.update("1", lane -> lane.setCranePosition(LaneOrder.FIRST, 5))
+        );
+        verify(laneRepository, times(3)).compareAndSetCranes(any(), any());
+    }
+
+    @Test
+    void shouldThrowANotFoundExceptionWhenTheLaneDoesNotExist() {
+        when(laneRepository.findById("1")).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> laneStore.update("1", lane -> {
+        }));
+    }
+
+    @Test
+    void shouldMoveACraneWithoutReadingTheLane() {
+        final CraneMove move = new CraneMove("1", LaneOrder.FIRST, 5);
+        when(laneRepository.moveCrane(move)).thenReturn(Optional.of(lane(0, 1L)));
+
+        final Lane result = laneStore.submitMove(move, lane -> lane.setCranePosition(LaneOrder.FIRST, 5)).join();
+
+        assertThat(result.getVersion()).isEqualTo(2L);
+        assertThat(result.getCranes().get(0).getCurrentPosition()).isEqualTo(5);
+        verify(laneRepository, never()).findById(any());
+    }
+
+    @Test
+    void shouldReadTheLaneToRejectAMoveThatDidNotMatch() {
+        final CraneMove move = new CraneMove("1", LaneOrder.FIRST, 11);
+        when(laneRepository.moveCrane(move)).thenReturn(Optional.empty());
+        when(laneRepository.findById("1")).thenReturn(Optional.of(lane(0, 1L)));
+
+        final CompletableFuture<Lane> result = laneStore.submitMove(move, lane -> {
+            throw new MovementNotAllowedException("Out of the lane", MovementNotAllowedException.Reason.OUT_OF_BOUNDS);
+        });
+
+        final CompletionException failure = assertThrows(CompletionException.class, result::join);
+        assertThat(failure.getCause()).isInstanceOf(MovementNotAllowedException.class);
+        verify(laneRepository).moveCrane(move);
+    }
+
+    @Test
+    void shouldRetryTheMoveWhenTheLaneWasChangedConcurrently() {
+        final CraneMove move = new CraneMove("1", LaneOrder.FIRST, 5);
+        when(laneRepository.moveCrane(move))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(lane(1, 2L)));
+        when(laneRepository.findById("1")).thenReturn(Optional.of(lane(1, 2L)));
+
+        final Lane result = laneStore.submitMove(move, lane -> lane.setCranePosition(LaneOrder.FIRST, 5)).join();
+
+        assertThat(result.getVersion()).isEqualTo(3L);
+        verify(laneRepository, times(2)).moveCrane(move);
+    }
+
+    @Test
+    void shouldMoveWithAReadWhenTheCranesAreNotStoredInLaneOrder() {
+        final CraneMove move = new CraneMove("1", LaneOrder.FIRST, 5);
+        final Lane unordered = Lane.builder()
+                .withId("1")
+                .withPositions(10)
+                .withCranes(List.of(new Crane(11, LaneOrder.SECOND), new Crane(0, LaneOrder.FIRST)))
+                .withVersion(1L)
+                .build();
+        when(laneRepository.moveCrane(move)).thenReturn(Optional.empty());
+        when(laneRepository.findById("1")).thenReturn(Optional.of(unordered));
+        when(laneRepository.compareAndSetCranes(any(), any()))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(1)));
+
+        final Lane result = laneStore.submitMove(move, lane -> lane.setCranePosition(LaneOrder.FIRST, 5)).join();
+
+        assertThat(result.getVersion()).isEqualTo(2L);
+        verify(laneRepository).moveCrane(move);
+    }
+
+    private static Lane lane(final int firstCranePosition, final Long version) {
+        return Lane.builder()
+                .withId("1")
+                .withPositions(10)
+                .withCranes(List.of(new Crane(firstCranePosition, LaneOrder.FIRST), new Crane(11, LaneOrder.SECOND)))
+                .withVersion(version)
+                .build();
+    }
+}
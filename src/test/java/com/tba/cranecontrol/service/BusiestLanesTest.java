@@ -0,0 +1,39 @@
+package com.tba.cranecontrol.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.tba.cranecontrol.model.LaneActivity;
+
+class BusiestLanesTest {
+
+    @Test
+    void shouldCountExactlyWhileEveryLaneFits() {
+        final BusiestLanes busiestLanes = new BusiestLanes(3);
+        moves(busiestLanes, "1", 2);
+        moves(busiestLanes, "2", 5);
+        moves(busiestLanes, "3", 1);
+
+        assertThat(busiestLanes.top(2)).extracting(LaneActivity::getLaneId).containsExactly("2", "1");
+        assertThat(busiestLanes.top(2)).extracting(LaneActivity::getMoves).containsExactly(5L, 2L);
+    }
+
+    @Test
+    void shouldReplaceTheLeastMovedLaneAndKeepTheBusiestOnes() {
+        final BusiestLanes busiestLanes = new BusiestLanes(2);
+        moves(busiestLanes, "1", 10);
+        moves(busiestLanes, "2", 1);
+
+        moves(busiestLanes, "3", 3);
+
+        assertThat(busiestLanes.top(2)).extracting(LaneActivity::getLaneId).containsExactly("1", "3");
+        assertThat(busiestLanes.top(2)).extracting(LaneActivity::getMoves).containsExactly(10L, 4L);
+    }
+
+    private static void moves(final BusiestLanes busiestLanes, final String laneId, final int moves) {
+        for (int move = 0; move < moves; move++) {
+            busiestLanes.moved(laneId);
+        }
+    }
+}
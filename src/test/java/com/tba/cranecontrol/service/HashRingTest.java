@@ -0,0 +1,65 @@
+package com.tba.cranecontrol.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+    private static final List<String> LANE_IDS = laneIds(10_000);
+
+    @Test
+    void shouldSpreadTheLanesOverEveryNode() {
+        final HashRing ring = new HashRing(Set.of("http://a", "http://b", "http://c"), 128);
+
+        final Map<String, Integer> lanes = new HashMap<>();
+        LANE_IDS.forEach(laneId -> lanes.merge(ring.ownerOf(laneId), 1, Integer::sum));
+
+        assertThat(lanes).hasSize(3);
+        assertThat(lanes.values()).allSatisfy(count -> assertThat(count).isBetween(2_500, 4_200));
+    }
+
+    @Test
+    void shouldOnlyMoveLanesToTheNodeThatJoins() {
+        final HashRing before = new HashRing(Set.of("http://a", "http://b", "http://c"), 128);
+        final HashRing after = new HashRing(Set.of("http://a", "http://b", "http://c", "http://d"), 128);
+
+        int moved = 0;
+        for (final String laneId : LANE_IDS) {
+            if (!before.ownerOf(laneId).equals(after.ownerOf(laneId))) {
+                assertThat(after.ownerOf(laneId)).isEqualTo("http://d");
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(1_500, 3_500);
+    }
+
+    @Test
+    void shouldGiveTheSameOwnerRegardlessOfTheOrderOfTheNodes() {
+        final HashRing ring = new HashRing(List.of("http://a", "http://b"), 16);
+        final HashRing reversed = new HashRing(List.of("http://b", "http://a"), 16);
+
+        LANE_IDS.forEach(laneId -> assertThat(ring.ownerOf(laneId)).isEqualTo(reversed.ownerOf(laneId)));
+    }
+
+    @Test
+    void shouldRejectARingWithoutNodes() {
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(Set.of(), 16));
+    }
+
+    private static List<String> laneIds(final int lanes) {
+        final String[] ids = new String[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            ids[lane] = new ObjectId().toHexString();
+        }
+        return List.of(ids);
+    }
+}
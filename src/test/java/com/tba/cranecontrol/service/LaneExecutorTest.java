@@ -0,0 +1,78 @@
+package com.tba.cranecontrol.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+
+class LaneExecutorTest {
+
+    private final LaneExecutor laneExecutor = new LaneExecutor(4, 100);
+
+    @AfterEach
+    void tearDown() {
+        laneExecutor.shutdown();
+    }
+
+    @Test
+    void shouldRunTheTasksOfALaneOnTheSameThread() {
+        final String firstThread = laneExecutor.execute("lane1", () -> Thread.currentThread().getName());
+        final String secondThread = laneExecutor.execute("lane1", () -> Thread.currentThread().getName());
+
+        assertThat(firstThread).startsWith("Lane Stripe-");
+        assertThat(secondThread).isEqualTo(firstThread);
+    }
+
+    @Test
+    void shouldRunTheTasksOfALaneInSubmissionOrder() throws InterruptedException {
+        final List<Integer> executed = new CopyOnWriteArrayList<>();
+        final ExecutorService callers = Executors.newSingleThreadExecutor();
+        for (int task = 0; task < 50; task++) {
+            final int value = task;
+            callers.execute(() -> laneExecutor.execute("lane1", () -> executed.add(value)));
+        }
+        callers.shutdown();
+        callers.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertThat(executed).isSorted().hasSize(50);
+    }
+
+    @Test
+    void shouldRethrowTheExceptionOfTheTask() {
+        assertThrows(MovementNotAllowedException.class, () -> laneExecutor.execute("lane1", () -> {
+            throw new MovementNotAllowedException("blocked", MovementNotAllowedException.Reason.BLOCKED_BY_PREVIOUS_CRANE);
+        }));
+    }
+
+    @Test
+    void shouldRunTheLanesOfEachStripeTogetherOnTheirStripe() {
+        final List<String> laneIds = List.of("lane1", "lane2", "lane3", "lane4", "lane5", "lane6", "lane7", "lane8");
+        final Map<String, String> threads = new ConcurrentHashMap<>();
+
+        final List<Integer> sizes = laneExecutor.executeByStripe(laneIds, lanes -> {
+            lanes.forEach(laneId -> threads.put(laneId, Thread.currentThread().getName()));
+            return lanes.size();
+        });
+
+        assertThat(sizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(laneIds.size());
+        for (final String laneId : laneIds) {
+            assertThat(threads.get(laneId)).isEqualTo(laneExecutor.execute(laneId, () -> Thread.currentThread().getName()));
+        }
+    }
+
+    @Test
+    void shouldExposeTheQueueDepthOfEachStripe() {
+        assertThat(laneExecutor.getQueueDepths()).containsExactly(0, 0, 0, 0);
+    }
+}
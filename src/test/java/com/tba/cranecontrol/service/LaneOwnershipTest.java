@@ -0,0 +1,86 @@
+package com.tba.cranecontrol.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tba.cranecontrol.model.ClusterNode;
+import com.tba.cranecontrol.repository.ClusterNodeRepository;
+
+@ExtendWith(MockitoExtension.class)
+class LaneOwnershipTest {
+
+    private static final String SELF = "http://localhost:8081";
+    private static final String OTHER = "http://localhost:8082";
+
+    @Mock
+    private ClusterNodeRepository clusterNodeRepository;
+
+    private LaneOwnership laneOwnership;
+
+    @BeforeEach
+    void setup() {
+        laneOwnership = new LaneOwnership(clusterNodeRepository, SELF, 64, 60_000, 5_000, "mongo");
+    }
+
+    @Test
+    void shouldOwnEveryLaneWhileAlone() {
+        when(clusterNodeRepository.findByLastSeenAfter(any())).thenReturn(List.of(node(SELF)));
+
+        laneOwnership.heartbeat();
+
+        verify(clusterNodeRepository).save(any());
+        assertThat(laneOwnership.getNodes()).containsExactly(SELF);
+        assertThat(laneOwnership.isLocal("5f0c6c2a9b1e8a3d4c2b1a00")).isTrue();
+    }
+
+    @Test
+    void shouldRebalanceWhenANodeJoinsAndLeaves() {
+        when(clusterNodeRepository.findByLastSeenAfter(any()))
+                .thenReturn(List.of(node(SELF), node(OTHER)))
+                .thenReturn(List.of(node(SELF)));
+
+        laneOwnership.heartbeat();
+
+        assertThat(laneOwnership.getNodes()).containsExactlyInAnyOrder(SELF, OTHER);
+        assertThat(laneOwnership.ownerOf("5f0c6c2a9b1e8a3d4c2b1a00")).isIn(SELF, OTHER);
+
+        laneOwnership.heartbeat();
+
+        assertThat(laneOwnership.getNodes()).containsExactly(SELF);
+    }
+
+    @Test
+    void shouldKeepTheNodesWhenTheHeartbeatFails() {
+        when(clusterNodeRepository.findByLastSeenAfter(any())).thenReturn(List.of(node(SELF), node(OTHER)));
+        laneOwnership.heartbeat();
+        when(clusterNodeRepository.findByLastSeenAfter(any())).thenThrow(new IllegalStateException("Mongo is down"));
+
+        laneOwnership.heartbeat();
+
+        assertThat(laneOwnership.getNodes()).containsExactlyInAnyOrder(SELF, OTHER);
+    }
+
+    @Test
+    void shouldRefuseStoreModesKeepingTheLanesOnEachNode() {
+        assertThrows(
+                IllegalStateException.class,
+                () -> new LaneOwnership(clusterNodeRepository, SELF, 64, 60_000, 5_000, "memory")
+        );
+    }
+
+    private static ClusterNode node(final String id) {
+        return new ClusterNode(id, Instant.now());
+    }
+}
@@ -0,0 +1,114 @@
+package com.tba.cranecontrol.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.model.LaneState;
+
+class LaneRulesTest {
+
+    @Test
+    void shouldParkEveryCraneButTheFirstAtTheEndOfANewLane() {
+        final Lane lane = LaneRules.newLane(10, 4);
+
+        assertThat(lane.getCranes()).extracting(Crane::getCurrentPosition).containsExactly(0, 9, 10, 11);
+        assertThat(lane.getCranes()).extracting(Crane::getLaneOrder)
+                .containsExactly(LaneOrder.FIRST, LaneOrder.SECOND, LaneOrder.THIRD, LaneOrder.FOURTH);
+    }
+
+    @Test
+    void shouldPushOnlyTheCranesInTheWay() {
+        final LaneState lane = lane(20, 0, 5, 6, 8, 15);
+        final List<Integer> pushes = new ArrayList<>();
+        lane.setMoveListener((laneOrder, fromPosition, toPosition, pushedCranes) -> pushes.add(pushedCranes));
+
+        final boolean pushed = LaneRules.move(lane, LaneOrder.FIRST, 6);
+
+        assertThat(pushed).isTrue();
+        assertThat(positions(lane)).containsExactly(6, 7, 8, 9, 15);
+        assertThat(pushes).containsExactly(3);
+    }
+
+    @Test
+    void shouldMoveWithoutPushingWhenNothingIsInTheWay() {
+        final LaneState lane = lane(20, 0, 5, 10, 15);
+
+        final boolean pushed = LaneRules.move(lane, LaneOrder.SECOND, 9);
+
+        assertThat(pushed).isFalse();
+        assertThat(positions(lane)).containsExactly(0, 9, 10, 15);
+    }
+
+    @Test
+    void shouldRejectAMoveOntoThePreviousCrane() {
+        final LaneState lane = lane(20, 0, 5, 10, 15);
+
+        final MovementNotAllowedException exception = assertThrows(
+                MovementNotAllowedException.class,
+                () -> LaneRules.move(lane, LaneOrder.FOURTH, 10)
+        );
+
+        assertThat(exception.getMessage()).contains("third crane is blocking");
+        assertThat(positions(lane)).containsExactly(0, 5, 10, 15);
+    }
+
+    @Test
+    void shouldRejectAPushThatWouldEndOutsideTheLane() {
+        final LaneState lane = lane(10, 0, 5, 10, 11);
+
+        final MovementNotAllowedException exception = assertThrows(
+                MovementNotAllowedException.class,
+                () -> LaneRules.move(lane, LaneOrder.SECOND, 10)
+        );
+
+        assertThat(exception.getReason()).isEqualTo(MovementNotAllowedException.Reason.OUT_OF_BOUNDS);
+        assertThat(positions(lane)).containsExactly(0, 5, 10, 11);
+    }
+
+    @Test
+    void shouldRejectANegativePositionWithoutLosingTheCrane() {
+        final LaneState lane = lane(10, 0, 5, 11);
+
+        final MovementNotAllowedException exception = assertThrows(
+                MovementNotAllowedException.class,
+                () -> LaneRules.move(lane, LaneOrder.FIRST, -1)
+        );
+
+        assertThat(exception.getReason()).isEqualTo(MovementNotAllowedException.Reason.OUT_OF_BOUNDS);
+        assertThat(lane.hasCrane(LaneOrder.FIRST)).isTrue();
+        assertThat(lane.toLane().getCranes()).hasSize(3);
+    }
+
+    @Test
+    void shouldThrowANotFoundExceptionForACraneTheLaneDoesNotHave() {
+        final LaneState lane = lane(10, 0, 11);
+
+        assertThrows(NotFoundException.class, () -> LaneRules.move(lane, LaneOrder.THIRD, 5));
+    }
+
+    private static LaneState lane(final int positions, final int... cranePositions) {
+        final LaneState lane = new LaneState("lane", positions, 0L);
+        for (int index = 0; index < cranePositions.length; index++) {
+            lane.setCranePosition(index, cranePositions[index]);
+        }
+        return lane;
+    }
+
+    private static List<Integer> positions(final LaneState lane) {
+        final List<Integer> positions = new ArrayList<>();
+        for (int index = 0; index < lane.getCranes(); index++) {
+            positions.add(lane.getCranePosition(index));
+        }
+        return positions;
+    }
+}
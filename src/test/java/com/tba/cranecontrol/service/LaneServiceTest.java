@@ -3,56 +3,93 @@ package com.tba.cranecontrol.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.tba.cranecontrol.exception.LaneCreationException;
 import com.tba.cranecontrol.exception.MovementNotAllowedException;
 import com.tba.cranecontrol.exception.NotFoundException;
 import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.CraneMoveResult;
 import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneActivity;
 import com.tba.cranecontrol.model.LaneOrder;
-import com.tba.cranecontrol.repository.LaneRepository;
+import com.tba.cranecontrol.model.LaneState;
+import com.tba.cranecontrol.model.MoveStatus;
+import com.tba.cranecontrol.model.YardStats;
+import com.tba.cranecontrol.repository.LaneStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 class LaneServiceTest {
 
-    @InjectMocks
     private LaneService laneService;
 
+    private LaneExecutor laneExecutor;
+
+    private MeterRegistry meterRegistry;
+
+    private YardStatistics yardStatistics;
+
     @Mock
-    private LaneRepository laneRepository;
+    private LaneStore laneStore;
+
+    @BeforeEach
+    void setup() {
+        laneExecutor = new LaneExecutor(2, 100);
+        meterRegistry = new SimpleMeterRegistry();
+        yardStatistics = new YardStatistics(laneStore, false, 60, 10, 100);
+        laneService = new LaneService(
+                laneStore, laneExecutor, new LaneMetrics(meterRegistry, laneExecutor),
+                new LaneUpdates(Runnable::run, 100_000, 5_000),
+                yardStatistics, Runnable::run, 2, 2
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        laneExecutor.shutdown();
+    }
 
     @Test
     void shouldMoveTheFirstCraneForAValidPosition() {
         //given
         final String laneId = "ABCD1234";
-        when(laneRepository.findById(laneId)).thenReturn(Optional.of(Lane.builder()
+        givenStoredLane(laneId, Lane.builder()
                 .withPositions(20)
                 .withCranes(List.of(
                         new Crane(0, LaneOrder.FIRST),
                         new Crane(20, LaneOrder.SECOND)
                 ))
                 .withId(laneId)
-                .build()));
+                .build());
 
         //when
-        laneService.moveCrane(laneId, LaneOrder.FIRST, 11);
+        final Lane result = laneService.moveCrane(laneId, LaneOrder.FIRST, 11);
 
         //then
-        final ArgumentCaptor<Lane> laneArgumentCaptor = ArgumentCaptor.forClass(Lane.class);
-        verify(laneRepository).save(laneArgumentCaptor.capture());
-        final Lane value = laneArgumentCaptor.getValue();
-        assertThat(value.getId()).isEqualTo(laneId);
+        verify(laneStore).submitMove(any(), any());
+        assertThat(result.getId()).isEqualTo(laneId);
+        assertThat(result.getCranes().get(0).getCurrentPosition()).isEqualTo(11);
     }
 
     @Test
@@ -60,21 +97,18 @@ class LaneServiceTest {
         //given
         final String laneId = "ABCD1234";
         final int desiredPosition = 12;
-        when(laneRepository.findById(laneId)).thenReturn(Optional.of(Lane.builder()
+        givenStoredLane(laneId, Lane.builder()
                 .withPositions(20)
                 .withCranes(List.of(
                         new Crane(0, LaneOrder.FIRST),
                         new Crane(10, LaneOrder.SECOND)
                 ))
                 .withId(laneId)
-                .build()));
+                .build());
         //when
-        laneService.moveCrane(laneId, LaneOrder.FIRST, desiredPosition);
+        final Lane lane = laneService.moveCrane(laneId, LaneOrder.FIRST, desiredPosition);
 
         //then
-        final ArgumentCaptor<Lane> laneArgumentCaptor = ArgumentCaptor.forClass(Lane.class);
-        verify(laneRepository).save(laneArgumentCaptor.capture());
-        final Lane lane = laneArgumentCaptor.getValue();
         assertThat(lane.getId()).isEqualTo(laneId);
         assertThat(lane.getCranes().stream()
                 .filter(c -> c.getLaneOrder() == LaneOrder.SECOND)
@@ -82,25 +116,56 @@ class LaneServiceTest {
                 .get()
                 .getCurrentPosition())
                 .isEqualTo(desiredPosition + 1);
+        assertThat(collisions("push")).isEqualTo(1);
     }
 
     @Test
     void shouldThrowAnExceptionWhenTheFirstContainerIsBlockingTheSecond() {
         final String laneId = "ABCD1234";
         final int desiredPosition = 4;
-        when(laneRepository.findById(laneId)).thenReturn(Optional.of(Lane.builder()
+        givenStoredLane(laneId, Lane.builder()
                 .withPositions(20)
                 .withCranes(List.of(
                         new Crane(5, LaneOrder.FIRST),
                         new Crane(10, LaneOrder.SECOND)
                 ))
                 .withId(laneId)
-                .build()));
+                .build());
         //when
         assertThrows(
                 MovementNotAllowedException.class,
                 () -> laneService.moveCrane(laneId, LaneOrder.SECOND, desiredPosition)
         );
+        assertThat(collisions("blocked_by_previous_crane")).isEqualTo(1);
+        assertThat(collisions("push")).isZero();
+    }
+
+    @Test
+    void shouldKeepTheYardStatisticsUpToDateWithCreationsAndMoves() {
+        //given
+        when(laneStore.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        laneService.create(1, 10, 2);
+        final String laneId = "ABCD1234";
+        givenStoredLane(laneId, Lane.builder()
+                .withPositions(10)
+                .withCranes(List.of(
+                        new Crane(0, LaneOrder.FIRST),
+                        new Crane(11, LaneOrder.SECOND)
+                ))
+                .withId(laneId)
+                .build());
+
+        //when
+        laneService.moveCrane(laneId, LaneOrder.FIRST, 4);
+        assertThrows(MovementNotAllowedException.class, () -> laneService.moveCrane(laneId, LaneOrder.SECOND, 0));
+
+        //then
+        final YardStats stats = yardStatistics.getStats();
+        assertThat(stats.getLanes()).isEqualTo(1);
+        assertThat(stats.getAverageGap()).isEqualTo(6.0);
+        assertThat(stats.getMovesPerMinute()).isEqualTo(1.0);
+        assertThat(stats.getRejectionRate()).isEqualTo(0.5);
+        assertThat(stats.getBusiestLanes()).extracting(LaneActivity::getLaneId).containsExactly(laneId);
     }
 
     @Test
@@ -108,7 +173,8 @@ class LaneServiceTest {
         //given
         final String laneId = "ABCD1234";
         final int desiredPosition = 4;
-        when(laneRepository.findById(any())).thenReturn(Optional.empty());
+        when(laneStore.submitMove(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new NotFoundException("Lane not found for id: " + laneId)));
 
         //then
         assertThrows(NotFoundException.class, () -> laneService.moveCrane(laneId, LaneOrder.SECOND, desiredPosition));
@@ -117,22 +183,16 @@ class LaneServiceTest {
     @Test
     void shouldCreateLaneForAValidRequest() {
         //given
-        when(laneRepository.save(any())).thenReturn(Lane.builder()
-                .withPositions(10)
-                .withCranes(List.of(
-                        new Crane(0, LaneOrder.FIRST),
-                        new Crane(10, LaneOrder.SECOND)
-                ))
-                .withId("laneId")
-                .build());
+        when(laneStore.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
         //when
-        final List<Lane> result = laneService.create(1, 10);
+        final List<Lane> result = laneService.create(1, 10, 2);
 
         //then
         final Lane lane = result.get(0);
         assertThat(result.size()).isEqualTo(1);
         assertThat(lane.getPositions()).isEqualTo(10);
         assertThat(lane.getCranes().size()).isEqualTo(2);
+        assertThat(lane.getCranes().get(1).getCurrentPosition()).isEqualTo(11);
     }
 
     @Test
@@ -140,35 +200,194 @@ class LaneServiceTest {
         //given
         final Integer lanes = 5;
         final Integer positions = 10;
-        when(laneRepository.save(any())).thenReturn(Lane.builder()
-                .withPositions(positions)
-                .withCranes(List.of(new Crane(0, LaneOrder.FIRST), new Crane(10, LaneOrder.SECOND))).build());
+        when(laneStore.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         //when
-        final List<Lane> result = laneService.create(lanes, positions);
+        final List<Lane> result = laneService.create(lanes, positions, 2);
 
         //then
         assertThat(result.size()).isEqualTo(5);
         assertThat(result.stream().allMatch(l -> l.getPositions() == 10)).isEqualTo(true);
+        verify(laneStore, times(3)).insertAll(any());
+    }
+
+    @Test
+    void shouldHandEveryProvisionedChunkToTheConsumerInOrder() {
+        //given
+        when(laneStore.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        final List<Integer> chunkSizes = new ArrayList<>();
+
+        //when
+        laneService.provision(7, 10, 2, chunk -> chunkSizes.add(chunk.size()));
+
+        //then
+        assertThat(chunkSizes).containsExactly(2, 2, 2, 1);
+    }
+
+    @Test
+    void shouldThrowALaneCreationExceptionWhenAChunkFails() {
+        //given
+        when(laneStore.insertAll(any())).thenThrow(new IllegalStateException("insert failed"));
+
+        //then
+        assertThrows(LaneCreationException.class, () -> laneService.create(3, 10, 2));
     }
 
     @Test
     void shouldThrowAMovementNotAllowedExceptionWhenTheDesiredPositionIsNotValid() {
         final String laneId = "ABCD1234";
         final int desiredPosition = 40;
-        when(laneRepository.findById(laneId)).thenReturn(Optional.of(Lane.builder()
+        givenStoredLane(laneId, Lane.builder()
                 .withPositions(20)
                 .withCranes(List.of(
                         new Crane(5, LaneOrder.FIRST),
                         new Crane(10, LaneOrder.SECOND)
                 ))
                 .withId(laneId)
-                .build()));
+                .build());
         //when
         assertThrows(
                 MovementNotAllowedException.class,
                 () -> laneService.moveCrane(laneId, LaneOrder.SECOND, desiredPosition)
         );
+        assertThat(collisions("out_of_bounds")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldApplyBulkMovesInOrderPerLane() {
+        //given
+        final Lane lane = Lane.builder()
+                .withPositions(20)
+                .withCranes(List.of(
+                        new Crane(0, LaneOrder.FIRST),
+                        new Crane(21, LaneOrder.SECOND)
+                ))
+                .withId("lane1")
+                .build();
+        when(laneStore.updateAll(any())).thenAnswer(invocation -> {
+            final Map<String, Consumer<LaneState>> mutations = invocation.getArgument(0);
+            if (!mutations.containsKey("lane1")) {
+                return Map.of();
+            }
+            final LaneState state = LaneState.of(lane);
+            mutations.get("lane1").accept(state);
+            return Map.of("lane1", state.toLane());
+        });
+
+        //when
+        final List<CraneMoveResult> results = laneService.moveCranes(List.of(
+                new CraneMove("lane1", LaneOrder.FIRST, 5),
+                new CraneMove("lane1", LaneOrder.SECOND, 4),
+                new CraneMove("lane2", LaneOrder.FIRST, 1),
+                new CraneMove("lane1", LaneOrder.SECOND, 6)
+        ));
+
+        //then
+        assertThat(results.size()).isEqualTo(4);
+        assertThat(results.get(0).getStatus()).isEqualTo(MoveStatus.APPLIED);
+        assertThat(results.get(1).getStatus()).isEqualTo(MoveStatus.REJECTED);
+        assertThat(results.get(2).getStatus()).isEqualTo(MoveStatus.NOT_FOUND);
+        assertThat(results.get(3).getStatus()).isEqualTo(MoveStatus.APPLIED);
+        assertThat(results.get(3).getLane().getCranes().get(1).getCurrentPosition()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldReportTheWrittenVersionOfEveryAppliedBulkMove() {
+        //given
+        final Lane lane = Lane.builder()
+                .withPositions(20)
+                .withCranes(List.of(
+                        new Crane(0, LaneOrder.FIRST),
+                        new Crane(21, LaneOrder.SECOND)
+                ))
+                .withId("lane1")
+                .withVersion(3L)
+                .build();
+        when(laneStore.updateAll(any())).thenAnswer(invocation -> {
+            final Map<String, Consumer<LaneState>> mutations = invocation.getArgument(0);
+            final LaneState state = LaneState.of(lane);
+            mutations.get("lane1").accept(state);
+            state.incrementVersion();
+            return Map.of("lane1", state.toLane());
+        });
+
+        //when
+        final List<CraneMoveResult> results = laneService.moveCranes(List.of(
+                new CraneMove("lane1", LaneOrder.FIRST, 5),
+                new CraneMove("lane1", LaneOrder.SECOND, 8)
+        ));
+
+        //then
+        assertThat(results).extracting(result -> result.getLane().getVersion()).containsExactly(4L, 4L);
+        assertThat(results.get(0).getLane().getCranes().get(0).getCurrentPosition()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldReportTheMovesOfALaneDeletedBeforeItsWriteAsNotFound() {
+        //given
+        final Lane lane = Lane.builder()
+                .withPositions(20)
+                .withCranes(List.of(
+                        new Crane(0, LaneOrder.FIRST),
+                        new Crane(21, LaneOrder.SECOND)
+                ))
+                .withId("lane1")
+                .build();
+        when(laneStore.updateAll(any())).thenAnswer(invocation -> {
+            final Map<String, Consumer<LaneState>> mutations = invocation.getArgument(0);
+            mutations.get("lane1").accept(LaneState.of(lane));
+            return Map.of();
+        });
+        when(laneStore.findById("lane1")).thenReturn(Optional.empty());
+
+        //when
+        final List<CraneMoveResult> results = laneService.moveCranes(
+                List.of(new CraneMove("lane1", LaneOrder.FIRST, 5))
+        );
+
+        //then
+        assertThat(results.get(0).getStatus()).isEqualTo(MoveStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldReportTheMovesOfALaneThatKeptChangingAsAConflict() {
+        //given
+        final Lane lane = Lane.builder()
+                .withPositions(20)
+                .withCranes(List.of(
+                        new Crane(0, LaneOrder.FIRST),
+                        new Crane(21, LaneOrder.SECOND)
+                ))
+                .withId("lane1")
+                .build();
+        when(laneStore.updateAll(any())).thenAnswer(invocation -> {
+            final Map<String, Consumer<LaneState>> mutations = invocation.getArgument(0);
+            mutations.get("lane1").accept(LaneState.of(lane));
+            return Map.of();
+        });
+        when(laneStore.findById("lane1")).thenReturn(Optional.of(lane));
+
+        //when
+        final List<CraneMoveResult> results = laneService.moveCranes(
+                List.of(new CraneMove("lane1", LaneOrder.FIRST, 5))
+        );
+
+        //then
+        assertThat(results.get(0).getStatus()).isEqualTo(MoveStatus.CONFLICT);
+    }
+
+    private double collisions(final String reason) {
+        return meterRegistry.get(LaneMetrics.COLLISIONS).tag("reason", reason).counter().count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenStoredLane(final String laneId, final Lane lane) {
+        when(laneStore.submitMove(argThat(move -> move != null && laneId.equals(move.getLaneId())), any()))
+                .thenAnswer(invocation -> {
+                    final LaneState state = LaneState.of(lane);
+                    ((Consumer<LaneState>) invocation.getArgument(1)).accept(state);
+                    return CompletableFuture.completedFuture(state.toLane());
+                });
     }
 
     private List<Lane> mockLanes(final int positions) {
@@ -0,0 +1,156 @@
+package com.tba.cranecontrol.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+
+class LaneUpdatesTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private LaneUpdates laneUpdates;
+
+    @BeforeEach
+    void setup() {
+        laneUpdates = new LaneUpdates(tasks::add, 2, 1);
+    }
+
+    @Test
+    void shouldOnlySendTheLanesASubscriberAskedFor() {
+        final List<List<Lane>> received = new ArrayList<>();
+        laneUpdates.subscribe(List.of("1"), received::add, () -> { });
+
+        laneUpdates.publish(lane("1", 1L, 3));
+        laneUpdates.publish(lane("2", 1L, 3));
+        runTasks();
+
+        assertThat(received).hasSize(1);
+        assertThat(received.get(0)).extracting(Lane::getId).containsExactly("1");
+    }
+
+    @Test
+    void shouldConflateTheChangesOfALaneWhileTheSubscriberIsBusy() {
+        final List<List<Lane>> received = new ArrayList<>();
+        laneUpdates.subscribe(List.of(), received::add, () -> { });
+
+        laneUpdates.publish(lane("1", 1L, 3));
+        laneUpdates.publish(lane("1", 3L, 7));
+        laneUpdates.publish(lane("1", 2L, 5));
+        laneUpdates.publish(lane("2", 1L, 4));
+        runTasks();
+
+        assertThat(received).hasSize(1);
+        assertThat(received.get(0)).extracting(Lane::getId).containsExactlyInAnyOrder("1", "2");
+        assertThat(received.get(0).stream().filter(lane -> lane.getId().equals("1")).findFirst().get().getVersion())
+                .isEqualTo(3L);
+    }
+
+    @Test
+    void shouldStopSendingOnceTheSubscriptionIsCancelled() {
+        final List<List<Lane>> received = new ArrayList<>();
+        final LaneUpdates.Subscription subscription = laneUpdates.subscribe(List.of("1"), received::add, () -> { });
+
+        subscription.cancel();
+        laneUpdates.publish(lane("1", 1L, 3));
+        runTasks();
+
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void shouldCancelTheSubscriptionWhenTheSubscriberFails() {
+        final List<List<Lane>> received = new ArrayList<>();
+        laneUpdates.subscribe(List.of(), lanes -> {
+            received.add(lanes);
+            throw new IllegalStateException("client gone");
+        }, () -> { });
+
+        laneUpdates.publish(lane("1", 1L, 3));
+        runTasks();
+        laneUpdates.publish(lane("1", 2L, 4));
+        runTasks();
+
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    void shouldDropASubscriberFallingTooFarBehind() {
+        final List<List<Lane>> received = new ArrayList<>();
+        final AtomicBoolean dropped = new AtomicBoolean();
+        laneUpdates.subscribe(List.of(), received::add, () -> dropped.set(true));
+
+        laneUpdates.publish(lane("1", 1L, 3));
+        laneUpdates.publish(lane("2", 1L, 3));
+        laneUpdates.publish(lane("3", 1L, 3));
+        runTasks();
+
+        assertThat(dropped).isTrue();
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void shouldDropASubscriberOnceTheSendInProgressReturnsWhenItTakesTooLong() {
+        final List<List<Lane>> received = new ArrayList<>();
+        final AtomicBoolean dropped = new AtomicBoolean();
+        laneUpdates.subscribe(List.of(), lanes -> {
+            sleep(5);
+            laneUpdates.dropStalled();
+            assertThat(dropped).isFalse();
+            received.add(lanes);
+        }, () -> dropped.set(true));
+
+        laneUpdates.publish(lane("1", 1L, 3));
+        runTasks();
+        laneUpdates.publish(lane("1", 2L, 4));
+        runTasks();
+
+        assertThat(dropped).isTrue();
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    void shouldCallTheListenersOnThePublishingThread() {
+        final List<List<Lane>> received = new ArrayList<>();
+        laneUpdates.listen(received::add);
+
+        laneUpdates.publish(lane("1", 1L, 3));
+
+        assertThat(received).hasSize(1);
+        assertThat(tasks).isEmpty();
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static Lane lane(final String id, final Long version, final int firstCranePosition) {
+        return Lane.builder()
+                .withId(id)
+                .withPositions(10)
+                .withCranes(List.of(new Crane(firstCranePosition, LaneOrder.FIRST), new Crane(11, LaneOrder.SECOND)))
+                .withVersion(version)
+                .build();
+    }
+}
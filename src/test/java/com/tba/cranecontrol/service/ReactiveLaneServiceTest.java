@@ -0,0 +1,109 @@
+package com.tba.cranecontrol.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tba.cranecontrol.exception.LaneConflictException;
+import com.tba.cranecontrol.exception.MovementNotAllowedException;
+import com.tba.cranecontrol.exception.NotFoundException;
+import com.tba.cranecontrol.model.Crane;
+import com.tba.cranecontrol.model.CraneMove;
+import com.tba.cranecontrol.model.CraneMoveResult;
+import com.tba.cranecontrol.model.Lane;
+import com.tba.cranecontrol.model.LaneOrder;
+import com.tba.cranecontrol.model.MoveStatus;
+import com.tba.cranecontrol.repository.ReactiveLaneRepository;
+
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveLaneServiceTest {
+
+    @Mock
+    private ReactiveLaneRepository laneRepository;
+
+    @Mock
+    private LaneMetrics laneMetrics;
+
+    private ReactiveLaneService laneService;
+
+    @BeforeEach
+    void setup() {
+        laneService = new ReactiveLaneService(laneRepository, laneMetrics, 3, 2);
+    }
+
+    @Test
+    void shouldRetryTheMoveWhenTheLaneWasChangedConcurrently() {
+        when(laneRepository.findById("1")).thenReturn(Mono.just(lane(0, 1L)));
+        when(laneRepository.compareAndSetCranes(any(), any()))
+                .thenReturn(Mono.empty())
+                .thenReturn(Mono.just(lane(5, 2L)));
+
+        final Lane result = laneService.moveCrane("1", LaneOrder.FIRST, 5).block();
+
+        assertThat(result.getCranes().get(0).getCurrentPosition()).isEqualTo(5);
+        verify(laneRepository, times(2)).compareAndSetCranes(any(), any());
+    }
+
+    @Test
+    void shouldThrowALaneConflictExceptionWhenTheAttemptsAreExhausted() {
+        when(laneRepository.findById("1")).thenReturn(Mono.just(lane(0, 1L)));
+        when(laneRepository.compareAndSetCranes(any(), any())).thenReturn(Mono.empty());
+
+        assertThrows(LaneConflictException.class, () -> laneService.moveCrane("1", LaneOrder.FIRST, 5).block());
+        verify(laneRepository, times(3)).compareAndSetCranes(any(), any());
+    }
+
+    @Test
+    void shouldNotWriteAMoveThatIsNotAllowed() {
+        when(laneRepository.findById("1")).thenReturn(Mono.just(lane(0, 1L)));
+
+        assertThrows(MovementNotAllowedException.class, () -> laneService.moveCrane("1", LaneOrder.SECOND, 0).block());
+        verify(laneRepository, never()).compareAndSetCranes(any(), any());
+    }
+
+    @Test
+    void shouldThrowANotFoundExceptionWhenTheLaneDoesNotExist() {
+        when(laneRepository.findById("1")).thenReturn(Mono.empty());
+
+        assertThrows(NotFoundException.class, () -> laneService.findById("1").block());
+    }
+
+    @Test
+    void shouldReportTheOutcomeOfEachMoveOfABulk() {
+        when(laneRepository.findById("1")).thenReturn(Mono.just(lane(0, 1L)));
+        when(laneRepository.findById("2")).thenReturn(Mono.empty());
+        when(laneRepository.compareAndSetCranes(any(), any())).thenReturn(Mono.just(lane(5, 2L)));
+
+        final List<CraneMoveResult> results = laneService.moveCranes(List.of(
+                new CraneMove("1", LaneOrder.FIRST, 5),
+                new CraneMove("1", LaneOrder.SECOND, 0),
+                new CraneMove("2", LaneOrder.FIRST, 1)
+        )).block();
+
+        assertThat(results).extracting(CraneMoveResult::getStatus)
+                .containsExactly(MoveStatus.APPLIED, MoveStatus.REJECTED, MoveStatus.NOT_FOUND);
+    }
+
+    private static Lane lane(final int firstCranePosition, final Long version) {
+        return Lane.builder()
+                .withId("1")
+                .withPositions(10)
+                .withCranes(List.of(new Crane(firstCranePosition, LaneOrder.FIRST), new Crane(11, LaneOrder.SECOND)))
+                .withVersion(version)
+                .build();
+    }
+}
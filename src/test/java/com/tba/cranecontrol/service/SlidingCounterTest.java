@@ -0,0 +1,32 @@
+package com.tba.cranecontrol.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SlidingCounterTest {
+
+    @Test
+    void shouldOnlySumTheEventsOfTheWindow() {
+        final SlidingCounter counter = new SlidingCounter(3);
+        counter.increment(100);
+        counter.increment(101);
+        counter.increment(101);
+        counter.increment(102);
+
+        assertThat(counter.sum(102)).isEqualTo(4);
+        assertThat(counter.sum(103)).isEqualTo(3);
+        assertThat(counter.sum(105)).isZero();
+    }
+
+    @Test
+    void shouldStartABucketOverWhenItsSecondComesBack() {
+        final SlidingCounter counter = new SlidingCounter(3);
+        counter.increment(100);
+        counter.increment(100);
+
+        counter.increment(103);
+
+        assertThat(counter.sum(103)).isEqualTo(1);
+    }
+}